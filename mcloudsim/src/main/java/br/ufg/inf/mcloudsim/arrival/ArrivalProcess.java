@@ -0,0 +1,47 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Random;
+
+import br.ufg.inf.mcloudsim.core.Publisher;
+
+/**
+ * Generates the arrival times of the publications of a {@link Publisher}. <br>
+ * Arrivals are generated one at a time and in increasing order, so an
+ * implementation must not keep the whole sequence in memory. Rates given to an
+ * implementation are relative to the publisher rate, which changes with the
+ * experiment.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public interface ArrivalProcess {
+
+	/**
+	 * Prepares the process to generate a new sequence of arrivals.
+	 * 
+	 * @param rate
+	 *            the publisher rate (events/time unit)
+	 * @param interval
+	 *            arrivals are generated in [0, interval]
+	 * @param random
+	 *            the source of random numbers
+	 */
+	void start(double rate, double interval, Random random);
+
+	/**
+	 * Generates the next arrival time.
+	 * 
+	 * @return the arrival time or {@link Double#NaN} if there are no more
+	 *         arrivals in the interval
+	 */
+	double nextArrivalTime();
+}
@@ -0,0 +1,64 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Random;
+
+/**
+ * Generates exactly <i>interval x rate</i> arrivals uniformly distributed in
+ * the interval, i.e. a Poisson process conditioned on its number of arrivals.
+ * <br>
+ * The arrivals are the order statistics of uniform samples. They are generated
+ * in increasing order without sorting: given the previous arrival, the next
+ * one is the minimum of the remaining samples, which are uniform in the rest
+ * of the interval.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ExactCountArrivalProcess implements ArrivalProcess {
+
+	private double interval;
+	private Random random;
+	private long remaining;
+
+	/** Previous arrival as a fraction of the interval */
+	private double position;
+
+	@Override
+	public void start(double rate, double interval, Random random) {
+		this.interval = interval;
+		this.random = random;
+		this.remaining = (long) Math.ceil(interval * rate);
+		this.position = 0.0;
+	}
+
+	@Override
+	public double nextArrivalTime() {
+		if (remaining <= 0)
+			return Double.NaN;
+
+		// the minimum of n uniform samples in [0, 1] is 1 - V^(1/n)
+		double v = 1.0 - random.nextDouble();
+		position = 1.0 - (1.0 - position) * Math.pow(v, 1.0 / remaining);
+		remaining--;
+
+		return position * interval;
+	}
+
+	public long getRemaining() {
+		return remaining;
+	}
+
+	@Override
+	public String toString() {
+		return "Exact count";
+	}
+}
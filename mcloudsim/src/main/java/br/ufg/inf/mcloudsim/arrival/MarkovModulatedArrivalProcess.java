@@ -0,0 +1,184 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Markov-modulated Poisson process (MMPP). <br>
+ * A continuous-time Markov chain selects the current state and, in each state,
+ * publications arrive as a Poisson process. It models bursts: a state with a
+ * high rate and a short sojourn between long periods of low rate.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class MarkovModulatedArrivalProcess implements ArrivalProcess {
+
+	/** Arrival rate of each state, relative to the publisher rate */
+	private double[] relativeRates;
+
+	/** Transition rates between states (the diagonal is ignored) */
+	private double[][] transitionRates;
+
+	/** Total rate of leaving each state */
+	private double[] leaveRates;
+
+	private double rate;
+	private double interval;
+	private Random random;
+	private double time;
+	private int state;
+
+	/**
+	 * @param relativeRates
+	 *            arrival rate of each state, relative to the publisher rate
+	 * @param transitionRates
+	 *            rate of going from state i to state j
+	 */
+	public MarkovModulatedArrivalProcess(double[] relativeRates, double[][] transitionRates) {
+		if (relativeRates == null || relativeRates.length == 0 || transitionRates == null
+				|| transitionRates.length != relativeRates.length)
+			throw new IllegalArgumentException("Invalid MMPP definition");
+
+		int n = relativeRates.length;
+		this.relativeRates = Arrays.copyOf(relativeRates, n);
+		this.transitionRates = new double[n][];
+		this.leaveRates = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			if (relativeRates[i] < 0.0 || transitionRates[i].length != n)
+				throw new IllegalArgumentException("Invalid MMPP definition for state " + i);
+
+			this.transitionRates[i] = Arrays.copyOf(transitionRates[i], n);
+			this.transitionRates[i][i] = 0.0;
+			for (int j = 0; j < n; j++) {
+				if (this.transitionRates[i][j] < 0.0)
+					throw new IllegalArgumentException("Negative transition rate from state " + i);
+				this.leaveRates[i] += this.transitionRates[i][j];
+			}
+		}
+	}
+
+	/**
+	 * Creates a MMPP that leaves each state after an exponential sojourn and
+	 * goes to any other state with the same probability.
+	 * 
+	 * @param relativeRates
+	 *            arrival rate of each state, relative to the publisher rate
+	 * @param meanSojourns
+	 *            mean time spent in each state
+	 */
+	public static MarkovModulatedArrivalProcess withSojourns(double[] relativeRates, double[] meanSojourns) {
+		if (relativeRates == null || meanSojourns == null || relativeRates.length != meanSojourns.length)
+			throw new IllegalArgumentException("Invalid MMPP definition");
+
+		int n = relativeRates.length;
+		double[][] transitionRates = new double[n][n];
+
+		// a single state never changes
+		if (n > 1) {
+			for (int i = 0; i < n; i++) {
+				if (meanSojourns[i] <= 0.0)
+					throw new IllegalArgumentException("Invalid sojourn of state " + i);
+				for (int j = 0; j < n; j++) {
+					if (i != j)
+						transitionRates[i][j] = 1.0 / (meanSojourns[i] * (n - 1));
+				}
+			}
+		}
+
+		return new MarkovModulatedArrivalProcess(relativeRates, transitionRates);
+	}
+
+	@Override
+	public void start(double rate, double interval, Random random) {
+		this.rate = rate;
+		this.interval = interval;
+		this.random = random;
+		this.time = 0.0;
+		this.state = initialState();
+	}
+
+	@Override
+	public double nextArrivalTime() {
+		while (time <= interval) {
+			double arrivalRate = rate * relativeRates[state];
+			double leaveRate = leaveRates[state];
+			double totalRate = arrivalRate + leaveRate;
+
+			// neither arrivals nor transitions: the state is absorbing
+			if (totalRate <= 0.0)
+				return Double.NaN;
+
+			// competing exponential clocks
+			time += exponential(totalRate);
+			if (random.nextDouble() * totalRate < arrivalRate)
+				return time <= interval ? time : Double.NaN;
+
+			state = nextState();
+		}
+
+		return Double.NaN;
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * The initial state follows the stationary distribution of the sojourns,
+	 * approximated by the mean time spent in each state.
+	 */
+	private int initialState() {
+		double total = 0.0;
+		for (int i = 0; i < leaveRates.length; i++)
+			total += leaveRates[i] > 0.0 ? 1.0 / leaveRates[i] : 0.0;
+
+		if (total == 0.0)
+			return 0;
+
+		double u = random.nextDouble() * total;
+		for (int i = 0; i < leaveRates.length; i++) {
+			u -= leaveRates[i] > 0.0 ? 1.0 / leaveRates[i] : 0.0;
+			if (u < 0.0)
+				return i;
+		}
+
+		return leaveRates.length - 1;
+	}
+
+	private int nextState() {
+		double u = random.nextDouble() * leaveRates[state];
+		double[] rates = transitionRates[state];
+		int last = state;
+
+		for (int j = 0; j < rates.length; j++) {
+			if (rates[j] > 0.0) {
+				last = j;
+				u -= rates[j];
+				if (u < 0.0)
+					return j;
+			}
+		}
+
+		return last;
+	}
+
+	private double exponential(double rate) {
+		return -Math.log(1.0 - random.nextDouble()) / rate;
+	}
+
+	@Override
+	public String toString() {
+		return "MMPP " + Arrays.toString(relativeRates);
+	}
+}
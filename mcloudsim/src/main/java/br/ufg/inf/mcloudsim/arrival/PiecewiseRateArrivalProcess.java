@@ -0,0 +1,126 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Non-homogeneous Poisson process with a piecewise constant rate, e.g. a
+ * diurnal profile. <br>
+ * Each segment starts at a given time and keeps its rate, relative to the
+ * publisher rate, until the next one. When a period is given the profile is
+ * repeated. Arrivals are generated by inverting the cumulative rate, so the
+ * cost of an arrival only depends on the segments it crosses.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class PiecewiseRateArrivalProcess implements ArrivalProcess {
+
+	private double[] starts;
+	private double[] relativeRates;
+	private double period;
+
+	private double rate;
+	private double interval;
+	private Random random;
+	private double time;
+
+	/** Current segment and start of the current period */
+	private int segment;
+	private double periodStart;
+
+	/**
+	 * @param starts
+	 *            start time of each segment, in increasing order and starting at
+	 *            zero
+	 * @param relativeRates
+	 *            rate of each segment, relative to the publisher rate
+	 * @param period
+	 *            length of the profile or zero to keep the rate of the last
+	 *            segment until the end of the simulation
+	 */
+	public PiecewiseRateArrivalProcess(double[] starts, double[] relativeRates, double period) {
+		if (starts == null || relativeRates == null || starts.length == 0 || starts.length != relativeRates.length
+				|| starts[0] != 0.0)
+			throw new IllegalArgumentException("Invalid rate profile");
+
+		for (int i = 0; i < starts.length; i++) {
+			if (relativeRates[i] < 0.0 || (i > 0 && starts[i] <= starts[i - 1]))
+				throw new IllegalArgumentException("Invalid segment " + i + " of rate profile");
+		}
+
+		if (period < 0.0 || (period > 0.0 && period <= starts[starts.length - 1]))
+			throw new IllegalArgumentException("Invalid period of rate profile: " + period);
+
+		this.starts = Arrays.copyOf(starts, starts.length);
+		this.relativeRates = Arrays.copyOf(relativeRates, relativeRates.length);
+		this.period = period;
+	}
+
+	@Override
+	public void start(double rate, double interval, Random random) {
+		this.rate = rate;
+		this.interval = interval;
+		this.random = random;
+		this.time = 0.0;
+		this.segment = 0;
+		this.periodStart = 0.0;
+	}
+
+	@Override
+	public double nextArrivalTime() {
+		// amount of cumulative rate to be consumed until the next arrival
+		double target = -Math.log(1.0 - random.nextDouble());
+
+		while (time <= interval) {
+			double segmentRate = rate * relativeRates[segment];
+			double segmentEnd = segmentEnd();
+
+			if (segmentRate > 0.0) {
+				double arrival = time + target / segmentRate;
+				if (arrival < segmentEnd) {
+					time = arrival;
+					return time <= interval ? time : Double.NaN;
+				}
+				target -= (segmentEnd - time) * segmentRate;
+			}
+
+			if (Double.isInfinite(segmentEnd))
+				return Double.NaN;
+
+			time = segmentEnd;
+			nextSegment();
+		}
+
+		return Double.NaN;
+	}
+
+	private double segmentEnd() {
+		if (segment + 1 < starts.length)
+			return periodStart + starts[segment + 1];
+
+		return period > 0.0 ? periodStart + period : Double.POSITIVE_INFINITY;
+	}
+
+	private void nextSegment() {
+		segment++;
+		if (segment == starts.length) {
+			segment = 0;
+			periodStart += period;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Profile " + Arrays.toString(relativeRates);
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Random;
+
+/**
+ * Homogeneous Poisson process: exponential inter-arrival times with the
+ * publisher rate.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class PoissonArrivalProcess implements ArrivalProcess {
+
+	private double rate;
+	private double interval;
+	private Random random;
+	private double time;
+
+	@Override
+	public void start(double rate, double interval, Random random) {
+		this.rate = rate;
+		this.interval = interval;
+		this.random = random;
+		this.time = 0.0;
+	}
+
+	@Override
+	public double nextArrivalTime() {
+		if (rate <= 0.0)
+			return Double.NaN;
+
+		time += -Math.log(1.0 - random.nextDouble()) / rate;
+
+		return time <= interval ? time : Double.NaN;
+	}
+
+	@Override
+	public String toString() {
+		return "Poisson";
+	}
+}
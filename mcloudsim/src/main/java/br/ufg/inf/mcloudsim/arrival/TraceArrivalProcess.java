@@ -0,0 +1,133 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Random;
+
+/**
+ * Replays the publications of a trace in the {@link TraceFormat binary
+ * format}. <br>
+ * The trace is read through a {@link MappedByteBuffer} that covers a window of
+ * the file, so the trace is never loaded on the heap and its size is not
+ * limited by the size of a single mapping. Timestamps are shifted so the first
+ * publication happens at time zero and may be scaled to speed up or slow down
+ * the replay. The publisher rate is ignored.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class TraceArrivalProcess implements ArrivalProcess {
+
+	/** Records mapped at a time (64 MB) */
+	private static final long WINDOW_RECORDS = 8L * 1024 * 1024;
+
+	private File file;
+	private double scale;
+	private long count;
+
+	private double interval;
+	private double origin;
+	private long next;
+	private long windowStart;
+	private long windowEnd;
+	private MappedByteBuffer window;
+
+	/**
+	 * @param file
+	 *            the trace file
+	 * @param scale
+	 *            factor applied to the time between publications
+	 * @throws IOException
+	 *             if the file is not a valid trace
+	 */
+	public TraceArrivalProcess(File file, double scale) throws IOException {
+		if (scale <= 0.0)
+			throw new IllegalArgumentException("Invalid trace scale: " + scale);
+
+		this.file = file;
+		this.scale = scale;
+		this.count = TraceFormat.readRecordCount(file);
+	}
+
+	public TraceArrivalProcess(File file) throws IOException {
+		this(file, 1.0);
+	}
+
+	@Override
+	public void start(double rate, double interval, Random random) {
+		this.interval = interval;
+		this.next = 0;
+		this.windowStart = 0;
+		this.windowEnd = 0;
+		this.window = null;
+
+		if (count > 0) {
+			map(0);
+			origin = window.getDouble(0);
+		}
+	}
+
+	@Override
+	public double nextArrivalTime() {
+		if (next >= count)
+			return Double.NaN;
+
+		if (next >= windowEnd)
+			map(next);
+
+		double timestamp = window.getDouble((int) ((next - windowStart) * TraceFormat.RECORD_SIZE));
+		next++;
+
+		double time = (timestamp - origin) * scale;
+		if (time > interval) {
+			next = count;
+			return Double.NaN;
+		}
+
+		return time;
+	}
+
+	/**
+	 * Maps the window of the trace that starts at the given record
+	 */
+	private void map(long first) {
+		long records = Math.min(WINDOW_RECORDS, count - first);
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			// the mapping remains valid after the channel is closed
+			window = channel.map(MapMode.READ_ONLY, TraceFormat.HEADER_SIZE + first * TraceFormat.RECORD_SIZE,
+					records * TraceFormat.RECORD_SIZE);
+			windowStart = first;
+			windowEnd = first + records;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not map " + file, e);
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "Trace " + file.getName();
+	}
+}
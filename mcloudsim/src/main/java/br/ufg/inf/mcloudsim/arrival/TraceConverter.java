@@ -0,0 +1,144 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.opencsv.CSVReader;
+
+/**
+ * Converts a CSV file of publication timestamps to the {@link TraceFormat
+ * binary trace format}. <br>
+ * The CSV is streamed and the trace is written through a fixed size buffer,
+ * so traces of any size can be converted. Timestamps must be in non-decreasing
+ * order. A first line whose timestamp is not a number is taken as a header.
+ * <br>
+ * Usage: TraceConverter &lt;csv&gt; &lt;trace&gt; [timestampColumn [topicColumn
+ * topic]]
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class TraceConverter {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private int timestampColumn;
+	private int topicColumn;
+	private String topic;
+
+	/**
+	 * @param timestampColumn
+	 *            column of the timestamps
+	 * @param topicColumn
+	 *            column of the topics or -1 to convert all lines
+	 * @param topic
+	 *            only lines of this topic are converted
+	 */
+	public TraceConverter(int timestampColumn, int topicColumn, String topic) {
+		this.timestampColumn = timestampColumn;
+		this.topicColumn = topicColumn;
+		this.topic = topic;
+	}
+
+	public TraceConverter() {
+		this(0, -1, null);
+	}
+
+	/**
+	 * Converts a CSV file
+	 * 
+	 * @param csvFile
+	 *            the CSV file
+	 * @param traceFile
+	 *            the trace file to be written
+	 * @return the number of records written
+	 * @throws IOException
+	 */
+	public long convert(File csvFile, File traceFile) throws IOException {
+		long count = 0;
+		long line = 0;
+		double last = Double.NEGATIVE_INFINITY;
+
+		try (CSVReader reader = new CSVReader(new FileReader(csvFile));
+				RandomAccessFile raf = new RandomAccessFile(traceFile, "rw");
+				FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			// the record count is known only at the end
+			TraceFormat.writeHeader(buffer, 0);
+
+			String[] values;
+			while ((values = reader.readNext()) != null) {
+				line++;
+
+				if (values.length <= Math.max(timestampColumn, topicColumn))
+					throw new IOException("Missing column at line " + line + " of " + csvFile);
+				if (topicColumn >= 0 && !values[topicColumn].trim().equals(topic))
+					continue;
+
+				double timestamp;
+				try {
+					timestamp = Double.parseDouble(values[timestampColumn].trim());
+				} catch (NumberFormatException e) {
+					if (line == 1)
+						continue;
+					throw new IOException("Invalid timestamp at line " + line + " of " + csvFile, e);
+				}
+
+				if (timestamp < last)
+					throw new IOException("Timestamps out of order at line " + line + " of " + csvFile);
+				last = timestamp;
+
+				if (buffer.remaining() < TraceFormat.RECORD_SIZE) {
+					buffer.flip();
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+					buffer.clear();
+				}
+				buffer.putDouble(timestamp);
+				count++;
+			}
+
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			buffer.clear();
+			TraceFormat.writeHeader(buffer, count);
+			buffer.flip();
+			channel.write(buffer, 0);
+		}
+
+		return count;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2 && args.length != 3 && args.length != 5) {
+			System.err.println("Usage: TraceConverter <csv> <trace> [timestampColumn [topicColumn topic]]");
+			System.exit(1);
+		}
+
+		int timestampColumn = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		int topicColumn = args.length > 3 ? Integer.parseInt(args[3]) : -1;
+		String topic = args.length > 4 ? args[4] : null;
+
+		TraceConverter converter = new TraceConverter(timestampColumn, topicColumn, topic);
+		long count = converter.convert(new File(args[0]), new File(args[1]));
+
+		System.out.println(count + " publications written to " + args[1]);
+	}
+}
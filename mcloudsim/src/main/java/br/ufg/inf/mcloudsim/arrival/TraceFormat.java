@@ -0,0 +1,84 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary format of publication traces. <br>
+ * A trace starts with a header of {@value #HEADER_SIZE} bytes: the magic
+ * number, the format version (both ints) and the number of records (long).
+ * Each record is the timestamp of a publication as a double. Timestamps are
+ * in non-decreasing order. All values are big-endian, the default byte order
+ * of {@link ByteBuffer}.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public final class TraceFormat {
+
+	/** "MCST" */
+	public static final int MAGIC = 0x4D435354;
+
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 16;
+
+	public static final int RECORD_SIZE = 8;
+
+	private TraceFormat() {
+	}
+
+	/**
+	 * Reads the header of a trace and checks it against the file size
+	 * 
+	 * @param file
+	 *            the trace file
+	 * @return the number of records of the trace
+	 * @throws IOException
+	 *             if the file is not a valid trace
+	 */
+	public static long readRecordCount(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			if (raf.length() < HEADER_SIZE)
+				throw new IOException(file + " is not a trace file");
+
+			int magic = raf.readInt();
+			int version = raf.readInt();
+			long count = raf.readLong();
+
+			if (magic != MAGIC)
+				throw new IOException(file + " is not a trace file");
+			if (version != VERSION)
+				throw new IOException("Unsupported trace version " + version + " in " + file);
+			if (count < 0 || raf.length() != HEADER_SIZE + count * RECORD_SIZE)
+				throw new IOException(file + " is truncated or corrupted");
+
+			return count;
+		}
+	}
+
+	/**
+	 * Writes the header of a trace into a buffer
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param count
+	 *            the number of records of the trace
+	 */
+	static void writeHeader(ByteBuffer buffer, long count) {
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(count);
+	}
+}
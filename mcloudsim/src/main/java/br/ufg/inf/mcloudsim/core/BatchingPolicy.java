@@ -0,0 +1,91 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.core;
+
+/**
+ * How a broker coalesces its output messages into transmissions. Messages
+ * waiting for the network to the same next hop are sent as one batch, with a
+ * header of its own, of at most a number of messages and bytes. While the
+ * network is free, the oldest waiting message lingers for a while so that
+ * others can join its batch. <br>
+ * The policy {@link #NONE} transmits each message alone, as soon as possible.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class BatchingPolicy {
+
+	/** Messages are not batched */
+	public static final BatchingPolicy NONE = new BatchingPolicy(1, Long.MAX_VALUE, 0.0, 0);
+
+	private final int maxMessages;
+	private final long maxBytes;
+	private final double maxLinger;
+	private final long headerBytes;
+
+	/**
+	 * Creates a batching policy
+	 *
+	 * @param maxMessages
+	 *            most messages in a batch
+	 * @param maxBytes
+	 *            most bytes of the messages in a batch. A larger message is
+	 *            sent alone
+	 * @param maxLinger
+	 *            most time the oldest message waits for others while the
+	 *            network is free
+	 * @param headerBytes
+	 *            bytes added to each batch of two or more messages
+	 */
+	public BatchingPolicy(int maxMessages, long maxBytes, double maxLinger, long headerBytes) {
+		if (maxMessages < 1)
+			throw new IllegalArgumentException("Invalid max messages: " + maxMessages);
+		if (maxBytes < 1)
+			throw new IllegalArgumentException("Invalid max bytes: " + maxBytes);
+		if (maxLinger < 0.0 || Double.isNaN(maxLinger) || Double.isInfinite(maxLinger))
+			throw new IllegalArgumentException("Invalid max linger: " + maxLinger);
+		if (headerBytes < 0)
+			throw new IllegalArgumentException("Invalid header bytes: " + headerBytes);
+
+		this.maxMessages = maxMessages;
+		this.maxBytes = maxBytes;
+		this.maxLinger = maxLinger;
+		this.headerBytes = headerBytes;
+	}
+
+	public int getMaxMessages() {
+		return maxMessages;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public double getMaxLinger() {
+		return maxLinger;
+	}
+
+	public long getHeaderBytes() {
+		return headerBytes;
+	}
+
+	/**
+	 * @return if messages may be transmitted together
+	 */
+	public boolean isEnabled() {
+		return maxMessages > 1;
+	}
+
+	@Override
+	public String toString() {
+		return "Batching: maxMessages=" + maxMessages + "; maxBytes=" + maxBytes + "; maxLinger=" + maxLinger
+				+ "; headerBytes=" + headerBytes;
+	}
+}
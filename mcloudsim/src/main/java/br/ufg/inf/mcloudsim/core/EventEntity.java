@@ -9,6 +9,8 @@
 
 package br.ufg.inf.mcloudsim.core;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents an event entity, which can be a publisher, a subscriber, or a
  * broker.
@@ -19,7 +21,7 @@ package br.ufg.inf.mcloudsim.core;
 public abstract class EventEntity {
 
 	/** Counter to help identifier generation in subclasses **/
-	protected static int idCont = 0;
+	protected static final AtomicInteger idCont = new AtomicInteger();
 
 	/** Entity identifier **/
 	protected String id;
@@ -36,7 +38,7 @@ public abstract class EventEntity {
 	public abstract void setId(String id);
 
 	public static void reset() {
-		idCont = 0;
+		idCont.set(0);
 	}
 
 	@Override
@@ -0,0 +1,22 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.core;
+
+/**
+ * What a broker does with a message arriving at a full queue: drop it, drop
+ * the oldest message of the queue, or make the previous broker hold it until
+ * there is room.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public enum OverflowPolicy {
+	DROP_NEWEST, DROP_OLDEST, BACKPRESSURE
+}
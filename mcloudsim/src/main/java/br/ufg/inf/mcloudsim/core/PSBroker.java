@@ -2,11 +2,67 @@ package br.ufg.inf.mcloudsim.core;
 
 public class PSBroker extends CoreEventEntity {
 
+	/** How the broker coalesces its output messages **/
+	private BatchingPolicy batchingPolicy = BatchingPolicy.NONE;
+
+	/** How many messages the broker keeps waiting **/
+	private QueuePolicy queuePolicy = QueuePolicy.UNBOUNDED;
+
+	/** How the broker shares its bandwidth among its output messages **/
+	private TransmissionPolicy transmissionPolicy = TransmissionPolicy.SINGLE_FLOW;
+
+	/** How the broker shares its processors among its input messages **/
+	private ProcessingPolicy processingPolicy = ProcessingPolicy.SPACE_SHARED;
+
 	public PSBroker(String id) {
 		super(id);
 
 	}
 
+	public BatchingPolicy getBatchingPolicy() {
+		return batchingPolicy;
+	}
+
+	public void setBatchingPolicy(BatchingPolicy batchingPolicy) {
+		if (batchingPolicy == null)
+			throw new IllegalArgumentException("Invalid batching policy");
+
+		this.batchingPolicy = batchingPolicy;
+	}
+
+	public QueuePolicy getQueuePolicy() {
+		return queuePolicy;
+	}
+
+	public void setQueuePolicy(QueuePolicy queuePolicy) {
+		if (queuePolicy == null)
+			throw new IllegalArgumentException("Invalid queue policy");
+
+		this.queuePolicy = queuePolicy;
+	}
+
+	public TransmissionPolicy getTransmissionPolicy() {
+		return transmissionPolicy;
+	}
+
+	public void setTransmissionPolicy(TransmissionPolicy transmissionPolicy) {
+		if (transmissionPolicy == null)
+			throw new IllegalArgumentException("Invalid transmission policy");
+
+		this.transmissionPolicy = transmissionPolicy;
+	}
+
+	public ProcessingPolicy getProcessingPolicy() {
+		return processingPolicy;
+	}
+
+	public void setProcessingPolicy(ProcessingPolicy processingPolicy) {
+		if (processingPolicy == null)
+			throw new IllegalArgumentException("Invalid processing policy");
+
+		this.processingPolicy = processingPolicy;
+	}
+
 	@Override
 	public void setId(String id) {
 		if (id == null || id.isEmpty() || !id.startsWith("B"))
@@ -23,16 +23,20 @@ import java.util.Map;
 public class PSNetworkRegistry {
 
 	/** Publisher to ever topic **/
-	private static Map<String, Publisher> pubMapByTopic = new HashMap<>();
+	private Map<String, Publisher> pubMapByTopic;
 
 	/** Subscriber to ever topic **/
-	private static Map<String, Subscriber> subMapByTopic = new HashMap<>();
+	private Map<String, Subscriber> subMapByTopic;
 	
 	/** Publisher to an ID **/
-	private static Map<String, Publisher> pubMapById = new HashMap<>();
+	private Map<String, Publisher> pubMapById;
 
 	/** List of subscribers to an ID **/
-	private static Map<String, Subscriber> subMapById = new HashMap<>();
+	private Map<String, Subscriber> subMapById;
+
+	public PSNetworkRegistry() {
+		reset();
+	}
 
 	/**
 	 * Register a subscriber.
@@ -40,23 +44,23 @@ public class PSNetworkRegistry {
 	 * @param subscriber
 	 *            The subscriber to be registered.
 	 */
-	public static void addSubscriber(Subscriber subscriber) {
+	public void addSubscriber(Subscriber subscriber) {
 		if (subscriber == null)
 			throw new IllegalArgumentException();
 
 		subMapByTopic.put(subscriber.getTopic(), subscriber);
-		subMapByTopic.put(subscriber.getId(), subscriber);
+		subMapById.put(subscriber.getId(), subscriber);
 	}
 	
-	public static Subscriber getSubscriberByTopic(String topic) {
+	public Subscriber getSubscriberByTopic(String topic) {
 		return subMapByTopic.get(topic);
 	}
 	
-	public static Subscriber getSubscriberById(String id) {
+	public Subscriber getSubscriberById(String id) {
 		return subMapById.get(id);
 	}
 	
-	public static ConnectivityStatus getConnectivityStatus(String subId) {
+	public ConnectivityStatus getConnectivityStatus(String subId) {
 		if (!subMapById.containsKey(subId))
 			throw new IllegalArgumentException();
 		
@@ -71,7 +75,7 @@ public class PSNetworkRegistry {
 	 * @throws IllegalArgumentException
 	 *             if a previous topic was registered to the given topic.
 	 */
-	public static void addPublisher(Publisher publisher) {
+	public void addPublisher(Publisher publisher) {
 		if (pubMapByTopic.containsKey(publisher.getTopic()))
 			throw new IllegalArgumentException("Publisher already exists");
 
@@ -81,18 +85,18 @@ public class PSNetworkRegistry {
 
 	
 
-	public static Publisher getPublisherByTopic(String topic) {
+	public Publisher getPublisherByTopic(String topic) {
 		return pubMapByTopic.get(topic);
 	}
 	
-	public static Publisher getPublisherById(String id) {
+	public Publisher getPublisherById(String id) {
 		return pubMapById.get(id);
 	}
 
 	/**
 	 * Erase all previous registered publishers and subscribers.
 	 */
-	public static void reset() {
+	public void reset() {
 		pubMapByTopic = new HashMap<String, Publisher>();
 		subMapByTopic = new HashMap<String, Subscriber>();
 		pubMapById = new HashMap<String, Publisher>();
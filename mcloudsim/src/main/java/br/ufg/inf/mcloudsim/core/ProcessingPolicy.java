@@ -0,0 +1,23 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.core;
+
+/**
+ * How a broker shares the processors of its VM among its input messages:
+ * each message gets whole PEs and the others wait for them (space shared), or
+ * all the messages progress at once, sharing the PEs (time shared), as in a
+ * broker with a pool of threads.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public enum ProcessingPolicy {
+	SPACE_SHARED, TIME_SHARED
+}
@@ -9,6 +9,9 @@
 
 package br.ufg.inf.mcloudsim.core;
 
+import br.ufg.inf.mcloudsim.arrival.ArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.ExactCountArrivalProcess;
+
 /**
  * An entity that generates events to broker.
  * 
@@ -23,6 +26,9 @@ public class Publisher extends EdgeEventEntity {
 	private double MIpr;
 	private double Btr;
 
+	/** How publications arrive along the time **/
+	private ArrivalProcess arrivalProcess = new ExactCountArrivalProcess();
+
 	/**
 	 * Creates a publisher with automatic identifier and given topic and rate.
 	 * 
@@ -32,7 +38,7 @@ public class Publisher extends EdgeEventEntity {
 	 *            Rate of events generation
 	 */
 	public Publisher(String topic, double rate) {
-		this(++idCont, topic, rate);
+		this(idCont.incrementAndGet(), topic, rate);
 	}
 
 	/**
@@ -81,6 +87,17 @@ public class Publisher extends EdgeEventEntity {
 		this.Btr = Btr;
 	}
 
+	public ArrivalProcess getArrivalProcess() {
+		return arrivalProcess;
+	}
+
+	public void setArrivalProcess(ArrivalProcess arrivalProcess) {
+		if (arrivalProcess == null)
+			throw new IllegalArgumentException("Invalid arrival process");
+
+		this.arrivalProcess = arrivalProcess;
+	}
+
 	@Override
 	public void setId(String id) {
 		if (id == null || id.isEmpty() || !id.startsWith("P"))
@@ -0,0 +1,78 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.core;
+
+/**
+ * How many messages a broker keeps waiting, and what happens to the ones that
+ * do not fit. With the drop policies the capacity bounds each queue of the
+ * broker: the messages waiting for the processor, the ones waiting for the
+ * network and the ones parked for each offline subscriber. With
+ * {@link OverflowPolicy#BACKPRESSURE} it bounds all the messages in the
+ * broker, including the ones the broker holds because the next broker is
+ * full. The first broker of a path has no previous broker to hold its
+ * publications, so it drops them. <br>
+ * The policy {@link #UNBOUNDED} never drops nor holds a message.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class QueuePolicy {
+
+	/** Queues are not bounded */
+	public static final QueuePolicy UNBOUNDED = new QueuePolicy(Integer.MAX_VALUE, OverflowPolicy.DROP_NEWEST);
+
+	private final int capacity;
+	private final OverflowPolicy overflowPolicy;
+
+	/**
+	 * Creates a queue policy
+	 *
+	 * @param capacity
+	 *            most messages in a queue
+	 * @param overflowPolicy
+	 *            what happens to a message arriving at a full queue
+	 */
+	public QueuePolicy(int capacity, OverflowPolicy overflowPolicy) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		if (overflowPolicy == null)
+			throw new IllegalArgumentException("Invalid overflow policy");
+
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @return if messages are dropped when a queue is full
+	 */
+	public boolean isDropping() {
+		return capacity < Integer.MAX_VALUE && overflowPolicy != OverflowPolicy.BACKPRESSURE;
+	}
+
+	/**
+	 * @return if the previous broker holds its messages when this one is full
+	 */
+	public boolean isBackpressure() {
+		return capacity < Integer.MAX_VALUE && overflowPolicy == OverflowPolicy.BACKPRESSURE;
+	}
+
+	@Override
+	public String toString() {
+		return "Queue: capacity=" + capacity + "; overflow=" + overflowPolicy;
+	}
+}
@@ -36,7 +36,7 @@ public class Subscriber extends EdgeEventEntity {
 	 *            The subscriber connectivity status
 	 */
 	public Subscriber(String topic) {
-		this(++idCont, topic, ConnectivityStatus.ONLINE);
+		this(idCont.incrementAndGet(), topic, ConnectivityStatus.ONLINE);
 	}
 
 	/**
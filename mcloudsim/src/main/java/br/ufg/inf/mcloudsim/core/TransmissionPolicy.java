@@ -0,0 +1,69 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.core;
+
+/**
+ * How a broker shares the bandwidth of its VM among its output messages. Up
+ * to a number of messages, or flows, are transmitted at once and each one
+ * gets an equal share of the bandwidth, optionally capped; the others wait
+ * for a flow to finish. <br>
+ * The policy {@link #SINGLE_FLOW} transmits one message at a time, at the
+ * whole bandwidth of the broker.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class TransmissionPolicy {
+
+	/** One message at a time, not capped */
+	public static final TransmissionPolicy SINGLE_FLOW = new TransmissionPolicy(1, Double.POSITIVE_INFINITY);
+
+	private final int maxFlows;
+	private final double flowBandwidth;
+
+	/**
+	 * Creates a transmission policy
+	 *
+	 * @param maxFlows
+	 *            most messages transmitted at once
+	 * @param flowBandwidth
+	 *            most bandwidth of each message, in Mbit/s, or infinity if
+	 *            not capped
+	 */
+	public TransmissionPolicy(int maxFlows, double flowBandwidth) {
+		if (maxFlows < 1)
+			throw new IllegalArgumentException("Invalid max flows: " + maxFlows);
+		if (!(flowBandwidth > 0.0))
+			throw new IllegalArgumentException("Invalid flow bandwidth: " + flowBandwidth);
+
+		this.maxFlows = maxFlows;
+		this.flowBandwidth = flowBandwidth;
+	}
+
+	public int getMaxFlows() {
+		return maxFlows;
+	}
+
+	public double getFlowBandwidth() {
+		return flowBandwidth;
+	}
+
+	/**
+	 * @return if the bandwidth of each message is capped
+	 */
+	public boolean isCapped() {
+		return !Double.isInfinite(flowBandwidth);
+	}
+
+	@Override
+	public String toString() {
+		return "Transmission: maxFlows=" + maxFlows + "; flowBandwidth=" + flowBandwidth;
+	}
+}
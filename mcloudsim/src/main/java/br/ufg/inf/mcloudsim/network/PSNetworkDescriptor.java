@@ -1,23 +1,69 @@
 package br.ufg.inf.mcloudsim.network;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import br.ufg.inf.mcloudsim.core.EventEntity;
-import br.ufg.inf.mcloudsim.core.Publisher;
-import br.ufg.inf.mcloudsim.core.Subscriber;
 
+/**
+ * Nodes and paths of a pub/sub network. <br>
+ * Paths are indexed by publisher, subscriber and topic when they are added,
+ * so the lookups take constant time. If several paths share a key, the first
+ * one added is returned, as with a scan of the paths. The brokers of each
+ * path are also kept as a bitset of broker numbers. <br>
+ * The paths of a publisher form its dissemination tree: they may share
+ * brokers as long as a shared broker has the same predecessors in all of
+ * them. Each broker is a node of a single tree, and each pair of a broker and
+ * its next broker (or its subscriber, for the last broker of a path) is an
+ * edge. Nodes and edges are numbered, so the brokers shared by several paths
+ * can be told apart from the paths themselves.
+ * 
+ * @author Raphael Gomes
+ *
+ */
 public class PSNetworkDescriptor {
 
 	private Map<String, EventEntity> nodes;
 	private List<PSNetworkPath> paths;
 
+	private Map<String, PSNetworkPath> pathsByPublisher;
+	private Map<String, PSNetworkPath> pathsBySubscriber;
+	private Map<String, PSNetworkPath> pathsByTopic;
+
+	/** Number of each broker in the bitsets of the paths */
+	private Map<String, Integer> brokerIndexes;
+
+	/** Brokers of each path, by path id */
+	private Map<String, BitSet> pathBrokers;
+
+	private Map<String, Integer> pathIndexes;
+
+	/** Predecessor of each broker (the publisher for a first broker), the same in all paths */
+	private Map<String, String> brokerPositions;
+
+	private Map<String, Integer> edgeIndexes;
+
+	/** Node (broker) and edge of each hop of each path */
+	private List<int[]> pathNodes;
+	private List<int[]> pathEdges;
+
 	public PSNetworkDescriptor() {
 		this.nodes = new HashMap<>();
-		this.paths = new LinkedList<>();
+		this.paths = new ArrayList<>();
+		this.pathsByPublisher = new HashMap<>();
+		this.pathsBySubscriber = new HashMap<>();
+		this.pathsByTopic = new HashMap<>();
+		this.brokerIndexes = new HashMap<>();
+		this.pathBrokers = new HashMap<>();
+		this.pathIndexes = new HashMap<>();
+		this.brokerPositions = new HashMap<>();
+		this.edgeIndexes = new HashMap<>();
+		this.pathNodes = new ArrayList<>();
+		this.pathEdges = new ArrayList<>();
 	}
 
 	public void addNetworkNode(EventEntity networkNode) {
@@ -34,11 +80,116 @@ public class PSNetworkDescriptor {
 		return nodes.get(id);
 	}
 
+	/**
+	 * Adds a path. Its publisher, subscriber and brokers must be set, since
+	 * they are indexed here
+	 * 
+	 * @param networkPath
+	 *            the path
+	 * @throws IllegalArgumentException
+	 *             if the path id is already used or a broker of the path is in
+	 *             another position of another path
+	 */
 	public void addNetworkPath(PSNetworkPath networkPath) {
 		if (networkPath == null)
 			throw new IllegalArgumentException();
+		if (pathIndexes.containsKey(networkPath.getPathId()))
+			throw new IllegalArgumentException("Path " + networkPath.getPathId() + " already exists");
+
+		DeployablePathNode[] brokersPath = networkPath.getBrokersPath().toArray(new DeployablePathNode[0]);
+		String publisherId = networkPath.getPublisher().getId();
+		String previous = publisherId;
+		for (DeployablePathNode pathNode : brokersPath) {
+			String brokerId = pathNode.getTargetNode().getId();
+			String position = brokerPositions.get(brokerId);
+			if (position != null && !position.equals(previous))
+				throw new IllegalArgumentException("Broker " + brokerId + " of path " + networkPath.getPathId()
+						+ " is in another position of another path");
+			previous = brokerId;
+		}
 
+		pathIndexes.put(networkPath.getPathId(), paths.size());
 		paths.add(networkPath);
+		pathsByPublisher.putIfAbsent(publisherId, networkPath);
+		pathsBySubscriber.putIfAbsent(networkPath.getSubscriber().getId(), networkPath);
+		pathsByTopic.putIfAbsent(networkPath.getPublisher().getTopic(), networkPath);
+
+		BitSet brokers = new BitSet();
+		int[] nodes = new int[brokersPath.length];
+		int[] edges = new int[brokersPath.length];
+		int hop = 0;
+		previous = publisherId;
+		for (DeployablePathNode pathNode : brokersPath) {
+			String brokerId = pathNode.getTargetNode().getId();
+			Integer index = brokerIndexes.get(brokerId);
+			if (index == null) {
+				index = brokerIndexes.size();
+				brokerIndexes.put(brokerId, index);
+				brokerPositions.put(brokerId, previous);
+			}
+			brokers.set(index);
+			nodes[hop] = index;
+
+			// the last edge goes to the subscriber of this path only
+			String next = hop + 1 < brokersPath.length ? brokersPath[hop + 1].getTargetNode().getId()
+					: "@" + networkPath.getPathId();
+			edges[hop] = indexOf(edgeIndexes, brokerId + ">" + next);
+			previous = brokerId;
+			hop++;
+		}
+		pathBrokers.put(networkPath.getPathId(), brokers);
+		pathNodes.add(nodes);
+		pathEdges.add(edges);
+	}
+
+	private static int indexOf(Map<String, Integer> indexes, String key) {
+		Integer index = indexes.get(key);
+		if (index == null) {
+			index = indexes.size();
+			indexes.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the index of a path in {@link #getPaths()} or -1 if it does not
+	 *         exist
+	 */
+	public int getPathIndex(String pathId) {
+		Integer index = pathIndexes.get(pathId);
+		return index != null ? index : -1;
+	}
+
+	public PSNetworkPath getNetworkPathById(String pathId) {
+		int index = getPathIndex(pathId);
+		return index >= 0 ? paths.get(index) : null;
+	}
+
+	/**
+	 * @return the number of the broker of a hop of a path, the same in every
+	 *         path with the broker
+	 */
+	public int getNodeIndex(int path, int hop) {
+		return pathNodes.get(path)[hop];
+	}
+
+	/**
+	 * @return the number of the edge from the broker of a hop of a path to
+	 *         the next broker, or to the subscriber in the last hop
+	 */
+	public int getEdgeIndex(int path, int hop) {
+		return pathEdges.get(path)[hop];
+	}
+
+	/**
+	 * @return the number of brokers in the paths
+	 */
+	public int getNodeCount() {
+		return brokerIndexes.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeIndexes.size();
 	}
 
 	public PSNetworkPath getNetworkPath(int number) {
@@ -49,33 +200,15 @@ public class PSNetworkDescriptor {
 	}
 
 	public PSNetworkPath getNetworkPathWithPublisher(String pubId) {
-		for (PSNetworkPath networkPath : this.paths) {
-			Publisher publisher = networkPath.getPublisher();
-			if (publisher.getId().equals(pubId))
-				return networkPath;
-		}
-
-		return null;
+		return pathsByPublisher.get(pubId);
 	}
 
 	public PSNetworkPath getNetworkPathWithSubscriber(String subId) {
-		for (PSNetworkPath networkPath : this.paths) {
-			Subscriber subscriber = networkPath.getSubscriber();
-			if (subscriber.getId().equals(subId))
-				return networkPath;
-		}
-
-		return null;
+		return pathsBySubscriber.get(subId);
 	}
 
 	public PSNetworkPath getNetworkPathWithTopic(String topic) {
-		for (PSNetworkPath networkPath : this.paths) {
-			Publisher publisher = networkPath.getPublisher();
-			if (publisher.getTopic().equals(topic))
-				return networkPath;
-		}
-
-		return null;
+		return pathsByTopic.get(topic);
 	}
 
 	public List<PSNetworkPath> getPaths() {
@@ -95,17 +228,11 @@ public class PSNetworkDescriptor {
 	 * @return
 	 */
 	public boolean isComplete(String pathId, Set<String> nodes) {
-		PSNetworkPath path = getNetworkPathWithPublisher(pathId);
+		BitSet brokers = pathBrokers.get(pathId);
 
 		for (String node : nodes) {
-			boolean found = false;
-			for (DeployablePathNode pathNode : path.getBrokersPath()) {
-				if (pathNode.getTargetNode().getId().equals(node)) {
-					found = true;
-					break;
-				}
-			}
-			if (!found)
+			Integer index = brokerIndexes.get(node);
+			if (index == null || !brokers.get(index))
 				return false;
 		}
 
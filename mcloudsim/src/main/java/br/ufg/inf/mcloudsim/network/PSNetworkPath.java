@@ -14,24 +14,34 @@ import br.ufg.inf.mcloudsim.core.Subscriber;
  */
 public class PSNetworkPath {
 
+	private String pathId;
 	private Publisher publisher;
 	private Subscriber subscriber;
 	private LinkedList<DeployablePathNode> brokersPath;
 
 	public PSNetworkPath(Publisher publisher, Subscriber subscriber) {
+		this(null, publisher, subscriber);
+	}
+
+	/**
+	 * Creates a path with an explicit id, needed when the publisher has
+	 * several paths, i.e. its topic has several subscribers
+	 */
+	public PSNetworkPath(String pathId, Publisher publisher, Subscriber subscriber) {
 		super();
+		this.pathId = pathId;
 		this.publisher = publisher;
 		this.subscriber = subscriber;
 		this.brokersPath = new LinkedList<>();
 	}
 
 	/**
-	 * We use the publisher id as path id
+	 * If no id was given, we use the publisher id as path id
 	 * 
 	 * @return
 	 */
 	public String getPathId() {
-		return this.publisher.getId();
+		return this.pathId != null ? this.pathId : this.publisher.getId();
 	}
 
 	public Publisher getPublisher() {
@@ -104,7 +114,8 @@ public class PSNetworkPath {
 
 	@Override
 	public String toString() {
-		return "Path: publisher=" + publisher + "; brokers=" + brokersPath + "; subscriber=" + subscriber;
+		return "Path " + getPathId() + ": publisher=" + publisher + "; brokers=" + brokersPath + "; subscriber="
+				+ subscriber;
 	}
 
 }
@@ -11,11 +11,15 @@ public class ResourceSynthesisResult {
 	private VmTypeRegistry vmTypeRegistry;
 
 	public ResourceSynthesisResult(String provider, String region) {
+		this(provider, region, VmTypeRegistry.getInstance());
+	}
+
+	public ResourceSynthesisResult(String provider, String region, VmTypeRegistry vmTypeRegistry) {
 		super();
 		this.provider = provider;
 		this.region = region;
 		this.resultMap = new HashMap<>();
-		this.vmTypeRegistry = VmTypeRegistry.getInstance();
+		this.vmTypeRegistry = vmTypeRegistry;
 	}
 
 	public void addResultPair(String brokerId, String vmTypeId) {
@@ -12,11 +12,16 @@ public class VmTypeRegistry {
 
 	private Map<String, VmConfiguration> vmTypeMap;
 
-	private VmTypeRegistry() {
+	/**
+	 * Creates an empty registry. Each simulation context should use its own
+	 * registry, the shared instance is kept for code that reads a single
+	 * descriptor.
+	 */
+	public VmTypeRegistry() {
 		vmTypeMap = new HashMap<>();
 	}
 
-	public static VmTypeRegistry getInstance() {
+	public static synchronized VmTypeRegistry getInstance() {
 		if (instance == null)
 			instance = new VmTypeRegistry();
 
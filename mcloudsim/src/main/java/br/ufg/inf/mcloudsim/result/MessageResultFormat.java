@@ -0,0 +1,46 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.result;
+
+/**
+ * Columnar format of the per-message results. <br>
+ * The file starts with the magic number, the format version and the maximum
+ * number of records of a chunk (ints). Each chunk starts with its number of
+ * records <i>n</i> (int), followed by the columns, each one with <i>n</i>
+ * fixed-width values: path (int), broker (int), type (byte, 0 for input and 1
+ * for output), submission, finish, actual CPU time (doubles), bytes (long)
+ * and time paused while the subscriber was offline (double). Paths and
+ * brokers are ids of the node dictionary, written after the last chunk as a
+ * count (int) followed by the names (length as a short and UTF-8 bytes). The
+ * file ends with the position of the dictionary (long) and the magic number.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public interface MessageResultFormat {
+
+	/** "MCRS" */
+	public static final int MAGIC = 0x4D435253;
+
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 12;
+
+	public static final int TRAILER_SIZE = 12;
+
+	public static final byte TYPE_INPUT = 0;
+	public static final byte TYPE_OUTPUT = 1;
+
+	/** Bytes of a record, across all columns */
+	public static final int RECORD_SIZE = 4 + 4 + 1 + 8 + 8 + 8 + 8 + 8;
+
+	/** Most UTF-8 bytes of a name of the dictionary, whose length is a short */
+	public static final int MAX_NAME_BYTES = Short.MAX_VALUE;
+}
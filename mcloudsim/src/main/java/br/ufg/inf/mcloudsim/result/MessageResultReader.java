@@ -0,0 +1,178 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.result;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link MessageResultWriter}, one chunk at a time.
+ * <br>
+ * Each chunk is memory-mapped and its columns are read in place, so a scan
+ * reads only the columns it needs and never loads the file on the heap.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class MessageResultReader implements Closeable {
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private long dictionaryPosition;
+	private List<String> nodeNames;
+
+	/** Position of the next chunk */
+	private long position;
+
+	public MessageResultReader(File resultFile) throws IOException {
+		this.file = new RandomAccessFile(resultFile, "r");
+		this.channel = file.getChannel();
+
+		try {
+			long size = channel.size();
+			if (size < MessageResultFormat.HEADER_SIZE + MessageResultFormat.TRAILER_SIZE
+					|| file.readInt() != MessageResultFormat.MAGIC)
+				throw new IOException(resultFile + " is not a result file");
+			int version = file.readInt();
+			if (version != MessageResultFormat.VERSION)
+				throw new IOException("Unsupported result version " + version + " in " + resultFile);
+
+			file.seek(size - MessageResultFormat.TRAILER_SIZE);
+			this.dictionaryPosition = file.readLong();
+			if (file.readInt() != MessageResultFormat.MAGIC)
+				throw new IOException(resultFile + " is truncated");
+
+			this.nodeNames = readDictionary(size - MessageResultFormat.TRAILER_SIZE - dictionaryPosition);
+			this.position = MessageResultFormat.HEADER_SIZE;
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	private List<String> readDictionary(long length) throws IOException {
+		ByteBuffer dictionary = channel.map(MapMode.READ_ONLY, dictionaryPosition, length);
+		int n = dictionary.getInt();
+		List<String> names = new ArrayList<>(n);
+
+		for (int i = 0; i < n; i++) {
+			byte[] name = new byte[dictionary.getShort()];
+			dictionary.get(name);
+			names.add(new String(name, StandardCharsets.UTF_8));
+		}
+
+		return Collections.unmodifiableList(names);
+	}
+
+	public List<String> getNodeNames() {
+		return nodeNames;
+	}
+
+	/**
+	 * Maps the next chunk
+	 * 
+	 * @return the chunk or null after the last one
+	 */
+	public Chunk nextChunk() throws IOException {
+		if (position >= dictionaryPosition)
+			return null;
+
+		file.seek(position);
+		int count = file.readInt();
+		long length = 4L + (long) count * MessageResultFormat.RECORD_SIZE;
+		Chunk chunk = new Chunk(channel.map(MapMode.READ_ONLY, position, length), count);
+		position += length;
+
+		return chunk;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Records of a chunk, read column by column
+	 */
+	public static class Chunk {
+
+		private MappedByteBuffer buffer;
+		private int count;
+
+		/** Position of each column */
+		private int pathIds;
+		private int brokerIds;
+		private int types;
+		private int submissionTimes;
+		private int finishTimes;
+		private int cpuTimes;
+		private int bytes;
+		private int offlineTimes;
+
+		private Chunk(MappedByteBuffer buffer, int count) {
+			this.buffer = buffer;
+			this.count = count;
+			this.pathIds = 4;
+			this.brokerIds = pathIds + 4 * count;
+			this.types = brokerIds + 4 * count;
+			this.submissionTimes = types + count;
+			this.finishTimes = submissionTimes + 8 * count;
+			this.cpuTimes = finishTimes + 8 * count;
+			this.bytes = cpuTimes + 8 * count;
+			this.offlineTimes = bytes + 8 * count;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public int getPathId(int i) {
+			return buffer.getInt(pathIds + 4 * i);
+		}
+
+		public int getBrokerId(int i) {
+			return buffer.getInt(brokerIds + 4 * i);
+		}
+
+		public boolean isOutput(int i) {
+			return buffer.get(types + i) == MessageResultFormat.TYPE_OUTPUT;
+		}
+
+		public double getSubmissionTime(int i) {
+			return buffer.getDouble(submissionTimes + 8 * i);
+		}
+
+		public double getFinishTime(int i) {
+			return buffer.getDouble(finishTimes + 8 * i);
+		}
+
+		public double getCpuTime(int i) {
+			return buffer.getDouble(cpuTimes + 8 * i);
+		}
+
+		public long getBytes(int i) {
+			return buffer.getLong(bytes + 8 * i);
+		}
+
+		public double getOfflineTime(int i) {
+			return buffer.getDouble(offlineTimes + 8 * i);
+		}
+	}
+}
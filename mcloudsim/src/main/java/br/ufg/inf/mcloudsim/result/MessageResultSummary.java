@@ -0,0 +1,69 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.result;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+
+/**
+ * Scans a result file and prints, for each path, broker and type of hop, the
+ * number of hops and the mean response time, CPU time and time paused while
+ * the subscriber was offline. <br>
+ * Usage: MessageResultSummary &lt;results&gt;
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class MessageResultSummary {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: MessageResultSummary <results>");
+			System.exit(1);
+		}
+
+		Map<String, RunningStatistics[]> summary = new TreeMap<>();
+
+		try (MessageResultReader reader = new MessageResultReader(new File(args[0]))) {
+			List<String> nodeNames = reader.getNodeNames();
+
+			MessageResultReader.Chunk chunk;
+			while ((chunk = reader.nextChunk()) != null) {
+				for (int i = 0; i < chunk.getCount(); i++) {
+					String key = nodeNames.get(chunk.getPathId(i)) + "\t" + nodeNames.get(chunk.getBrokerId(i)) + "\t"
+							+ (chunk.isOutput(i) ? "OUT" : "IN");
+
+					RunningStatistics[] statistics = summary.get(key);
+					if (statistics == null) {
+						statistics = new RunningStatistics[] { new RunningStatistics(), new RunningStatistics(),
+								new RunningStatistics() };
+						summary.put(key, statistics);
+					}
+					statistics[0].add(chunk.getFinishTime(i) - chunk.getSubmissionTime(i));
+					statistics[1].add(chunk.getCpuTime(i));
+					statistics[2].add(chunk.getOfflineTime(i));
+				}
+			}
+		}
+
+		System.out.println("Path\tBroker\tType\tCount\tRT\tCPU\tOffline");
+		for (Map.Entry<String, RunningStatistics[]> entry : summary.entrySet()) {
+			RunningStatistics[] statistics = entry.getValue();
+			System.out.println(entry.getKey() + "\t" + statistics[0].getCount() + "\t"
+					+ String.format("%.4f\t%.4f\t%.4f", statistics[0].getMean(), statistics[1].getMean(),
+							statistics[2].getMean()));
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.result;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends one record per completed hop of a message to a file in the
+ * {@link MessageResultFormat columnar format}. <br>
+ * Records are kept in column arrays until a chunk is full, and the chunk is
+ * written through a large direct buffer, so a run of any length uses a fixed
+ * amount of memory.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class MessageResultWriter implements Closeable {
+
+	/** Records of a chunk */
+	public static final int CHUNK_RECORDS = 1 << 16;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	private int count;
+	private int[] pathIds;
+	private int[] brokerIds;
+	private byte[] types;
+	private double[] submissionTimes;
+	private double[] finishTimes;
+	private double[] cpuTimes;
+	private long[] bytes;
+	private double[] offlineTimes;
+
+	/** Ids of paths and brokers, assigned in order of appearance */
+	private Map<String, Integer> nodeIds;
+	private List<String> nodeNames;
+
+	public MessageResultWriter(File file) throws IOException {
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		this.channel.truncate(0);
+		this.buffer = ByteBuffer.allocateDirect(4 + CHUNK_RECORDS * MessageResultFormat.RECORD_SIZE);
+
+		this.count = 0;
+		this.pathIds = new int[CHUNK_RECORDS];
+		this.brokerIds = new int[CHUNK_RECORDS];
+		this.types = new byte[CHUNK_RECORDS];
+		this.submissionTimes = new double[CHUNK_RECORDS];
+		this.finishTimes = new double[CHUNK_RECORDS];
+		this.cpuTimes = new double[CHUNK_RECORDS];
+		this.bytes = new long[CHUNK_RECORDS];
+		this.offlineTimes = new double[CHUNK_RECORDS];
+		this.nodeIds = new HashMap<>();
+		this.nodeNames = new ArrayList<>();
+
+		buffer.putInt(MessageResultFormat.MAGIC);
+		buffer.putInt(MessageResultFormat.VERSION);
+		buffer.putInt(CHUNK_RECORDS);
+		write();
+	}
+
+	/**
+	 * Appends the record of a hop
+	 * 
+	 * @param pathId
+	 *            the path of the message
+	 * @param brokerId
+	 *            the broker of the hop
+	 * @param output
+	 *            if the hop is the output (transmission) or the input
+	 *            (processing) of the broker
+	 * @param submissionTime
+	 *            when the message arrived at the broker
+	 * @param finishTime
+	 *            when the hop finished
+	 * @param cpuTime
+	 *            the actual CPU (or transmission) time
+	 * @param size
+	 *            the bytes of the message
+	 * @param offlineTime
+	 *            time paused while the subscriber was offline
+	 */
+	public void append(String pathId, String brokerId, boolean output, double submissionTime, double finishTime,
+			double cpuTime, long size, double offlineTime) throws IOException {
+		pathIds[count] = nodeId(pathId);
+		brokerIds[count] = nodeId(brokerId);
+		types[count] = output ? MessageResultFormat.TYPE_OUTPUT : MessageResultFormat.TYPE_INPUT;
+		submissionTimes[count] = submissionTime;
+		finishTimes[count] = finishTime;
+		cpuTimes[count] = cpuTime;
+		bytes[count] = size;
+		offlineTimes[count] = offlineTime;
+		count++;
+
+		if (count == CHUNK_RECORDS)
+			writeChunk();
+	}
+
+	private int nodeId(String nodeName) {
+		Integer id = nodeIds.get(nodeName);
+		if (id == null) {
+			if (nodeName.getBytes(StandardCharsets.UTF_8).length > MessageResultFormat.MAX_NAME_BYTES)
+				throw new IllegalArgumentException("Name longer than " + MessageResultFormat.MAX_NAME_BYTES
+						+ " bytes: " + nodeName.substring(0, 64) + "...");
+
+			id = nodeNames.size();
+			nodeIds.put(nodeName, id);
+			nodeNames.add(nodeName);
+		}
+		return id;
+	}
+
+	private void writeChunk() throws IOException {
+		if (count == 0)
+			return;
+
+		buffer.putInt(count);
+		buffer.asIntBuffer().put(pathIds, 0, count);
+		buffer.position(buffer.position() + 4 * count);
+		buffer.asIntBuffer().put(brokerIds, 0, count);
+		buffer.position(buffer.position() + 4 * count);
+		buffer.put(types, 0, count);
+		buffer.asDoubleBuffer().put(submissionTimes, 0, count);
+		buffer.position(buffer.position() + 8 * count);
+		buffer.asDoubleBuffer().put(finishTimes, 0, count);
+		buffer.position(buffer.position() + 8 * count);
+		buffer.asDoubleBuffer().put(cpuTimes, 0, count);
+		buffer.position(buffer.position() + 8 * count);
+		buffer.asLongBuffer().put(bytes, 0, count);
+		buffer.position(buffer.position() + 8 * count);
+		buffer.asDoubleBuffer().put(offlineTimes, 0, count);
+		buffer.position(buffer.position() + 8 * count);
+		write();
+
+		count = 0;
+	}
+
+	private void write() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the buffer if it has no room for some more bytes
+	 */
+	private void ensureCapacity(int size) throws IOException {
+		if (buffer.remaining() < size)
+			write();
+	}
+
+	/**
+	 * Writes the pending records and the node dictionary
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+
+		try {
+			writeChunk();
+			// the dictionary starts where the written bytes end
+			write();
+
+			long dictionaryPosition = channel.position();
+			buffer.putInt(nodeNames.size());
+			for (String nodeName : nodeNames) {
+				byte[] name = nodeName.getBytes(StandardCharsets.UTF_8);
+				ensureCapacity(2 + name.length);
+				buffer.putShort((short) name.length);
+				buffer.put(name);
+			}
+			ensureCapacity(MessageResultFormat.TRAILER_SIZE);
+			buffer.putLong(dictionaryPosition);
+			buffer.putInt(MessageResultFormat.MAGIC);
+			write();
+		} finally {
+			channel.close();
+		}
+	}
+}
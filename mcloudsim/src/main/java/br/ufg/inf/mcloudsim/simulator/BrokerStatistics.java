@@ -0,0 +1,358 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import br.ufg.inf.mcloudsim.network.DeployablePathNode;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+import br.ufg.inf.mcloudsim.utils.BatchMeans;
+import br.ufg.inf.mcloudsim.utils.LatencyHistogram;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+
+/**
+ * Statistics of the brokers of each path: RT, input service demand (DPr) and
+ * output service demand (DTr), and the end-to-end RT of each path. <br>
+ * Paths and the brokers of each path (hops) are numbered when the statistics
+ * are created, and the accumulators are arrays indexed by [path][hop], so
+ * recording a finished message allocates nothing and the queries of a path
+ * take time proportional to its number of hops. The values are kept in
+ * fixed-memory histograms, from which the means and the percentiles derive.
+ * <br>
+ * Paths of the same dissemination tree share the accumulators of their
+ * common hops: the DPr of a broker is kept once, and the RT and DTr once for
+ * each next broker, so a message processed once by a shared broker is
+ * recorded once and is seen by every path through it. The messages dropped
+ * by a broker and the time it held messages for a full next broker are also
+ * kept once for each broker.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class BrokerStatistics {
+
+	private Map<String, Integer> pathIndexes;
+
+	/** Broker of each hop of each path */
+	private String[][] brokerIds;
+
+	private LatencyHistogram[][] histogramRT;
+	private LatencyHistogram[][] histogramDPr;
+	private LatencyHistogram[][] histogramDTr;
+
+	/** End-to-end RT of each path, from the publication to the last broker */
+	private LatencyHistogram[] histogramPathRT;
+	private BatchMeans[] batchPathRT;
+
+	private BatchMeans[][] batchRT;
+	private BatchMeans[][] batchDPr;
+	private BatchMeans[][] batchDTr;
+
+	/** Broker number of each hop of each path, and its drops and blocked time */
+	private int[][] nodes;
+	private long[] drops;
+	private double[] blockedTime;
+
+	public BrokerStatistics(PSNetworkDescriptor psNetwork) {
+		List<PSNetworkPath> paths = psNetwork.getPaths();
+		int n = paths.size();
+
+		this.pathIndexes = new HashMap<>();
+		this.brokerIds = new String[n][];
+		this.histogramRT = new LatencyHistogram[n][];
+		this.histogramDPr = new LatencyHistogram[n][];
+		this.histogramDTr = new LatencyHistogram[n][];
+		this.histogramPathRT = new LatencyHistogram[n];
+		this.batchPathRT = newBatchMeans(n);
+		this.batchRT = new BatchMeans[n][];
+		this.batchDPr = new BatchMeans[n][];
+		this.batchDTr = new BatchMeans[n][];
+		this.nodes = new int[n][];
+		this.drops = new long[psNetwork.getNodeCount()];
+		this.blockedTime = new double[psNetwork.getNodeCount()];
+
+		// accumulators of each broker (node) and each pair of a broker and its
+		// next hop (edge), shared by the paths through them
+		LatencyHistogram[] nodeDPr = newHistograms(psNetwork.getNodeCount());
+		BatchMeans[] nodeBatchDPr = newBatchMeans(psNetwork.getNodeCount());
+		LatencyHistogram[] edgeRT = newHistograms(psNetwork.getEdgeCount());
+		LatencyHistogram[] edgeDTr = newHistograms(psNetwork.getEdgeCount());
+		BatchMeans[] edgeBatchRT = newBatchMeans(psNetwork.getEdgeCount());
+		BatchMeans[] edgeBatchDTr = newBatchMeans(psNetwork.getEdgeCount());
+
+		for (int path = 0; path < n; path++) {
+			LinkedList<DeployablePathNode> brokers = paths.get(path).getBrokersPath();
+			int hops = brokers.size();
+
+			this.pathIndexes.put(paths.get(path).getPathId(), path);
+			this.brokerIds[path] = new String[hops];
+			this.histogramRT[path] = new LatencyHistogram[hops];
+			this.histogramDPr[path] = new LatencyHistogram[hops];
+			this.histogramDTr[path] = new LatencyHistogram[hops];
+			this.histogramPathRT[path] = new LatencyHistogram();
+			this.batchRT[path] = new BatchMeans[hops];
+			this.batchDPr[path] = new BatchMeans[hops];
+			this.batchDTr[path] = new BatchMeans[hops];
+			this.nodes[path] = new int[hops];
+
+			int hop = 0;
+			for (DeployablePathNode brokerNode : brokers) {
+				int node = psNetwork.getNodeIndex(path, hop);
+				int edge = psNetwork.getEdgeIndex(path, hop);
+
+				this.brokerIds[path][hop] = brokerNode.getTargetNode().getId();
+				this.nodes[path][hop] = node;
+				this.histogramDPr[path][hop] = nodeDPr[node];
+				this.batchDPr[path][hop] = nodeBatchDPr[node];
+				this.histogramRT[path][hop] = edgeRT[edge];
+				this.histogramDTr[path][hop] = edgeDTr[edge];
+				this.batchRT[path][hop] = edgeBatchRT[edge];
+				this.batchDTr[path][hop] = edgeBatchDTr[edge];
+				hop++;
+			}
+		}
+	}
+
+	private static LatencyHistogram[] newHistograms(int n) {
+		LatencyHistogram[] histograms = new LatencyHistogram[n];
+		for (int i = 0; i < n; i++)
+			histograms[i] = new LatencyHistogram();
+		return histograms;
+	}
+
+	private static BatchMeans[] newBatchMeans(int n) {
+		BatchMeans[] batchMeans = new BatchMeans[n];
+		for (int i = 0; i < n; i++)
+			batchMeans[i] = new BatchMeans(SimulationConstants.BATCH_LENGTH);
+		return batchMeans;
+	}
+
+	/**
+	 * @return the index of a path or -1 if it does not exist
+	 */
+	public int getPathIndex(String pathId) {
+		Integer index = pathIndexes.get(pathId);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @return the hop of a broker in a path or -1 if it is not part of the
+	 *         path
+	 */
+	public int getHopIndex(int path, String brokerId) {
+		String[] brokers = brokerIds[path];
+		for (int hop = 0; hop < brokers.length; hop++) {
+			if (brokers[hop].equals(brokerId))
+				return hop;
+		}
+		return -1;
+	}
+
+	public int getHops(int path) {
+		return brokerIds[path].length;
+	}
+
+	public String getBrokerId(int path, int hop) {
+		return brokerIds[path][hop];
+	}
+
+	/**
+	 * Records a message processed by a broker
+	 * 
+	 * @param time
+	 *            the simulation time
+	 * @param DPr
+	 *            the input service demand
+	 */
+	public void addInput(int path, int hop, double time, double DPr) {
+		histogramDPr[path][hop].add(DPr);
+		batchDPr[path][hop].add(time, DPr);
+	}
+
+	/**
+	 * Records a message transmitted by a broker
+	 * 
+	 * @param time
+	 *            the simulation time
+	 * @param DTr
+	 *            the output service demand
+	 * @param rt
+	 *            the RT of the broker
+	 */
+	public void addOutput(int path, int hop, double time, double DTr, double rt) {
+		histogramDTr[path][hop].add(DTr);
+		batchDTr[path][hop].add(time, DTr);
+
+		histogramRT[path][hop].add(rt);
+		batchRT[path][hop].add(time, rt);
+	}
+
+	/**
+	 * Records a message delivered by the last broker of a path
+	 * 
+	 * @param time
+	 *            the simulation time
+	 * @param rt
+	 *            the end-to-end RT, from the publication to the delivery
+	 */
+	public void addDelivery(int path, double time, double rt) {
+		histogramPathRT[path].add(rt);
+		batchPathRT[path].add(time, rt);
+	}
+
+	/**
+	 * Records a message dropped by a broker
+	 */
+	public void addDrop(int path, int hop) {
+		drops[nodes[path][hop]]++;
+	}
+
+	/**
+	 * Records a message held by a broker because its next broker was full
+	 * 
+	 * @param time
+	 *            how long the message was held
+	 */
+	public void addBlocked(int path, int hop, double time) {
+		blockedTime[nodes[path][hop]] += time;
+	}
+
+	/**
+	 * Messages dropped by each broker of a path
+	 */
+	public Map<String, Long> getDropMapOfPath(String pathId) {
+		Map<String, Long> dropsOfPath = new HashMap<>();
+		int path = getPathIndex(pathId);
+		if (path < 0)
+			return dropsOfPath;
+
+		for (int hop = 0; hop < brokerIds[path].length; hop++)
+			dropsOfPath.put(brokerIds[path][hop], drops[nodes[path][hop]]);
+
+		return dropsOfPath;
+	}
+
+	/**
+	 * Total time each broker of a path held messages for a full next broker
+	 */
+	public Map<String, Double> getBlockedTimeMapOfPath(String pathId) {
+		Map<String, Double> blockedTimeOfPath = new HashMap<>();
+		int path = getPathIndex(pathId);
+		if (path < 0)
+			return blockedTimeOfPath;
+
+		for (int hop = 0; hop < brokerIds[path].length; hop++)
+			blockedTimeOfPath.put(brokerIds[path][hop], blockedTime[nodes[path][hop]]);
+
+		return blockedTimeOfPath;
+	}
+
+	public Map<String, Double> getAvgRTMapOfPath(String pathId) {
+		return getAvgMapOfPath(histogramRT, pathId);
+	}
+
+	public Map<String, Double> getAvgDPrMapOfPath(String pathId) {
+		return getAvgMapOfPath(histogramDPr, pathId);
+	}
+
+	public Map<String, Double> getAvgDTrMapOfPath(String pathId) {
+		return getAvgMapOfPath(histogramDTr, pathId);
+	}
+
+	/**
+	 * Average of each broker of a path with finished messages
+	 */
+	private Map<String, Double> getAvgMapOfPath(LatencyHistogram[][] histograms, String pathId) {
+		Map<String, Double> avgOfPath = new HashMap<>();
+		int path = getPathIndex(pathId);
+		if (path < 0)
+			return avgOfPath;
+
+		for (int hop = 0; hop < brokerIds[path].length; hop++) {
+			if (histograms[path][hop].getCount() > 0)
+				avgOfPath.put(brokerIds[path][hop], histograms[path][hop].getMean());
+		}
+
+		return avgOfPath;
+	}
+
+	public Map<String, LatencyHistogram> getRTHistogramMapOfPath(String pathId) {
+		return getHistogramMapOfPath(histogramRT, pathId);
+	}
+
+	public Map<String, LatencyHistogram> getDPrHistogramMapOfPath(String pathId) {
+		return getHistogramMapOfPath(histogramDPr, pathId);
+	}
+
+	public Map<String, LatencyHistogram> getDTrHistogramMapOfPath(String pathId) {
+		return getHistogramMapOfPath(histogramDTr, pathId);
+	}
+
+	private Map<String, LatencyHistogram> getHistogramMapOfPath(LatencyHistogram[][] histograms, String pathId) {
+		Map<String, LatencyHistogram> histogramOfPath = new HashMap<>();
+		int path = getPathIndex(pathId);
+		if (path < 0)
+			return histogramOfPath;
+
+		for (int hop = 0; hop < brokerIds[path].length; hop++)
+			histogramOfPath.put(brokerIds[path][hop], histograms[path][hop]);
+
+		return histogramOfPath;
+	}
+
+	/**
+	 * @return the histogram of the end-to-end RT of a path, empty if the path
+	 *         does not exist
+	 */
+	public LatencyHistogram getRTHistogramOfPath(String pathId) {
+		int path = getPathIndex(pathId);
+		return path >= 0 ? histogramPathRT[path] : new LatencyHistogram();
+	}
+
+	/**
+	 * Steady-state RT of a path estimated by batch means of the end-to-end RT
+	 * of its delivered messages, after the deletion of the warm-up period.
+	 * A message is counted in the batch in which it is delivered, so the
+	 * messages held while the subscriber is offline are counted when they are
+	 * delivered, with the time they were held.
+	 * 
+	 * @param pathId
+	 *            the path
+	 * @return the statistics of the batch means of the path RT
+	 */
+	public RunningStatistics getSteadyStateRTOfPath(String pathId) {
+		int path = getPathIndex(pathId);
+		return path >= 0 ? batchPathRT[path].getSteadyState() : new RunningStatistics();
+	}
+
+	public Map<String, RunningStatistics> getSteadyStateDPrMapOfPath(String pathId) {
+		return getSteadyStateMapOfPath(batchDPr, pathId);
+	}
+
+	public Map<String, RunningStatistics> getSteadyStateDTrMapOfPath(String pathId) {
+		return getSteadyStateMapOfPath(batchDTr, pathId);
+	}
+
+	private Map<String, RunningStatistics> getSteadyStateMapOfPath(BatchMeans[][] batchMeans, String pathId) {
+		Map<String, RunningStatistics> steadyStateOfPath = new HashMap<>();
+		int path = getPathIndex(pathId);
+		if (path < 0)
+			return steadyStateOfPath;
+
+		for (int hop = 0; hop < brokerIds[path].length; hop++)
+			steadyStateOfPath.put(brokerIds[path][hop], batchMeans[path][hop].getSteadyState());
+
+		return steadyStateOfPath;
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Profile of the event handling of a simulation entity: number of events,
+ * cumulative wall time and allocated bytes per tag. <br>
+ * Profiling is enabled by the system property {@value #ENABLED_PROPERTY}. The
+ * flag is a constant, so entities checking {@link #ENABLED} before calling
+ * the profiler have no overhead when it is disabled. A ranked table of all
+ * profiles of the run is printed by {@link #report(double)}, followed by the
+ * counters the entities registered, read when the report is printed.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class EventProfiler {
+
+	public static final String ENABLED_PROPERTY = "mcloudsim.profile";
+
+	public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	private static Logger logger = Logger.getLogger(EventProfiler.class.getName());
+
+	/** Profiles of the current run */
+	private static List<EventProfiler> profilers = new ArrayList<>();
+
+	private static com.sun.management.ThreadMXBean threadBean = allocationBean();
+
+	private String entityName;
+
+	/** Classes whose constants name the tags, in order of precedence */
+	private Class<?>[] tagClasses;
+
+	private long[] counts;
+	private long[] nanos;
+	private long[] bytes;
+
+	private long startNanos;
+	private long startBytes;
+
+	/** Other counters of the entity, and their names */
+	private List<LongSupplier> counters;
+	private List<String> counterNames;
+
+	private EventProfiler(String entityName, Class<?>[] tagClasses) {
+		this.entityName = entityName;
+		this.tagClasses = tagClasses;
+		this.counts = new long[64];
+		this.nanos = new long[64];
+		this.bytes = new long[64];
+		this.counters = new ArrayList<>();
+		this.counterNames = new ArrayList<>();
+	}
+
+	/**
+	 * Creates the profile of an entity
+	 * 
+	 * @param entityName
+	 *            the name of the entity
+	 * @param tagClasses
+	 *            classes whose int constants name the tags handled by the
+	 *            entity, in order of precedence
+	 * @return the profile or null if profiling is disabled
+	 */
+	public static EventProfiler create(String entityName, Class<?>... tagClasses) {
+		if (!ENABLED)
+			return null;
+
+		EventProfiler profiler = new EventProfiler(entityName, tagClasses);
+		synchronized (profilers) {
+			profilers.add(profiler);
+		}
+		return profiler;
+	}
+
+	/**
+	 * Registers a counter of the entity to be printed with the profile
+	 * 
+	 * @param name
+	 *            the name of the counter
+	 * @param counter
+	 *            gives the value of the counter when the profile is printed
+	 */
+	public void addCounter(String name, LongSupplier counter) {
+		counters.add(counter);
+		counterNames.add(name);
+	}
+
+	/**
+	 * Starts measuring the handling of an event
+	 */
+	public void begin() {
+		startBytes = threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Finishes measuring the handling of an event
+	 * 
+	 * @param tag
+	 *            the tag of the event
+	 */
+	public void end(int tag) {
+		long elapsed = System.nanoTime() - startNanos;
+		long allocated = threadBean != null
+				? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes : 0;
+
+		if (tag < 0)
+			tag = 0;
+		if (tag >= counts.length) {
+			int length = Math.max(tag + 1, counts.length * 2);
+			counts = Arrays.copyOf(counts, length);
+			nanos = Arrays.copyOf(nanos, length);
+			bytes = Arrays.copyOf(bytes, length);
+		}
+
+		counts[tag]++;
+		nanos[tag] += elapsed;
+		bytes[tag] += allocated;
+	}
+
+	/**
+	 * Prints the handlers of every entity of the run ranked by wall time, and
+	 * clears the profiles
+	 * 
+	 * @param wallSeconds
+	 *            wall time of the run
+	 */
+	public static void report(double wallSeconds) {
+		List<Object[]> rows = new ArrayList<>();
+		List<Object[]> counterRows = new ArrayList<>();
+		long totalEvents = 0;
+		long totalNanos = 0;
+
+		synchronized (profilers) {
+			for (EventProfiler profiler : profilers) {
+				for (int tag = 0; tag < profiler.counts.length; tag++) {
+					if (profiler.counts[tag] == 0)
+						continue;
+
+					rows.add(new Object[] { profiler.entityName, profiler.tagName(tag), profiler.counts[tag],
+							profiler.nanos[tag], profiler.bytes[tag] });
+					totalEvents += profiler.counts[tag];
+					totalNanos += profiler.nanos[tag];
+				}
+				for (int i = 0; i < profiler.counters.size(); i++) {
+					counterRows.add(new Object[] { profiler.entityName, profiler.counterNames.get(i),
+							profiler.counters.get(i).getAsLong() });
+				}
+			}
+			profilers.clear();
+		}
+
+		Collections.sort(rows, new Comparator<Object[]>() {
+			@Override
+			public int compare(Object[] o1, Object[] o2) {
+				return Long.compare((Long) o2[3], (Long) o1[3]);
+			}
+		});
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-24s %-36s %12s %12s %8s %12s %14s%n", "Entity", "Tag", "Events", "Time (ms)",
+				"Time %", "ns/event", "Bytes/event"));
+		for (Object[] row : rows) {
+			long count = (Long) row[2];
+			long nanos = (Long) row[3];
+			long bytes = (Long) row[4];
+			sb.append(String.format("%-24s %-36s %12d %12.1f %8.2f %12d %14d%n", row[0], row[1], count,
+					nanos / 1e6, totalNanos > 0 ? 100.0 * nanos / totalNanos : 0.0, nanos / count,
+					threadBean != null ? bytes / count : -1));
+		}
+		sb.append(String.format("%d events in %.3f s (%.0f events/s), %.1f%% of the wall time in handlers",
+				totalEvents, wallSeconds, wallSeconds > 0 ? totalEvents / wallSeconds : 0.0,
+				wallSeconds > 0 ? 100.0 * totalNanos / (wallSeconds * 1e9) : 0.0));
+		if (!counterRows.isEmpty()) {
+			sb.append(String.format("%n%n%-24s %-36s %12s%n", "Entity", "Counter", "Value"));
+			for (Object[] row : counterRows)
+				sb.append(String.format("%-24s %-36s %12d%n", row[0], row[1], row[2]));
+		}
+
+		logger.info("Event handler profile\n" + sb);
+	}
+
+	private String tagName(int tag) {
+		for (Class<?> tagClass : tagClasses) {
+			for (Field field : tagClass.getFields()) {
+				if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+					try {
+						if (field.getInt(null) == tag)
+							return tagClass.getSimpleName() + "." + field.getName();
+					} catch (IllegalAccessException e) {
+						// not a tag
+					}
+				}
+			}
+		}
+		return Integer.toString(tag);
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		if (!ENABLED)
+			return null;
+
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+				if (allocationBean.isThreadAllocatedMemorySupported()) {
+					allocationBean.setThreadAllocatedMemoryEnabled(true);
+					return allocationBean;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// allocation is not measured in this JVM
+		}
+		return null;
+	}
+}
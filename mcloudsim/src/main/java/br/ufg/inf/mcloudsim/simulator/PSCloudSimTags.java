@@ -19,4 +19,10 @@ public abstract class PSCloudSimTags {
 	
 	public static final int CLOUDLET_TRANSMITTED = BASE + 52;
 	
-	public static final int VM_DATACENTER_EVENT_TRANSMISSION = BASE + 53;}
+	public static final int VM_DATACENTER_EVENT_TRANSMISSION = BASE + 53;
+
+	/** Generates the next publication of a publisher, sent by the broker to itself. */
+	public static final int PUBLISH = BASE + 54;
+
+	/** A cloudlet dropped because a queue of its broker is full. */
+	public static final int CLOUDLET_DROPPED = BASE + 55;}
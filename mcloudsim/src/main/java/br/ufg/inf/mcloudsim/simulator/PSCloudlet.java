@@ -16,11 +16,15 @@ import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.core.CloudSim;
 
+import br.ufg.inf.mcloudsim.core.Subscriber;
+
 /**
  * A cloudlet type for representing pub/sub interaction. <BR>
  * An PSCloudlet can be of type PUBLISH or SUBSCRIBE. It inherits
  * {@link Cloudlet} with this information and the arrival time of cloudlet. <BR>
- * The information used to compare two cloudlets is the identifier.
+ * The information used to compare two cloudlets is the identifier. <BR>
+ * A finished cloudlet may be reset to carry another message, if nothing
+ * keeps it anymore.
  * 
  * @author Raphael Gomes
  *
@@ -32,30 +36,110 @@ public class PSCloudlet extends Cloudlet implements Comparable<PSCloudlet> {
 		IN, OUT
 	}
 
+	private int id;
 	private cloudletType type;
 	private long bytes;
 	private double arrivalTime;
 	private String pathId;
 	private String brokerId;
+
+	/** Index of the path and hop of the broker, as numbered by the broker statistics */
+	private int pathIndex;
+	private int hopIndex;
+
+	/** Time the message was published, carried across the hops */
+	private double publicationTime;
+
+	/**
+	 * Submission time of the input cloudlet that generated this output
+	 * cloudlet, so the RT of the broker is known without keeping the input
+	 */
+	private double inputSubmissionTime;
+
+	/** Subscriber an output cloudlet is delivered to, or null if it goes to another broker */
+	private Subscriber subscriber;
+
 	private int transmissionIndex;
 	private final List<TransmissionResource> transmissionResList;
 
+	/** Time waiting for an offline subscriber */
+	private double offlineTime;
+	private double offlineSince;
+
 	public PSCloudlet(int cloudletId, String pathId, String brokerId, long cloudletLength, long bytes, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize, UtilizationModel utilizationModelCpu,
 			UtilizationModel utilizationModelRam, UtilizationModel utilizationModelBw, cloudletType type,
 			double arrivalTime) {
 		super(cloudletId, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize, utilizationModelCpu,
 				utilizationModelRam, utilizationModelBw);
+		// Normally, a Cloudlet is only executed on a resource without being
+		// migrated to others. Hence, to reduce memory consumption, set the
+		// size of this ArrayList to be less than the default one.
+		transmissionResList = new ArrayList<TransmissionResource>(2);
+		this.id = cloudletId;
+		init(pathId, brokerId, bytes, type, arrivalTime);
+	}
+
+	private void init(String pathId, String brokerId, long bytes, cloudletType type, double arrivalTime) {
 		this.bytes = Math.max(1, bytes);
 		this.pathId = pathId;
 		this.brokerId = brokerId;
 		this.type = type;
 		this.arrivalTime = arrivalTime;
+		this.pathIndex = -1;
+		this.hopIndex = -1;
+		this.publicationTime = arrivalTime;
+		this.inputSubmissionTime = -1.0;
+		this.subscriber = null;
 		this.transmissionIndex = -1;
-		// Normally, a Cloudlet is only executed on a resource without being
-		// migrated to others. Hence, to reduce memory consumption, set the
-		// size of this ArrayList to be less than the default one.
-		transmissionResList = new ArrayList<TransmissionResource>(2);
+		this.offlineTime = 0.0;
+		this.offlineSince = -1.0;
+	}
+
+	/**
+	 * Makes a finished cloudlet a new one, so it carries another message or the
+	 * same message to another hop. The identifier, status and resources it
+	 * was processed or transmitted by are those of a cloudlet just created.
+	 * The number of PEs, file sizes and utilization models are kept
+	 * 
+	 * @param cloudletId
+	 *            the new identifier
+	 * @param pathId
+	 *            the path of the message
+	 * @param brokerId
+	 *            the broker of the hop
+	 * @param cloudletLength
+	 *            the length to process, in MI
+	 * @param bytes
+	 *            the bytes to transmit
+	 * @param type
+	 *            if it is processed or transmitted
+	 * @param arrivalTime
+	 *            the time it is created
+	 */
+	public void reset(int cloudletId, String pathId, String brokerId, long cloudletLength, long bytes,
+			cloudletType type, double arrivalTime) {
+		try {
+			setCloudletStatus(CREATED);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not reset cloudlet " + id, e);
+		}
+		resList.clear();
+		index = -1;
+		setExecStartTime(0.0);
+		setCloudletLength(cloudletLength);
+		transmissionResList.clear();
+		this.id = cloudletId;
+		init(pathId, brokerId, bytes, type, arrivalTime);
+	}
+
+	/**
+	 * The identifier is kept here, since the one of {@link Cloudlet} cannot be
+	 * changed when the cloudlet is reset
+	 */
+	@Override
+	public int getCloudletId() {
+		return id;
 	}
 
 	public long getBytes() {
@@ -82,6 +166,51 @@ public class PSCloudlet extends Cloudlet implements Comparable<PSCloudlet> {
 		this.brokerId = brokerId;
 	}
 
+	public int getPathIndex() {
+		return pathIndex;
+	}
+
+	public int getHopIndex() {
+		return hopIndex;
+	}
+
+	/**
+	 * Sets the position of the broker in the path
+	 * 
+	 * @param pathIndex
+	 *            the index of the path
+	 * @param hopIndex
+	 *            the index of the broker in the path
+	 */
+	public void setHop(int pathIndex, int hopIndex) {
+		this.pathIndex = pathIndex;
+		this.hopIndex = hopIndex;
+	}
+
+	public double getPublicationTime() {
+		return publicationTime;
+	}
+
+	public void setPublicationTime(double publicationTime) {
+		this.publicationTime = publicationTime;
+	}
+
+	public double getInputSubmissionTime() {
+		return inputSubmissionTime;
+	}
+
+	public void setInputSubmissionTime(double inputSubmissionTime) {
+		this.inputSubmissionTime = inputSubmissionTime;
+	}
+
+	public Subscriber getSubscriber() {
+		return subscriber;
+	}
+
+	public void setSubscriber(Subscriber subscriber) {
+		this.subscriber = subscriber;
+	}
+
 	public double getArrivalTime() {
 		return arrivalTime;
 	}
@@ -89,6 +218,34 @@ public class PSCloudlet extends Cloudlet implements Comparable<PSCloudlet> {
 	public cloudletType getType() {
 		return type;
 	}
+
+	/**
+	 * Marks the cloudlet as waiting for its subscriber to be online
+	 * 
+	 * @param time
+	 *            the simulation time
+	 */
+	public void setOffline(double time) {
+		if (offlineSince < 0.0)
+			offlineSince = time;
+	}
+
+	/**
+	 * Marks the cloudlet as no longer waiting for its subscriber
+	 * 
+	 * @param time
+	 *            the simulation time
+	 */
+	public void setOnline(double time) {
+		if (offlineSince >= 0.0) {
+			offlineTime += time - offlineSince;
+			offlineSince = -1.0;
+		}
+	}
+
+	public double getOfflineTime() {
+		return offlineTime;
+	}
 	
 	@Override
 	public void setResourceParameter(final int resourceID, final double cost) {
@@ -9,9 +9,11 @@
 
 package br.ufg.inf.mcloudsim.simulator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -19,18 +21,54 @@ import java.util.Queue;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
 import org.cloudbus.cloudsim.Consts;
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.ResCloudlet;
 import org.cloudbus.cloudsim.core.CloudSim;
 
+import br.ufg.inf.mcloudsim.core.BatchingPolicy;
+import br.ufg.inf.mcloudsim.core.OverflowPolicy;
+import br.ufg.inf.mcloudsim.core.QueuePolicy;
 import br.ufg.inf.mcloudsim.core.Subscriber;
-import br.ufg.inf.mcloudsim.network.DeployablePathNode;
-import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+import br.ufg.inf.mcloudsim.core.TransmissionPolicy;
+import br.ufg.inf.mcloudsim.trace.Trace;
+import br.ufg.inf.mcloudsim.trace.TraceEvent;
+import br.ufg.inf.mcloudsim.utils.IndexedHeap;
+import br.ufg.inf.mcloudsim.utils.IndexedQueue;
 
 /**
  * Cloudlet scheduler with space shared scheduling. <br>
  * It performs the same functionalities of {@link CloudletSchedulerSpaceShared}
  * but not processing and rescheduling cloudlets regarding offline subscribers.
+ * Since a broker may be shared by the paths of several subscribers, the
+ * subscriber of each output cloudlet is carried by the cloudlet itself and the
+ * cloudlets put aside are kept apart per subscriber. <br>
+ * Output cloudlets waiting for the network to the same next hop may be
+ * transmitted together, according to the {@link BatchingPolicy} of the
+ * broker. The cloudlets that may join a batch are also kept apart per next
+ * hop, with their bytes, so a batch is checked and gathered without going
+ * through the cloudlets to other hops. <br>
+ * The queues are bounded by the {@link QueuePolicy} of the broker: the
+ * cloudlets that do not fit are dropped and handed back like the finished
+ * ones. <br>
+ * The bandwidth is shared among the cloudlets transmitted at once according to
+ * the {@link TransmissionPolicy} of the broker. Each flow gets the same share,
+ * so the bytes transmitted to every flow are kept as a single virtual time and
+ * the flows are ordered by the virtual time they finish at: the next one to
+ * finish is found without going through all of them. The virtual time is
+ * moved up to the current time before any flow starts or stops, since that
+ * changes the share of every flow. <br>
+ * The transmission queues are FIFO queues indexed by cloudlet id, so pausing,
+ * resuming and finishing a transmission take constant time whatever the
+ * backlog. <br>
+ * Updating the processing and the transmission allocates nothing once the
+ * collections have grown: the capacities are kept until the shares of MIPS or
+ * bandwidth change, the exec list is compacted in place, the flows are kept
+ * in an array-backed heap and gone through by index, the queues are indexed
+ * by unboxed maps and the cloudlets to pause are gathered in a buffer reused
+ * across updates. Still allocated are the list of the cloudlets carried by a
+ * transmission, once for each transmission that starts a batch, what CloudSim
+ * does on its own when a cloudlet finishes processing and a
+ * {@link PSResCloudlet} for each cloudlet submitted: a {@link ResCloudlet}
+ * cannot be pointed at another cloudlet, nor its timing reset.
  * 
  * @author Raphael Gomes
  *
@@ -38,21 +76,50 @@ import br.ufg.inf.mcloudsim.network.PSNetworkPath;
 // OK
 public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared {
 
-	private Queue<PSCloudlet> pausedCloudlets;
-	private Queue<PSCloudlet> newCloudlets;
-	private PSNetworkPath psNetworkPath;
+	/** Paused cloudlets of each offline subscriber */
+	private Map<String, Queue<PSCloudlet>> pausedCloudlets;
+	/** Cloudlets not started of each offline subscriber */
+	private Map<String, Queue<PSCloudlet>> newCloudlets;
 	private String nodeId;
-	private boolean onOffBroker;
-	private boolean networkInUse;
-	private List<PSResCloudlet> cloudletTransmittedList;
-	private List<PSResCloudlet> cloudletTransmissionList;
-	private List<PSResCloudlet> cloudletWaitingTransmissionList;
-	private List<PSResCloudlet> cloudletTransmissionPausedList;
+	private Queue<PSResCloudlet> cloudletTransmittedList;
+	private IndexedQueue<PSResCloudlet> cloudletTransmissionList;
+	private IndexedQueue<PSResCloudlet> cloudletWaitingTransmissionList;
+	private IndexedQueue<PSResCloudlet> cloudletTransmissionPausedList;
 	private double currentBwShare;
 
+	private BatchingPolicy batchingPolicy;
+
+	/** Waiting cloudlets that may join a batch, by the path of their next hop */
+	private Map<String, HopBacklog> waitingByHop;
+	private QueuePolicy queuePolicy;
+	private Queue<PSCloudlet> cloudletDroppedList;
+
+	private TransmissionPolicy transmissionPolicy;
+
+	/** Bytes transmitted so far to each flow, had it been always transmitted */
+	private long virtualTime;
+
+	/** Cloudlets being transmitted, by the virtual time they finish at */
+	private IndexedHeap<PSResCloudlet> flowsByFinish;
+
+	/** Transmissions and cloudlets carried by them so far */
+	private long transmittedBatches;
+	private long transmittedCloudlets;
+
 	/** The previous time. */
 	private double previousTransmissionTime;
 
+	/** MIPS share the CPU capacity was computed from, and the capacity of each CPU */
+	private List<Double> capacityMipsShare;
+	private double cpuCapacity;
+
+	/** Bandwidth share the network capacity was computed from, and the capacity */
+	private double capacityBwShare;
+	private double bwCapacity;
+
+	/** Cloudlets of offline subscribers to pause, reused across updates */
+	private final List<PSResCloudlet> toPause;
+
 	/**
 	 * Creates a new CloudletSchedulerSpaceShared object. This method must be
 	 * invoked before starting the actual simulation.
@@ -60,23 +127,33 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 	 * @pre $none
 	 * @post $none
 	 */
-	public PSCloudletSchedulerSpaceShared(PSNetworkPath psNetworkPath, String nodeId) {
+	public PSCloudletSchedulerSpaceShared(String nodeId) {
 		super();
 		usedPes = 0;
 		currentCpus = 0;
-		this.networkInUse = false;
-		this.pausedCloudlets = new LinkedList<>();
-		this.newCloudlets = new LinkedList<>();
-		this.psNetworkPath = psNetworkPath;
+		this.pausedCloudlets = new HashMap<>();
+		this.newCloudlets = new HashMap<>();
 		this.nodeId = nodeId;
-		this.onOffBroker = setOnOffBroker();
-		this.cloudletTransmittedList = new ArrayList<>();
-		this.cloudletTransmissionList = new ArrayList<>();
-		this.cloudletWaitingTransmissionList = new ArrayList<>();
-		this.cloudletTransmissionPausedList = new ArrayList<>();
+		this.batchingPolicy = BatchingPolicy.NONE;
+		this.queuePolicy = QueuePolicy.UNBOUNDED;
+		this.cloudletDroppedList = new ArrayDeque<>();
+		this.transmissionPolicy = TransmissionPolicy.SINGLE_FLOW;
+		this.virtualTime = 0;
+		this.flowsByFinish = new IndexedHeap<>(PSResCloudlet::getCloudletId, PSResCloudlet::getVirtualFinish);
+		this.cloudletTransmittedList = new ArrayDeque<>();
+		this.cloudletTransmissionList = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		this.cloudletWaitingTransmissionList = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		this.waitingByHop = new HashMap<>();
+		this.cloudletTransmissionPausedList = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		this.capacityBwShare = Double.NaN;
+		this.toPause = new ArrayList<>();
 		setPreviousTransmissionTime(0.0);
 	}
 
+	public String getNodeId() {
+		return nodeId;
+	}
+
 	public double getPreviousTransmissionTime() {
 		return previousTransmissionTime;
 	}
@@ -85,16 +162,116 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		this.previousTransmissionTime = previousTransmissionTime;
 	}
 
-	public Queue<PSCloudlet> getPausedCloudlets() {
-		return pausedCloudlets;
+	public BatchingPolicy getBatchingPolicy() {
+		return batchingPolicy;
+	}
+
+	public void setBatchingPolicy(BatchingPolicy batchingPolicy) {
+		if (batchingPolicy == null)
+			throw new IllegalArgumentException("Invalid batching policy");
+
+		this.batchingPolicy = batchingPolicy;
+	}
+
+	public QueuePolicy getQueuePolicy() {
+		return queuePolicy;
+	}
+
+	public void setQueuePolicy(QueuePolicy queuePolicy) {
+		if (queuePolicy == null)
+			throw new IllegalArgumentException("Invalid queue policy");
+
+		this.queuePolicy = queuePolicy;
+	}
+
+	public TransmissionPolicy getTransmissionPolicy() {
+		return transmissionPolicy;
+	}
+
+	public void setTransmissionPolicy(TransmissionPolicy transmissionPolicy) {
+		if (transmissionPolicy == null)
+			throw new IllegalArgumentException("Invalid transmission policy");
+
+		this.transmissionPolicy = transmissionPolicy;
+	}
+
+	public boolean isDroppedCloudlets() {
+		return !cloudletDroppedList.isEmpty();
 	}
 
-	public Queue<PSCloudlet> getNewCloudlets() {
-		return newCloudlets;
+	public PSCloudlet getNextDroppedCloudlet() {
+		return cloudletDroppedList.poll();
 	}
 
-	public boolean isOnOffBroker() {
-		return onOffBroker;
+	/**
+	 * Check if a queue has room for another cloudlet. If it is full and the
+	 * oldest cloudlets are dropped, the oldest one is taken out of it
+	 * 
+	 * @param queue
+	 *            the queue, oldest cloudlet first
+	 * @return if the arriving cloudlet can be queued, or must be dropped
+	 */
+	private boolean makeRoom(Collection<? extends ResCloudlet> queue) {
+		if (!queuePolicy.isDropping() || queue.size() < queuePolicy.getCapacity())
+			return true;
+		if (queuePolicy.getOverflowPolicy() != OverflowPolicy.DROP_OLDEST)
+			return false;
+
+		Iterator<? extends ResCloudlet> it = queue.iterator();
+		ResCloudlet oldest = it.next();
+		it.remove();
+		drop((PSCloudlet) oldest.getCloudlet());
+		if (oldest instanceof PSResCloudlet) {
+			leaveBacklog((PSResCloudlet) oldest);
+			for (PSResCloudlet batched : ((PSResCloudlet) oldest).getBatch())
+				drop((PSCloudlet) batched.getCloudlet());
+		}
+		return true;
+	}
+
+	protected void drop(PSCloudlet cloudlet) {
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.MESSAGE_DROPPED, cloudlet.getCloudletId(), nodeId);
+		cloudletDroppedList.add(cloudlet);
+	}
+
+	public long getTransmittedBatches() {
+		return transmittedBatches;
+	}
+
+	public long getTransmittedCloudlets() {
+		return transmittedCloudlets;
+	}
+
+	/**
+	 * Gets the cloudlets paused while being transmitted to a subscriber
+	 * 
+	 * @param subscriberId
+	 *            the subscriber
+	 * @return the paused cloudlets, in the order they were paused
+	 */
+	public Queue<PSCloudlet> getPausedCloudlets(String subscriberId) {
+		return getQueue(pausedCloudlets, subscriberId);
+	}
+
+	/**
+	 * Gets the cloudlets not started because a subscriber was offline
+	 * 
+	 * @param subscriberId
+	 *            the subscriber
+	 * @return the cloudlets not started, in the order they were submitted
+	 */
+	public Queue<PSCloudlet> getNewCloudlets(String subscriberId) {
+		return getQueue(newCloudlets, subscriberId);
+	}
+
+	private static Queue<PSCloudlet> getQueue(Map<String, Queue<PSCloudlet>> queues, String subscriberId) {
+		Queue<PSCloudlet> queue = queues.get(subscriberId);
+		if (queue == null) {
+			queue = new ArrayDeque<>();
+			queues.put(subscriberId, queue);
+		}
+		return queue;
 	}
 
 	/**
@@ -109,70 +286,61 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		setCurrentMipsShare(mipsShare);
 		double timeSpam = currentTime - getPreviousTime(); // time since last
 															// update
-		double capacity = 0.0;
-		int cpus = 0;
-		Map<ResCloudlet, Long> remainingCloudletLengthMap = new HashMap<>();
-
-		for (Double mips : mipsShare) { // count the CPUs available to the VMM
-			capacity += mips;
-			if (mips > 0) {
-				cpus++;
-			}
-		}
-		currentCpus = cpus;
-		capacity /= cpus; // average capacity of each cpu
+		double capacity = getCpuCapacity(mipsShare); // average capacity of
+														// each cpu
 
 		// each machine in the exec list has the same amount of cpu
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			remainingCloudletLengthMap.put(rcl, rcl.getRemainingCloudletLength());
+		List<ResCloudlet> execList = getCloudletExecList();
+		for (int i = 0; i < execList.size(); i++) {
+			ResCloudlet rcl = execList.get(i);
 			long cloudletFinishedSoFar = (long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION);
 			rcl.updateCloudletFinishedSoFar(cloudletFinishedSoFar);
-			remainingCloudletLengthMap.put(rcl, rcl.getRemainingCloudletLength() - cloudletFinishedSoFar);
 		}
 
 		// no more cloudlets in this scheduler
-		if (getCloudletExecList().size() == 0 && getCloudletWaitingList().size() == 0) {
+		List<ResCloudlet> waitingList = getCloudletWaitingList();
+		if (execList.size() == 0 && waitingList.size() == 0) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
 
-		// update each cloudlet
+		// update each cloudlet, keeping the unfinished ones in their order
 		int finished = 0;
-		List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		int kept = 0;
+		for (int i = 0; i < execList.size(); i++) {
+			ResCloudlet rcl = execList.get(i);
 			// finished anyway, rounding issue...
 			if (rcl.getRemainingCloudletLength() <= 0) {
-				toRemove.add(rcl);
 				cloudletFinish(rcl);
 				finished++;
-				remainingCloudletLengthMap.remove(rcl);
+			} else {
+				execList.set(kept++, rcl);
 			}
 		}
-		getCloudletExecList().removeAll(toRemove);
+		while (execList.size() > kept)
+			execList.remove(execList.size() - 1);
 
 		// for each finished cloudlet, add a new one from the waiting list
-		if (!getCloudletWaitingList().isEmpty()) {
-			for (int i = 0; i < finished; i++) {
-				toRemove.clear();
-				for (ResCloudlet rcl : getCloudletWaitingList()) {
-					if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
-						rcl.setCloudletStatus(Cloudlet.INEXEC);
-						for (int k = 0; k < rcl.getNumberOfPes(); k++) {
-							rcl.setMachineAndPeId(0, i);
-						}
-						getCloudletExecList().add(rcl);
-						usedPes += rcl.getNumberOfPes();
-						toRemove.add(rcl);
-						break;
+		for (int i = 0; i < finished && !waitingList.isEmpty(); i++) {
+			for (int j = 0; j < waitingList.size(); j++) {
+				ResCloudlet rcl = waitingList.get(j);
+				if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
+					rcl.setCloudletStatus(Cloudlet.INEXEC);
+					for (int k = 0; k < rcl.getNumberOfPes(); k++) {
+						rcl.setMachineAndPeId(0, i);
 					}
+					execList.add(rcl);
+					usedPes += rcl.getNumberOfPes();
+					waitingList.remove(j);
+					break;
 				}
-				getCloudletWaitingList().removeAll(toRemove);
 			}
 		}
 
 		// estimate finish time of cloudlets in the execution queue
 		double nextEvent = Double.MAX_VALUE;
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		for (int i = 0; i < execList.size(); i++) {
+			ResCloudlet rcl = execList.get(i);
 			double remainingLength = rcl.getRemainingCloudletLength();
 			double estimatedFinishTime = currentTime + (remainingLength / (capacity * rcl.getNumberOfPes()));
 			if (estimatedFinishTime < nextEvent) {
@@ -183,6 +351,50 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		return nextEvent;
 	}
 
+	/**
+	 * Gets the average capacity of each CPU, computing it again only if the
+	 * MIPS share is not the one of the previous call. The share of a VM is
+	 * replaced, not changed, when the VM scheduler allocates it again
+	 * 
+	 * @param mipsShare
+	 *            the MIPS share of the VM
+	 * @return the capacity of each CPU
+	 */
+	protected double getCpuCapacity(List<Double> mipsShare) {
+		if (mipsShare != capacityMipsShare) {
+			double capacity = 0.0;
+			int cpus = 0;
+			// count the CPUs available to the VMM
+			for (int i = 0; i < mipsShare.size(); i++) {
+				double mips = mipsShare.get(i);
+				capacity += mips;
+				if (mips > 0) {
+					cpus++;
+				}
+			}
+			currentCpus = cpus;
+			cpuCapacity = capacity / cpus;
+			capacityMipsShare = mipsShare;
+		}
+		return cpuCapacity;
+	}
+
+	/**
+	 * Gets the capacity of the network in bytes, computing it again only if
+	 * the bandwidth share changed
+	 * 
+	 * @param bwShare
+	 *            the bandwidth share of the VM, in Mbit/s
+	 * @return the capacity of the network
+	 */
+	private double getBwCapacity(double bwShare) {
+		if (bwShare != capacityBwShare) {
+			bwCapacity = bwShare * SimulationConstants.MBIT_TO_BYTE;
+			capacityBwShare = bwShare;
+		}
+		return bwCapacity;
+	}
+
 	/**
 	 * Modification of
 	 * {@link CloudletSchedulerSpaceShared#cloudletSubmit(Cloudlet, double)} to
@@ -193,11 +405,10 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
 		PSCloudlet psCloudlet = (PSCloudlet) cloudlet;
 
-		if (psCloudlet.isInput())
-			Log.printLine(CloudSim.clock() + ": " + getClass().getSimpleName() + ": Submiting input cloudlet "
-					+ psCloudlet.getCloudletId() + " to broker " + nodeId);
-		else
+		if (!psCloudlet.isInput())
 			throw new IllegalStateException("The method cloudletTransmit must be used in this case");
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.INPUT_SUBMITTED, psCloudlet.getCloudletId(), nodeId);
 
 		// it can go to the exec list
 		if ((currentCpus - usedPes) >= cloudlet.getNumberOfPes()) {
@@ -209,6 +420,10 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 			getCloudletExecList().add(rcl);
 			usedPes += cloudlet.getNumberOfPes();
 		} else {// no enough free PEs: go to the waiting queue
+			if (!makeRoom(getCloudletWaitingList())) {
+				drop(psCloudlet);
+				return 0.0;
+			}
 			ResCloudlet rcl = new PSResCloudlet((PSCloudlet) cloudlet);
 			rcl.setCloudletStatus(Cloudlet.QUEUED);
 			getCloudletWaitingList().add(rcl);
@@ -216,17 +431,7 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		}
 
 		// calculate the expected time for cloudlet completion
-		double capacity = 0.0;
-		int cpus = 0;
-		for (Double mips : getCurrentMipsShare()) {
-			capacity += mips;
-			if (mips > 0) {
-				cpus++;
-			}
-		}
-
-		currentCpus = cpus;
-		capacity /= cpus;
+		double capacity = getCpuCapacity(getCurrentMipsShare());
 
 		// use the current capacity to estimate the extra amount of
 		// time to file transferring. It must be added to the cloudlet length
@@ -240,33 +445,33 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 	// OK
 	@Override
 	public double cloudletResume(int cloudletId) {
-		Log.printLine(CloudSim.clock() + ": " + getClass().getSimpleName() + ": Resuming output cloudlet " + cloudletId
-				+ " on broker " + nodeId);
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.OUTPUT_RESUMED, cloudletId, nodeId);
 		return super.cloudletResume(cloudletId);
 	}
 
 	// OK
-	protected void setCurrentBwShare(Double bwShare) {
+	protected void setCurrentBwShare(double bwShare) {
 		this.currentBwShare = bwShare;
 	}
 
 	// OK
-	public Double getCurrentBwShare() {
+	public double getCurrentBwShare() {
 		return currentBwShare;
 	}
 
 	// OK
-	public List<PSResCloudlet> getCloudletTransmissionList() {
+	public IndexedQueue<PSResCloudlet> getCloudletTransmissionList() {
 		return cloudletTransmissionList;
 	}
 
 	// OK
-	public List<PSResCloudlet> getCloudletWaitingTransmissionList() {
+	public IndexedQueue<PSResCloudlet> getCloudletWaitingTransmissionList() {
 		return cloudletWaitingTransmissionList;
 	}
 
 	// OK
-	public List<PSResCloudlet> getCloudletTransmissionPausedList() {
+	public IndexedQueue<PSResCloudlet> getCloudletTransmissionPausedList() {
 		return cloudletTransmissionPausedList;
 	}
 
@@ -274,116 +479,303 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 	public double cloudletTransmit(Cloudlet cloudlet) {
 		PSCloudlet psCloudlet = (PSCloudlet) cloudlet;
 
-		if (psCloudlet.isOutput())
-			Log.printLine(CloudSim.clock() + ": " + getClass().getSimpleName() + ": Submiting output cloudlet "
-					+ psCloudlet.getCloudletId() + " to broker " + nodeId);
-		else
+		if (!psCloudlet.isOutput())
 			throw new IllegalStateException("The method cloudletSubmit must be used in this case");
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.OUTPUT_SUBMITTED, psCloudlet.getCloudletId(), nodeId);
 
 		// Check if this task is for an offline subscriber
-		if (isOnOffBroker()) {
-			Subscriber subscriber = this.psNetworkPath.getSubscriber();
+		Subscriber subscriber = psCloudlet.getSubscriber();
+		if (subscriber != null) {
 			if (subscriber.isOffline()) {
-				newCloudlets.add(psCloudlet);
-				Log.printLine(CloudSim.clock() + ": " + getClass().getSimpleName() + ": Cloudlet "
-						+ psCloudlet.getCloudletId() + " not started due subscriber disconnection");
+				if (!makeParkingRoom(subscriber.getId())) {
+					drop(psCloudlet);
+					return 0.0;
+				}
+				getNewCloudlets(subscriber.getId()).add(psCloudlet);
+				psCloudlet.setOffline(CloudSim.clock());
+				if (Trace.DEBUG)
+					Trace.record(TraceEvent.OUTPUT_NOT_STARTED, psCloudlet.getCloudletId(), nodeId);
 				return 0.0;
 			}
 		}
 
-		// it can go to the trans list
-		if (!networkInUse) {
-			PSResCloudlet rcl = new PSResCloudlet((PSCloudlet) cloudlet);
-			rcl.setCloudletStatus(Cloudlet.INEXEC);
-			for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
-				rcl.setMachineAndPeId(0, i);
-			}
-			getCloudletTransmissionList().add(rcl);
-			networkInUse = true;
-		} else {// no enough free PEs: go to the waiting queue
-			PSResCloudlet rcl = new PSResCloudlet((PSCloudlet) cloudlet);
-			rcl.setCloudletStatus(Cloudlet.QUEUED);
-			getCloudletWaitingTransmissionList().add(rcl);
+		// it waits for the network, and for the cloudlets to batch with it
+		if (!makeRoom(getCloudletWaitingTransmissionList())) {
+			drop(psCloudlet);
 			return 0.0;
 		}
+		PSResCloudlet rcl = new PSResCloudlet(psCloudlet);
+		rcl.setCloudletStatus(Cloudlet.QUEUED);
+		addWaiting(rcl);
+
+		if (isNetworkFull())
+			return 0.0;
+
+		double currentTime = CloudSim.clock();
+		if (!isBatchReady(currentTime))
+			return getLingerDeadline() - currentTime;
 
-		// Mbit to Byte
-		double capacity = getCurrentBwShare() * SimulationConstants.MBIT_TO_BYTE;
+		// it can go to the trans list. Mbit to Byte
+		advanceTransmission(currentTime);
+		PSResCloudlet batch = startNextBatch();
+		double rate = getFlowRate(getBwCapacity(getCurrentBwShare()));
 
 		// calculate the expected time for cloudlet completion
-		return psCloudlet.getBytes() / capacity;
+		return batch.getRemainingCloudletBytes() / rate;
 	}
 
-	// OK
-	public boolean isTransmittedCloudlets() {
-		return getCloudletTransmittedList().size() > 0;
+	/**
+	 * @return if as many cloudlets as the transmission policy allows are being
+	 *         transmitted
+	 */
+	private boolean isNetworkFull() {
+		return getCloudletTransmissionList().size() >= transmissionPolicy.getMaxFlows();
 	}
 
-	// OK
-	public List<PSResCloudlet> getCloudletTransmittedList() {
-		return cloudletTransmittedList;
+	/**
+	 * Gets the bytes per second transmitted to each flow, the capacity shared
+	 * evenly among the flows up to the cap of the transmission policy
+	 * 
+	 * @param capacity
+	 *            the capacity of the network in bytes
+	 * @return the rate of each flow
+	 */
+	private double getFlowRate(double capacity) {
+		double rate = capacity / Math.max(1, flowsByFinish.size());
+		if (transmissionPolicy.isCapped())
+			rate = Math.min(rate, transmissionPolicy.getFlowBandwidth() * SimulationConstants.MBIT_TO_BYTE);
+		return rate;
 	}
 
-	// OK
-	public Cloudlet getNextTransmittedCloudlet() {
-		if (getCloudletTransmittedList().size() > 0) {
-			return getCloudletTransmittedList().remove(0).getCloudlet();
+	/**
+	 * Moves the virtual time to the current time, at the rate of the flows
+	 * since the last update. It must be called before the set of flows
+	 * changes, since the change also changes the rate
+	 * 
+	 * @param currentTime
+	 *            the current simulation time
+	 */
+	private void advanceTransmission(double currentTime) {
+		double timeSpam = currentTime - getPreviousTransmissionTime();
+		if (timeSpam > 0.0) {
+			virtualTime += (long) (getFlowRate(getBwCapacity(getCurrentBwShare())) * timeSpam);
+			setPreviousTransmissionTime(currentTime);
 		}
-		return null;
 	}
 
-	// OK
-	public boolean cloudletTransmissionPause(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
-		// first, looks for the cloudlet in the trans list
-		for (ResCloudlet rcl : getCloudletTransmissionList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
+	/**
+	 * Moves a cloudlet to the trans list. It finishes when the virtual time
+	 * has grown by its remaining bytes
+	 */
+	private void startFlow(PSResCloudlet rcl) {
+		rcl.setCloudletStatus(Cloudlet.INEXEC);
+		for (int i = 0; i < rcl.getNumberOfPes(); i++) {
+			rcl.setMachineAndPeId(0, i);
 		}
+		rcl.setVirtualFinish(virtualTime + rcl.getRemainingCloudletBytes());
+		getCloudletTransmissionList().add(rcl);
+		flowsByFinish.add(rcl);
+	}
 
-		if (found) {
-			// moves to the paused list
-			PSResCloudlet rgl = getCloudletTransmissionList().remove(position);
-			if (rgl.getRemainingCloudletBytes() == 0) {
-				cloudletTransmissionFinish(rgl);
-			} else {
-				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletTransmissionPausedList().add(rgl);
-			}
+	/**
+	 * Takes a cloudlet out of the trans list, keeping the bytes transmitted to
+	 * it so far
+	 * 
+	 * @return the cloudlet, or null if it is not being transmitted
+	 */
+	private PSResCloudlet stopFlow(int cloudletId) {
+		PSResCloudlet rcl = getCloudletTransmissionList().removeKey(cloudletId);
+		if (rcl == null)
+			return null;
+
+		flowsByFinish.removeKey(cloudletId);
+		long remaining = Math.max(0, rcl.getVirtualFinish() - virtualTime);
+		rcl.updateCloudletTransmittedSoFar(rcl.getRemainingCloudletBytes() - remaining);
+		return rcl;
+	}
+
+	/**
+	 * Check if the cloudlets parked for an offline subscriber have room for
+	 * another one. Only the cloudlets not started can be dropped to make room
+	 */
+	private boolean makeParkingRoom(String subscriberId) {
+		Queue<PSCloudlet> newCloudlets = getNewCloudlets(subscriberId);
+		int parked = newCloudlets.size() + getPausedCloudlets(subscriberId).size();
+		if (!queuePolicy.isDropping() || parked < queuePolicy.getCapacity())
 			return true;
+		if (queuePolicy.getOverflowPolicy() != OverflowPolicy.DROP_OLDEST || newCloudlets.isEmpty())
+			return false;
 
-		}
+		drop(newCloudlets.poll());
+		return true;
+	}
 
-		// now, look for the cloudlet in the waiting list
-		position = 0;
-		found = false;
-		for (ResCloudlet rcl : getCloudletWaitingTransmissionList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
+	/**
+	 * Adds a cloudlet to the waiting list and, if it may join a batch, to the
+	 * backlog of its next hop
+	 */
+	private void addWaiting(PSResCloudlet rcl) {
+		getCloudletWaitingTransmissionList().add(rcl);
+		if (batchingPolicy.isEnabled() && isBatchable(rcl)) {
+			String pathId = ((PSCloudlet) rcl.getCloudlet()).getPathId();
+			HopBacklog backlog = waitingByHop.get(pathId);
+			if (backlog == null) {
+				backlog = new HopBacklog();
+				waitingByHop.put(pathId, backlog);
 			}
-			position++;
+			backlog.cloudlets.add(rcl);
+			backlog.bytes += rcl.getRemainingCloudletBytes();
 		}
+	}
 
-		if (found) {
-			// moves to the paused list
-			PSResCloudlet rgl = getCloudletWaitingTransmissionList().remove(position);
-			if (rgl.getRemainingCloudletBytes() == 0) {
-				cloudletTransmissionFinish(rgl);
-			} else {
-				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletTransmissionPausedList().add(rgl);
-			}
+	/**
+	 * Removes a cloudlet from the waiting list
+	 * 
+	 * @return the cloudlet, or null if it is not waiting
+	 */
+	private PSResCloudlet removeWaiting(int cloudletId) {
+		PSResCloudlet rcl = getCloudletWaitingTransmissionList().removeKey(cloudletId);
+		if (rcl != null)
+			leaveBacklog(rcl);
+		return rcl;
+	}
+
+	/**
+	 * Removes a cloudlet from the backlog of its next hop, if it is there
+	 */
+	private void leaveBacklog(PSResCloudlet rcl) {
+		if (!batchingPolicy.isEnabled())
+			return;
+
+		HopBacklog backlog = waitingByHop.get(((PSCloudlet) rcl.getCloudlet()).getPathId());
+		if (backlog != null && backlog.cloudlets.removeKey(rcl.getCloudletId()) != null)
+			backlog.bytes -= rcl.getRemainingCloudletBytes();
+	}
+
+	/**
+	 * Check if the oldest waiting cloudlet can be transmitted: its batch is
+	 * full or it has lingered long enough
+	 * 
+	 * @param currentTime
+	 *            the current simulation time
+	 * @return if the next batch can be transmitted
+	 */
+	private boolean isBatchReady(double currentTime) {
+		if (getCloudletWaitingTransmissionList().isEmpty())
+			return false;
+		if (!batchingPolicy.isEnabled())
+			return true;
+		// Events closer than that are not told apart by the datacenter
+		if (getLingerDeadline() - currentTime <= CloudSim.getMinTimeBetweenEvents())
 			return true;
 
+		PSResCloudlet first = getCloudletWaitingTransmissionList().peek();
+		HopBacklog backlog = waitingByHop.get(((PSCloudlet) first.getCloudlet()).getPathId());
+		int messages = backlog != null ? backlog.cloudlets.size() : 0;
+		long bytes = backlog != null ? backlog.bytes : 0;
+		// a batch resumed after a pause is not in the backlog
+		if (!isBatchable(first)) {
+			messages++;
+			bytes += first.getRemainingCloudletBytes();
+		}
+		return messages >= batchingPolicy.getMaxMessages() || bytes >= batchingPolicy.getMaxBytes();
+	}
+
+	/**
+	 * @return until when the oldest waiting cloudlet lingers
+	 */
+	private double getLingerDeadline() {
+		PSResCloudlet first = getCloudletWaitingTransmissionList().peek();
+		return first.getCloudletArrivalTime() + batchingPolicy.getMaxLinger();
+	}
+
+	/**
+	 * Check if a waiting cloudlet may join a batch: it is not a batch itself,
+	 * resumed after a pause, and has bytes to transmit
+	 */
+	private static boolean isBatchable(PSResCloudlet rcl) {
+		return rcl.getBatch().isEmpty() && rcl.getRemainingCloudletBytes() > 0;
+	}
+
+	/**
+	 * Moves the oldest waiting cloudlet to the trans list, with the following
+	 * ones to the same next hop that fit in its batch
+	 * 
+	 * @return the started transmission
+	 */
+	private PSResCloudlet startNextBatch() {
+		PSResCloudlet first = getCloudletWaitingTransmissionList().poll();
+		leaveBacklog(first);
+
+		HopBacklog backlog = batchingPolicy.isEnabled()
+				? waitingByHop.get(((PSCloudlet) first.getCloudlet()).getPathId()) : null;
+		if (backlog != null) {
+			int messages = first.getBatchSize();
+			long bytes = first.getRemainingCloudletBytes();
+			PSResCloudlet rcl = backlog.cloudlets.peek();
+			while (rcl != null && messages < batchingPolicy.getMaxMessages()
+					&& bytes < batchingPolicy.getMaxBytes()) {
+				PSResCloudlet next = backlog.cloudlets.getNext(rcl.getCloudletId());
+				long rclBytes = rcl.getRemainingCloudletBytes();
+				if (bytes + rclBytes <= batchingPolicy.getMaxBytes()) {
+					backlog.cloudlets.removeKey(rcl.getCloudletId());
+					backlog.bytes -= rclBytes;
+					getCloudletWaitingTransmissionList().removeKey(rcl.getCloudletId());
+					first.addToBatch(rcl, batchingPolicy.getHeaderBytes());
+					messages++;
+					bytes += rclBytes;
+				}
+				rcl = next;
+			}
 		}
 
-		return false;
+		startFlow(first);
+		return first;
+	}
+
+	// OK
+	public boolean isTransmittedCloudlets() {
+		return getCloudletTransmittedList().size() > 0;
+	}
+
+	// OK
+	public Queue<PSResCloudlet> getCloudletTransmittedList() {
+		return cloudletTransmittedList;
+	}
+
+	// OK
+	public Cloudlet getNextTransmittedCloudlet() {
+		PSResCloudlet rcl = getCloudletTransmittedList().poll();
+		return rcl != null ? rcl.getCloudlet() : null;
+	}
+
+	// OK
+	public boolean cloudletTransmissionPause(int cloudletId) {
+		advanceTransmission(CloudSim.clock());
+		return pauseTransmission(cloudletId);
+	}
+
+	/**
+	 * Pauses a cloudlet without moving the virtual time
+	 */
+	private boolean pauseTransmission(int cloudletId) {
+		// first, looks for the cloudlet in the trans list, then in the waiting
+		// list
+		PSResCloudlet rgl = stopFlow(cloudletId);
+		if (rgl == null)
+			rgl = removeWaiting(cloudletId);
+		if (rgl == null)
+			return false;
+
+		// moves to the paused list
+		if (rgl.getRemainingCloudletBytes() == 0) {
+			cloudletTransmissionFinish(rgl);
+		} else {
+			rgl.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletTransmissionPausedList().add(rgl);
+		}
+		return true;
 	}
 
 	// OK
@@ -391,44 +783,35 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudletTransmission();
 		getCloudletTransmittedList().add(rcl);
-		networkInUse = false;
+		List<PSResCloudlet> batch = rcl.getBatch();
+		for (int i = 0; i < batch.size(); i++)
+			getCloudletTransmittedList().add(batch.get(i));
+		transmittedBatches++;
+		transmittedCloudlets += rcl.getBatchSize();
 	}
 
 	// OK
 	public double cloudletTransmissionResume(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
 		// look for the cloudlet in the paused list
-		for (ResCloudlet rcl : getCloudletTransmissionPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
-		}
+		PSResCloudlet rcl = getCloudletTransmissionPausedList().removeKey(cloudletId);
 
-		if (found) {
-			Log.printLine(CloudSim.clock() + ": " + getClass().getSimpleName() + ": Resuming output cloudlet "
-					+ cloudletId + " on broker " + nodeId);
+		if (rcl != null) {
+			if (Trace.DEBUG)
+				Trace.record(TraceEvent.OUTPUT_RESUMED, cloudletId, nodeId);
 
-			PSResCloudlet rcl = getCloudletTransmissionPausedList().remove(position);
+			for (PSResCloudlet batched : rcl.getBatch())
+				((PSCloudlet) batched.getCloudlet()).setOnline(CloudSim.clock());
 
 			// it can go to the trans list
-			if (!networkInUse) {
-				rcl.setCloudletStatus(Cloudlet.INEXEC);
-				for (int i = 0; i < rcl.getNumberOfPes(); i++) {
-					rcl.setMachineAndPeId(0, i);
-				}
-
-				getCloudletTransmissionList().add(rcl);
-				networkInUse = true;
+			if (!isNetworkFull()) {
+				advanceTransmission(CloudSim.clock());
+				startFlow(rcl);
 
 				// calculate the expected time for cloudlet completion
-				double capacity = getCurrentBwShare() * SimulationConstants.MBIT_TO_BYTE;
+				double rate = getFlowRate(getBwCapacity(getCurrentBwShare()));
 
 				long remainingLength = rcl.getRemainingCloudletBytes();
-				double estimatedFinishTime = CloudSim.clock() + (remainingLength / capacity);
+				double estimatedFinishTime = CloudSim.clock() + (remainingLength / rate);
 
 				return estimatedFinishTime;
 			} else {// no enough free PEs: go to the waiting queue
@@ -437,7 +820,7 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 				long size = rcl.getRemainingCloudletBytes();
 				((PSCloudlet) rcl.getCloudlet()).setBytes(size);
 
-				getCloudletWaitingTransmissionList().add(rcl);
+				addWaiting(rcl);
 				return 0.0;
 			}
 
@@ -449,46 +832,46 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 	}
 
 	// OK
-	public double updateVmTransmission(double currentTime, Double bwShare) {
+	public double updateVmTransmission(double currentTime, double bwShare) {
 		setCurrentBwShare(bwShare);
 		double timeSpam = currentTime - getPreviousTransmissionTime(); // time
 																		// since
 																		// last
 		// update
-		double capacity = bwShare * SimulationConstants.MBIT_TO_BYTE;
-		Map<PSResCloudlet, Long> remainingCloudletLengthMap = new HashMap<>();
-		Subscriber subscriber = psNetworkPath.getSubscriber();
-
-		for (PSResCloudlet rcl : getCloudletTransmissionList()) {
-			remainingCloudletLengthMap.put(rcl, rcl.getRemainingCloudletBytes());
-			long cloudletFinishedSoFar = (long) (capacity * timeSpam);
-			if (isOnOffBroker() && ((PSCloudlet) rcl.getCloudlet()).isOutput()) {
-				if (subscriber.isOnline()) {
-					rcl.updateCloudletTransmittedSoFar(cloudletFinishedSoFar);
-					remainingCloudletLengthMap.put(rcl, rcl.getRemainingCloudletBytes() - cloudletFinishedSoFar);
-				} else
-					Log.printLine(CloudSim.clock() + ": Cloudlet " + rcl.getCloudletId()
-							+ " paused due subscriber disconnection");
-			} else {
-				rcl.updateCloudletTransmittedSoFar(cloudletFinishedSoFar);
-				remainingCloudletLengthMap.put(rcl, rcl.getRemainingCloudletBytes() - cloudletFinishedSoFar);
+		double capacity = getBwCapacity(bwShare);
+
+		// check the cloudlets of offline subscribers. They are paused since
+		// the last update, so they did not share the network
+		for (int i = 0; i < flowsByFinish.size(); i++) {
+			PSResCloudlet rcl = flowsByFinish.get(i);
+			Subscriber subscriber = ((PSCloudlet) rcl.getCloudlet()).getSubscriber();
+			if (subscriber != null && subscriber.isOffline()) {
+				if (Trace.DEBUG)
+					Trace.record(TraceEvent.OUTPUT_PAUSED, rcl.getCloudletId(), nodeId);
+				// The cloudlet was not processed due subscriber
+				// disconnection
+				if (timeSpam > 0.0)
+					toPause.add(rcl);
 			}
 		}
-
-		// check the cloudlets of offline subscribers
-		if (isOnOffBroker() && subscriber.isOffline() && timeSpam > 0.0) {
-			for (PSResCloudlet rcl : remainingCloudletLengthMap.keySet()) {
-				// If the cloudlet was not processed due subscriber
-				// disconnection
-				if (rcl.getRemainingCloudletBytes() == remainingCloudletLengthMap.get(rcl)) {
-					boolean paused = cloudletTransmissionPause(rcl.getCloudletId());
-					if (paused) {
-						this.pausedCloudlets.add((PSCloudlet) rcl.getCloudlet());
-						networkInUse = false;
-					}
-				}
+		for (int i = 0; i < toPause.size(); i++) {
+			PSResCloudlet rcl = toPause.get(i);
+			Subscriber subscriber = ((PSCloudlet) rcl.getCloudlet()).getSubscriber();
+			// one that finishes instead is handed back and may be reused, so
+			// it is not kept among the paused ones
+			boolean paused = pauseTransmission(rcl.getCloudletId());
+			if (paused && rcl.getCloudletStatus() == Cloudlet.PAUSED) {
+				getPausedCloudlets(subscriber.getId()).add((PSCloudlet) rcl.getCloudlet());
+				((PSCloudlet) rcl.getCloudlet()).setOffline(getPreviousTransmissionTime());
+				List<PSResCloudlet> batch = rcl.getBatch();
+				for (int j = 0; j < batch.size(); j++)
+					((PSCloudlet) batch.get(j).getCloudlet()).setOffline(getPreviousTransmissionTime());
 			}
 		}
+		toPause.clear();
+
+		// the other flows shared the network since the last update
+		virtualTime += (long) (getFlowRate(capacity) * timeSpam);
 
 		// no more cloudlets in this scheduler
 		if (getCloudletTransmissionList().size() == 0 && getCloudletWaitingTransmissionList().size() == 0) {
@@ -496,45 +879,25 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 			return 0.0;
 		}
 
-		// update each cloudlet
-		int finished = 0;
-		List<PSResCloudlet> toRemove = new ArrayList<>();
-		for (PSResCloudlet rcl : getCloudletTransmissionList()) {
-			// finished anyway, rounding issue...
-			if (rcl.getRemainingCloudletBytes() <= 0) {
-				toRemove.add(rcl);
-				cloudletTransmissionFinish(rcl);
-				finished++;
-				remainingCloudletLengthMap.remove(rcl);
-			}
+		// finish the cloudlets whose virtual finish time was reached
+		while (!flowsByFinish.isEmpty() && flowsByFinish.peek().getVirtualFinish() <= virtualTime) {
+			PSResCloudlet rcl = stopFlow(flowsByFinish.peek().getCloudletId());
+			cloudletTransmissionFinish(rcl);
 		}
-		getCloudletTransmissionList().removeAll(toRemove);
 
-		// for each finished cloudlet, add a new one from the waiting list
-		if (!getCloudletWaitingTransmissionList().isEmpty()) {
-			for (int i = 0; i < finished; i++) {
-				toRemove.clear();
-				for (PSResCloudlet rcl : getCloudletWaitingTransmissionList()) {
-					if (!networkInUse) {
-						rcl.setCloudletStatus(Cloudlet.INEXEC);
-						for (int k = 0; k < rcl.getNumberOfPes(); k++) {
-							rcl.setMachineAndPeId(0, i);
-						}
-						getCloudletTransmissionList().add(rcl);
-						networkInUse = true;
-						toRemove.add(rcl);
-						break;
-					}
-				}
-				getCloudletWaitingTransmissionList().removeAll(toRemove);
-			}
-		}
+		// while the network has room, start the next batches from the
+		// waiting list
+		while (!isNetworkFull() && isBatchReady(currentTime))
+			startNextBatch();
 
-		// estimate finish time of cloudlets in the execution queue
+		// estimate finish time of the next cloudlet to finish, or until when
+		// the next batch lingers
 		double nextEvent = Double.MAX_VALUE;
-		for (PSResCloudlet rcl : getCloudletTransmissionList()) {
-			double remainingLength = rcl.getRemainingCloudletBytes();
-			double estimatedFinishTime = currentTime + (remainingLength / capacity);
+		if (!isNetworkFull() && !getCloudletWaitingTransmissionList().isEmpty())
+			nextEvent = getLingerDeadline();
+		if (!flowsByFinish.isEmpty()) {
+			double remainingLength = flowsByFinish.peek().getVirtualFinish() - virtualTime;
+			double estimatedFinishTime = currentTime + (remainingLength / getFlowRate(capacity));
 			if (estimatedFinishTime < nextEvent) {
 				nextEvent = estimatedFinishTime;
 			}
@@ -543,28 +906,18 @@ public class PSCloudletSchedulerSpaceShared extends CloudletSchedulerSpaceShared
 		return nextEvent;
 	}
 
-	/**
-	 * Check if this cloudlet scheduler manages an On OFF broker
-	 * 
-	 * @return
-	 */
-	private boolean setOnOffBroker() {
-		LinkedList<DeployablePathNode> brokersPath = this.psNetworkPath.getBrokersPath();
-
-		for (int i = 0; i < brokersPath.size(); i++) {
-			if (brokersPath.get(i).getTargetNode().getId().equals(this.nodeId)) {
-				if (i == brokersPath.size() - 1)
-					return true;
-				else
-					return false;
-			}
-		}
-
-		throw new RuntimeException("Broker " + this.nodeId + " not found in path " + this.psNetworkPath);
-	}
-
 	@Override
 	public String toString() {
 		return "CS for " + nodeId;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Waiting cloudlets to the same next hop that may join a batch, oldest
+	 * first, and their bytes
+	 */
+	private static class HopBacklog {
+
+		private final IndexedQueue<PSResCloudlet> cloudlets = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		private long bytes;
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import br.ufg.inf.mcloudsim.core.OverflowPolicy;
+import br.ufg.inf.mcloudsim.core.QueuePolicy;
+import br.ufg.inf.mcloudsim.trace.Trace;
+import br.ufg.inf.mcloudsim.trace.TraceEvent;
+import br.ufg.inf.mcloudsim.utils.IndexedQueue;
+
+/**
+ * Cloudlet scheduler with time shared processing, for brokers that process
+ * their input messages in a pool of threads. <br>
+ * Every input cloudlet starts as soon as it arrives and the PEs are shared
+ * among all of them, as in {@link CloudletSchedulerTimeShared}: each PE of a
+ * cloudlet runs at the capacity of the VM divided by the PEs in use, if they
+ * are more than the CPUs. The transmission and the handling of offline
+ * subscribers are the ones of {@link PSCloudletSchedulerSpaceShared}. <br>
+ * Since every PE runs at the same rate, the instructions executed by each PE
+ * so far are kept as a single virtual time and the cloudlets are ordered by
+ * the virtual time they finish at. An update only moves the virtual time and
+ * finishes the first cloudlets, whatever the number of cloudlets in process.
+ * The virtual time is moved up to the current time before any cloudlet starts
+ * or stops, since that changes the share of every PE.
+ * <br>
+ * With a {@link QueuePolicy} dropping messages, its capacity bounds the
+ * cloudlets in process.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class PSCloudletSchedulerTimeShared extends PSCloudletSchedulerSpaceShared {
+
+	/** Cloudlets in process, oldest first */
+	private IndexedQueue<PSResCloudlet> cloudletProcessingList;
+
+	/** Cloudlets in process, by the virtual time they finish at */
+	private TreeSet<PSResCloudlet> cloudletsByFinish;
+
+	/** Paused cloudlets, oldest first */
+	private IndexedQueue<PSResCloudlet> cloudletProcessingPausedList;
+
+	/** Instructions executed so far by each PE, in MI, had it been always busy */
+	private double virtualTime;
+
+	public PSCloudletSchedulerTimeShared(String nodeId) {
+		super(nodeId);
+		this.cloudletProcessingList = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		this.cloudletsByFinish = new TreeSet<>(Comparator.comparingDouble(PSResCloudlet::getProcessingFinish)
+				.thenComparingInt(PSResCloudlet::getCloudletId));
+		this.cloudletProcessingPausedList = new IndexedQueue<>(PSResCloudlet::getCloudletId);
+		this.virtualTime = 0.0;
+	}
+
+	public IndexedQueue<PSResCloudlet> getCloudletProcessingList() {
+		return cloudletProcessingList;
+	}
+
+	public IndexedQueue<PSResCloudlet> getCloudletProcessingPausedList() {
+		return cloudletProcessingPausedList;
+	}
+
+	/**
+	 * Gets the MIPS of each PE in use: the capacity of each CPU, shared by the
+	 * PEs of the cloudlets if they are more than the CPUs
+	 *
+	 * @param mipsShare
+	 *            the MIPS share of the VM
+	 * @return the MIPS of each PE
+	 */
+	private double getPeCapacity(List<Double> mipsShare) {
+		double capacity = getCpuCapacity(mipsShare);
+		return capacity * currentCpus / Math.max(currentCpus, usedPes);
+	}
+
+	/**
+	 * Moves the virtual time to the current time, at the MIPS of each PE since
+	 * the last update. It must be called before the PEs in use change, since
+	 * the change also changes the MIPS of each PE
+	 * 
+	 * @param currentTime
+	 *            the current simulation time
+	 */
+	private void advanceProcessing(double currentTime) {
+		double timeSpam = currentTime - getPreviousTime();
+		if (timeSpam > 0.0) {
+			virtualTime += getPeCapacity(getCurrentMipsShare()) * timeSpam;
+			setPreviousTime(currentTime);
+		}
+	}
+
+	/**
+	 * Do the same of
+	 * {@link CloudletSchedulerTimeShared#updateVmProcessing(double, List)},
+	 * moving the virtual time instead of every cloudlet
+	 */
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		double timeSpam = currentTime - getPreviousTime(); // time since last
+															// update
+		double capacity = getPeCapacity(mipsShare);
+		virtualTime += capacity * timeSpam;
+
+		// no more cloudlets in this scheduler
+		if (cloudletsByFinish.isEmpty()) {
+			setPreviousTime(currentTime);
+			return 0.0;
+		}
+
+		// finish the cloudlets whose virtual finish time was reached
+		while (!cloudletsByFinish.isEmpty() && cloudletsByFinish.first().getProcessingFinish() <= virtualTime) {
+			PSResCloudlet rcl = stopProcessing(cloudletsByFinish.first().getCloudletId());
+			cloudletFinish(rcl);
+		}
+
+		// estimate finish time of the next cloudlet to finish
+		double nextEvent = Double.MAX_VALUE;
+		if (!cloudletsByFinish.isEmpty()) {
+			double remainingLength = cloudletsByFinish.first().getProcessingFinish() - virtualTime;
+			nextEvent = currentTime + remainingLength / getPeCapacity(mipsShare);
+		}
+		setPreviousTime(currentTime);
+		return nextEvent;
+	}
+
+	/**
+	 * Do the same of
+	 * {@link PSCloudletSchedulerSpaceShared#cloudletSubmit(Cloudlet, double)}
+	 * but starting the cloudlet at once
+	 */
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		PSCloudlet psCloudlet = (PSCloudlet) cloudlet;
+
+		if (!psCloudlet.isInput())
+			throw new IllegalStateException("The method cloudletTransmit must be used in this case");
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.INPUT_SUBMITTED, psCloudlet.getCloudletId(), getNodeId());
+
+		advanceProcessing(CloudSim.clock());
+
+		// the cloudlets in process are bounded
+		QueuePolicy queuePolicy = getQueuePolicy();
+		if (queuePolicy.isDropping() && cloudletProcessingList.size() >= queuePolicy.getCapacity()) {
+			if (queuePolicy.getOverflowPolicy() != OverflowPolicy.DROP_OLDEST) {
+				drop(psCloudlet);
+				return 0.0;
+			}
+			PSResCloudlet oldest = stopProcessing(cloudletProcessingList.peek().getCloudletId());
+			usedPes -= oldest.getNumberOfPes();
+			drop((PSCloudlet) oldest.getCloudlet());
+		}
+
+		// use the current capacity to estimate the extra amount of
+		// time to file transferring. It must be added to the cloudlet length
+		double extraSize = getCpuCapacity(getCurrentMipsShare()) * fileTransferTime;
+		long length = cloudlet.getCloudletLength();
+		length += extraSize;
+		cloudlet.setCloudletLength(length);
+
+		PSResCloudlet rcl = new PSResCloudlet(psCloudlet);
+		startProcessing(rcl);
+
+		// calculate the expected time for cloudlet completion
+		return (rcl.getProcessingFinish() - virtualTime) / getPeCapacity(getCurrentMipsShare());
+	}
+
+	/**
+	 * Starts processing a cloudlet. It finishes when the virtual time has
+	 * grown by the remaining instructions of each of its PEs
+	 */
+	private void startProcessing(PSResCloudlet rcl) {
+		rcl.setCloudletStatus(Cloudlet.INEXEC);
+		for (int i = 0; i < rcl.getNumberOfPes(); i++) {
+			rcl.setMachineAndPeId(0, i);
+		}
+		rcl.setProcessingFinish(virtualTime + (double) rcl.getRemainingCloudletLength() / rcl.getNumberOfPes());
+		cloudletProcessingList.add(rcl);
+		cloudletsByFinish.add(rcl);
+		usedPes += rcl.getNumberOfPes();
+	}
+
+	/**
+	 * Stops processing a cloudlet, keeping the instructions executed so far
+	 *
+	 * @return the cloudlet, or null if it is not in process
+	 */
+	private PSResCloudlet stopProcessing(int cloudletId) {
+		PSResCloudlet rcl = cloudletProcessingList.removeKey(cloudletId);
+		if (rcl == null)
+			return null;
+
+		cloudletsByFinish.remove(rcl);
+		double remaining = rcl.getProcessingFinish() - virtualTime;
+		if (remaining <= 0.0) {
+			// rounds up, so the cloudlet is finished
+			rcl.updateCloudletFinishedSoFar((rcl.getRemainingCloudletLength() + 1) * Consts.MILLION);
+		} else {
+			long executed = rcl.getRemainingCloudletLength() - (long) Math.ceil(remaining * rcl.getNumberOfPes());
+			rcl.updateCloudletFinishedSoFar(Math.max(0, executed) * Consts.MILLION);
+		}
+		return rcl;
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		advanceProcessing(CloudSim.clock());
+		PSResCloudlet rcl = stopProcessing(cloudletId);
+		if (rcl != null) {
+			usedPes -= rcl.getNumberOfPes();
+		} else {
+			rcl = cloudletProcessingPausedList.removeKey(cloudletId);
+			if (rcl == null)
+				return super.cloudletCancel(cloudletId);
+		}
+
+		rcl.setCloudletStatus(Cloudlet.CANCELED);
+		rcl.finalizeCloudlet();
+		return rcl.getCloudlet();
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		advanceProcessing(CloudSim.clock());
+		PSResCloudlet rcl = stopProcessing(cloudletId);
+		if (rcl == null)
+			return false;
+
+		if (rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		} else {
+			usedPes -= rcl.getNumberOfPes();
+			rcl.setCloudletStatus(Cloudlet.PAUSED);
+			cloudletProcessingPausedList.add(rcl);
+		}
+		return true;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		PSResCloudlet rcl = cloudletProcessingPausedList.removeKey(cloudletId);
+		if (rcl == null)
+			return 0.0;
+		if (Trace.DEBUG)
+			Trace.record(TraceEvent.OUTPUT_RESUMED, cloudletId, getNodeId());
+
+		advanceProcessing(CloudSim.clock());
+		startProcessing(rcl);
+
+		// calculate the expected time for cloudlet completion
+		double remainingLength = rcl.getProcessingFinish() - virtualTime;
+		return CloudSim.clock() + remainingLength / getPeCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	public int getCloudletStatus(int cloudletId) {
+		PSResCloudlet rcl = cloudletProcessingList.get(cloudletId);
+		if (rcl == null)
+			rcl = cloudletProcessingPausedList.get(cloudletId);
+		return rcl != null ? rcl.getCloudletStatus() : super.getCloudletStatus(cloudletId);
+	}
+
+	@Override
+	public int runningCloudlets() {
+		return cloudletProcessingList.size();
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		advanceProcessing(CloudSim.clock());
+		PSResCloudlet rcl = stopProcessing(cloudletProcessingList.peek().getCloudletId());
+		usedPes -= rcl.getNumberOfPes();
+		rcl.finalizeCloudlet();
+		return rcl.getCloudlet();
+	}
+
+	@Override
+	public double getTotalUtilizationOfCpu(double time) {
+		double totalUtilization = 0;
+		for (PSResCloudlet rcl : cloudletProcessingList) {
+			totalUtilization += rcl.getCloudlet().getUtilizationOfCpu(time);
+		}
+		return totalUtilization;
+	}
+}
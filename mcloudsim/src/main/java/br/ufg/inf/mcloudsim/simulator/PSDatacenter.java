@@ -12,17 +12,37 @@ import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 
+/**
+ * Datacenter of the brokers, which transmits their output cloudlets besides
+ * processing their input ones. <br>
+ * The datacenter wakes itself up to update the processing and the
+ * transmission. At most one wakeup of each kind is pending at a time, see
+ * {@link PendingWakeup}.
+ * 
+ * @author Raphael Gomes
+ *
+ */
 // OK
 public class PSDatacenter extends Datacenter {
 
 	/** The last time some cloudlet was transmitted in the datacenter. */
 	private double lastTransmissionTime;
 
+	/** Profile of the event handlers, created when profiling is enabled */
+	private EventProfiler profiler;
+
+	/** Pending wakeups to update the processing and the transmission */
+	private PendingWakeup processingWakeup;
+	private PendingWakeup transmissionWakeup;
+
 	public PSDatacenter(String name, DatacenterCharacteristics characteristics, VmAllocationPolicy vmAllocationPolicy,
 			List<Storage> storageList, double schedulingInterval) throws Exception {
 		super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+		this.processingWakeup = new PendingWakeup();
+		this.transmissionWakeup = new PendingWakeup();
 	}
 
 	public double getLastTransmissionTime() {
@@ -33,8 +53,65 @@ public class PSDatacenter extends Datacenter {
 		this.lastTransmissionTime = lastTransmissionTime;
 	}
 
+	public PendingWakeup getProcessingWakeup() {
+		return processingWakeup;
+	}
+
+	public PendingWakeup getTransmissionWakeup() {
+		return transmissionWakeup;
+	}
+
+	/**
+	 * Does the same of {@link SimEntity#schedule(int, double, int, Object)},
+	 * except for the wakeups of the datacenter, which are not scheduled if an
+	 * earlier one of the same kind is pending. Every event sent goes through
+	 * this method, including the ones sent by {@link Datacenter}
+	 */
+	@Override
+	public void schedule(int dest, double delay, int tag, Object data) {
+		// events are not sent before the simulation runs
+		if (dest == getId() && CloudSim.running()) {
+			PendingWakeup wakeup = null;
+			if (tag == CloudSimTags.VM_DATACENTER_EVENT)
+				wakeup = processingWakeup;
+			else if (tag == PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION)
+				wakeup = transmissionWakeup;
+
+			if (wakeup != null && !wakeup.request(CloudSim.clock() + delay))
+				return;
+		}
+		super.schedule(dest, delay, tag, data);
+	}
+
 	@Override
 	public void processEvent(SimEvent ev) {
+		if (!EventProfiler.ENABLED) {
+			dispatchEvent(ev);
+			return;
+		}
+
+		if (profiler == null) {
+			profiler = EventProfiler.create(getName(), PSCloudSimTags.class, CloudSimTags.class);
+			profiler.addCounter("Processing wakeups requested", processingWakeup::getRequested);
+			profiler.addCounter("Processing wakeups scheduled", processingWakeup::getScheduled);
+			profiler.addCounter("Processing wakeups stale", processingWakeup::getStale);
+			profiler.addCounter("Transmission wakeups requested", transmissionWakeup::getRequested);
+			profiler.addCounter("Transmission wakeups scheduled", transmissionWakeup::getScheduled);
+			profiler.addCounter("Transmission wakeups stale", transmissionWakeup::getStale);
+		}
+
+		profiler.begin();
+		try {
+			dispatchEvent(ev);
+		} finally {
+			profiler.end(ev.getTag());
+		}
+	}
+
+	/**
+	 * Handles an event according with its tag
+	 */
+	protected void dispatchEvent(SimEvent ev) {
 		int srcId = -1;
 
 		switch (ev.getTag()) {
@@ -174,14 +251,19 @@ public class PSDatacenter extends Datacenter {
 			processDataDelete(ev, true);
 			break;
 
+		// Wakeups replaced by an earlier one are ignored
 		case CloudSimTags.VM_DATACENTER_EVENT:
-			updateCloudletProcessing();
-			checkCloudletCompletion();
+			if (processingWakeup.arrive(CloudSim.clock())) {
+				updateCloudletProcessing();
+				checkCloudletCompletion();
+			}
 			break;
 			
 		case PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION:
-			updateCloudletTransmission();
-			checkCloudletTransmissionCompletion();
+			if (transmissionWakeup.arrive(CloudSim.clock())) {
+				updateCloudletTransmission();
+				checkCloudletTransmissionCompletion();
+			}
 			break;
 
 		// other unknown tags are processed by this method
@@ -325,6 +407,35 @@ public class PSDatacenter extends Datacenter {
 				}
 			}
 		}
+		checkCloudletDrop();
+	}
+
+	/**
+	 * Does the same of {@link Datacenter#checkCloudletCompletion()} and hands
+	 * the dropped cloudlets back as well
+	 */
+	@Override
+	protected void checkCloudletCompletion() {
+		super.checkCloudletCompletion();
+		checkCloudletDrop();
+	}
+
+	/**
+	 * Verifies if some cloudlet inside this Datacenter was dropped because a
+	 * queue of its broker is full. If yes, send it to the User/Broker
+	 */
+	protected void checkCloudletDrop() {
+		List<? extends Host> list = getVmAllocationPolicy().getHostList();
+		for (int i = 0; i < list.size(); i++) {
+			Host host = list.get(i);
+			for (Vm vm : host.getVmList()) {
+				PSCloudletSchedulerSpaceShared scheduler = (PSCloudletSchedulerSpaceShared) vm.getCloudletScheduler();
+				while (scheduler.isDroppedCloudlets()) {
+					Cloudlet cl = scheduler.getNextDroppedCloudlet();
+					sendNow(cl.getUserId(), PSCloudSimTags.CLOUDLET_DROPPED, cl);
+				}
+			}
+		}
 	}
 
 	/**
@@ -366,6 +477,46 @@ public class PSDatacenter extends Datacenter {
 				send(getId(), (smallerTime - CloudSim.clock()), PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION);
 			
 			setLastTransmissionTime(CloudSim.clock());
+		} else {
+			// too close to the previous update, which may have left its next
+			// wakeup to a pending one: wakes up after the minimal interval
+			send(getId(), lastTranTime + minTimeBetweenEvents + 0.1E-6 - clock,
+					PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION);
+		}
+	}
+
+	/**
+	 * Does the same of {@link Datacenter#updateCloudletProcessing()}, but an
+	 * update skipped because it is too close to the previous one wakes the
+	 * datacenter up after the minimal interval, as the transmission does
+	 */
+	@Override
+	protected void updateCloudletProcessing() {
+		double clock = CloudSim.clock();
+		double lastProcessTime = getLastProcessTime();
+		double minTimeBetweenEvents = CloudSim.getMinTimeBetweenEvents();
+		if (clock < 0.111 || clock > lastProcessTime + minTimeBetweenEvents) {
+			List<? extends Host> list = getVmAllocationPolicy().getHostList();
+			double smallerTime = Double.MAX_VALUE;
+			// for each host...
+			for (int i = 0; i < list.size(); i++) {
+				Host host = list.get(i);
+				// inform VMs to update processing
+				double time = host.updateVmsProcessing(clock);
+				// what time do we expect that the next cloudlet will finish?
+				if (time < smallerTime) {
+					smallerTime = time;
+				}
+			}
+			// gurantees a minimal interval before scheduling the event
+			if (smallerTime < clock + minTimeBetweenEvents + 0.01)
+				smallerTime = clock + minTimeBetweenEvents + 0.01;
+			if (smallerTime != Double.MAX_VALUE)
+				send(getId(), (smallerTime - clock), CloudSimTags.VM_DATACENTER_EVENT);
+
+			setLastProcessTime(clock);
+		} else {
+			send(getId(), lastProcessTime + minTimeBetweenEvents + 0.01 - clock, CloudSimTags.VM_DATACENTER_EVENT);
 		}
 	}
 
@@ -413,7 +564,7 @@ public class PSDatacenter extends Datacenter {
 				.getVm(vmId, userId).getCloudletScheduler()).cloudletTransmissionResume(cloudletId);
 
 		if (eventTime > 0.0 && eventTime > CloudSim.clock())
-			schedule(getId(), eventTime, PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION);
+			schedule(getId(), eventTime - CloudSim.clock(), PSCloudSimTags.VM_DATACENTER_EVENT_TRANSMISSION);
 	}
 
 }
@@ -9,17 +9,25 @@
 
 package br.ufg.inf.mcloudsim.simulator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 import org.apache.commons.math3.distribution.ExponentialDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
@@ -31,12 +39,20 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 
 import br.ufg.inf.mcloudsim.core.ConnectivityStatus;
+import br.ufg.inf.mcloudsim.core.EventEntity;
+import br.ufg.inf.mcloudsim.core.PSBroker;
 import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.QueuePolicy;
 import br.ufg.inf.mcloudsim.core.Subscriber;
 import br.ufg.inf.mcloudsim.network.DeployablePathNode;
 import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
 import br.ufg.inf.mcloudsim.network.PSNetworkPath;
-import br.ufg.inf.mcloudsim.utils.Pair;
+import br.ufg.inf.mcloudsim.result.MessageResultWriter;
+import br.ufg.inf.mcloudsim.trace.Trace;
+import br.ufg.inf.mcloudsim.trace.TraceEvent;
+import br.ufg.inf.mcloudsim.utils.BoundedList;
+import br.ufg.inf.mcloudsim.utils.LatencyHistogram;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
 
 /**
  * A broker acting on behalf of user to manage resources.<br>
@@ -51,18 +67,20 @@ public class PSDatacenterBroker extends DatacenterBroker {
 	/** Constants to event control */
 	public static final int PUT_SUBSCRIBER_ONLINE = 50;
 	public static final int PUT_SUBSCRIBER_OFFLINE = 51;
+	/** Must not clash with the tags of {@link PSCloudSimTags} handled by the broker */
+	public static final int PUBLISH = PSCloudSimTags.PUBLISH;
 
-	/** Average RT for each broker in a given path */
-	private Map<Pair<String, String>, Double> avgBrokerRTInPath;
-	private Map<Pair<String, String>, Integer> finishedTasksPerBrokerInPath;
+	/**
+	 * Utilization model of every cloudlet. It keeps no state, so a single
+	 * instance is shared instead of three per cloudlet
+	 */
+	private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
 
-	/** Average input service demand for each broker in a given path */
-	private Map<Pair<String, String>, Double> avgBrokerDPrInPath;
-	private Map<Pair<String, String>, Integer> finishedInTasksPerBrokerInPath;
+	/** RT and service demands of each broker in each path */
+	private BrokerStatistics statistics;
 
-	/** Average input service demand for each broker in a given path */
-	private Map<Pair<String, String>, Double> avgBrokerDTrInPath;
-	private Map<Pair<String, String>, Integer> finishedOutTasksPerBrokerInPath;
+	/** Metrics of each broker in each path over windows of simulation time */
+	private WindowedMetrics windowedMetrics;
 
 	/** Average tON of each subscriber */
 	private Map<String, Double> avgtON;
@@ -70,49 +88,88 @@ public class PSDatacenterBroker extends DatacenterBroker {
 	/** Average tON of each subscriber */
 	private Map<String, Double> avgtOFF;
 
-	private Map<PSCloudlet, PSCloudlet> outToInTasksMap;
-
 	private PSNetworkDescriptor psNetwork;
 
+	private SimulationContext context;
+
+	/** Profile of the event handlers, created when profiling is enabled */
+	private EventProfiler profiler;
+
 	private BiMap<String, Integer> nodeToVmMap;
 
-	/** Controls the forwarding of messages */
-	private Map<String, LinkedList<DeployablePathNode>> pathBrokersMap;
+	/** Controls the forwarding of messages, compiled once the VMs are created */
+	private RoutingTable routingTable;
+
+	/**
+	 * Last-hop VMs of the paths of each subscriber, in which the messages wait
+	 * while the subscriber is offline
+	 */
+	private Map<String, List<Vm>> subscriberVmsMap;
+
+	/** Queue policy of each broker (node) and how many messages are in it */
+	private QueuePolicy[] nodePolicies;
+	private int[] nodeMessages;
+
+	/**
+	 * Messages held for each broker while it is full, and how many messages
+	 * each broker holds for its next brokers
+	 */
+	private List<Queue<PSCloudlet>> blockedMessages;
+	private int[] heldMessages;
 
 	private List<PSCloudlet> cloudletTransmissionList;
 	private List<PSCloudlet> cloudletTransmissionReceivedList;
 	private List<PSCloudlet> cloudletTransmissionSubmittedList;
 	private int cloudletsTransmissionSubmitted;
 
-	public PSDatacenterBroker(String name, PSNetworkDescriptor psNetwork) throws Exception {
+	/**
+	 * Finished cloudlets to be reused, or null if the retention policy keeps
+	 * them
+	 */
+	private Deque<PSCloudlet> cloudletPool;
+
+	public PSDatacenterBroker(String name, PSNetworkDescriptor psNetwork, SimulationContext context)
+			throws Exception {
 		super(name);
-		this.avgBrokerRTInPath = new HashMap<>();
-		this.finishedTasksPerBrokerInPath = new HashMap<>();
-		this.avgBrokerDPrInPath = new HashMap<>();
-		this.finishedInTasksPerBrokerInPath = new HashMap<>();
-		this.avgBrokerDTrInPath = new HashMap<>();
-		this.finishedOutTasksPerBrokerInPath = new HashMap<>();
+		this.statistics = new BrokerStatistics(psNetwork);
+		this.windowedMetrics = new WindowedMetrics(psNetwork, SimulationConstants.METRICS_WINDOW_LENGTH,
+				SimulationConstants.METRICS_WINDOWS);
 		this.avgtON = new HashMap<>();
 		this.avgtOFF = new HashMap<>();
-		this.outToInTasksMap = new HashMap<>();
 		this.psNetwork = psNetwork;
+		this.context = context;
 		this.nodeToVmMap = HashBiMap.create();
-		this.pathBrokersMap = new HashMap<>();
-		this.cloudletTransmissionList = new ArrayList<>();
-		this.cloudletTransmissionReceivedList = new ArrayList<>();
-		this.cloudletTransmissionSubmittedList = new ArrayList<>();
+		this.cloudletTransmissionList = newRetainedList();
+		this.cloudletTransmissionReceivedList = newRetainedList();
+		this.cloudletTransmissionSubmittedList = newRetainedList();
+		setCloudletReceivedList(newRetainedList());
+		setCloudletSubmittedList(newRetainedList());
 		this.cloudletsTransmissionSubmitted = 0;
+		if (!SimulationConstants.RETENTION_POLICY.isKeeping())
+			this.cloudletPool = new ArrayDeque<>();
 	}
 
-	public Map<String, Double> getAvgRTMapOfPath(String pathId) {
-		Map<String, Double> avgRTOfPath = new HashMap<>();
-
-		for (Pair<String, String> pair : this.avgBrokerRTInPath.keySet()) {
-			if (pair.getLeft().equals(pathId))
-				avgRTOfPath.put(pair.getRight(), this.avgBrokerRTInPath.get(pair));
+	/**
+	 * Creates a list of submitted or received messages according with the
+	 * retention policy
+	 */
+	private <T extends Cloudlet> List<T> newRetainedList() {
+		switch (SimulationConstants.RETENTION_POLICY) {
+		case ALL:
+			return new ArrayList<>();
+		case LAST:
+			return new BoundedList<>(SimulationConstants.RETAINED_MESSAGES);
+		case SPILL:
+			if (this.context.getResultWriter() == null)
+				throw new IllegalStateException("Messages can only be spilled with the per-message results");
+			return new BoundedList<>(0);
+		default:
+			return new BoundedList<>(0);
 		}
+	}
 
-		return avgRTOfPath;
+	public Map<String, Double> getAvgRTMapOfPath(String pathId) {
+		return this.statistics.getAvgRTMapOfPath(pathId);
 	}
 
 	public double getAvgRTOfPath(String pathId) {
@@ -131,26 +188,53 @@ public class PSDatacenterBroker extends DatacenterBroker {
 			return sum;
 	}
 
-	public Map<String, Double> getAvgDPrMapOfPath(String pathId) {
-		Map<String, Double> avgDPrOfPath = new HashMap<>();
+	/**
+	 * Steady-state RT of a path estimated by batch means
+	 * 
+	 * @see BrokerStatistics#getSteadyStateRTOfPath(String)
+	 */
+	public RunningStatistics getSteadyStateRTOfPath(String pathId) {
+		return this.statistics.getSteadyStateRTOfPath(pathId);
+	}
 
-		for (Pair<String, String> pair : this.avgBrokerDPrInPath.keySet()) {
-			if (pair.getLeft().equals(pathId))
-				avgDPrOfPath.put(pair.getRight(), this.avgBrokerDPrInPath.get(pair));
-		}
+	public Map<String, RunningStatistics> getSteadyStateDPrMapOfPath(String pathId) {
+		return this.statistics.getSteadyStateDPrMapOfPath(pathId);
+	}
 
-		return avgDPrOfPath;
+	public Map<String, RunningStatistics> getSteadyStateDTrMapOfPath(String pathId) {
+		return this.statistics.getSteadyStateDTrMapOfPath(pathId);
 	}
 
-	public Map<String, Double> getAvgDTrMapOfPath(String pathId) {
-		Map<String, Double> avgDTrOfPath = new HashMap<>();
+	public WindowedMetrics getWindowedMetrics() {
+		return windowedMetrics;
+	}
 
-		for (Pair<String, String> pair : this.avgBrokerDTrInPath.keySet()) {
-			if (pair.getLeft().equals(pathId))
-				avgDTrOfPath.put(pair.getRight(), this.avgBrokerDTrInPath.get(pair));
-		}
+	public Map<String, LatencyHistogram> getRTHistogramMapOfPath(String pathId) {
+		return this.statistics.getRTHistogramMapOfPath(pathId);
+	}
+
+	public Map<String, LatencyHistogram> getDPrHistogramMapOfPath(String pathId) {
+		return this.statistics.getDPrHistogramMapOfPath(pathId);
+	}
 
-		return avgDTrOfPath;
+	public Map<String, LatencyHistogram> getDTrHistogramMapOfPath(String pathId) {
+		return this.statistics.getDTrHistogramMapOfPath(pathId);
+	}
+
+	/**
+	 * End-to-end RT of a path, from the publication to the delivery by its
+	 * last broker
+	 */
+	public LatencyHistogram getRTHistogramOfPath(String pathId) {
+		return this.statistics.getRTHistogramOfPath(pathId);
+	}
+
+	public Map<String, Double> getAvgDPrMapOfPath(String pathId) {
+		return this.statistics.getAvgDPrMapOfPath(pathId);
+	}
+
+	public Map<String, Double> getAvgDTrMapOfPath(String pathId) {
+		return this.statistics.getAvgDTrMapOfPath(pathId);
 	}
 
 	public Double getAvgTOnOfPath(String pathId) {
@@ -161,6 +245,33 @@ public class PSDatacenterBroker extends DatacenterBroker {
 		return this.avgtOFF.get(pathId);
 	}
 
+	public Map<String, Long> getDropMapOfPath(String pathId) {
+		return this.statistics.getDropMapOfPath(pathId);
+	}
+
+	public Map<String, Double> getBlockedTimeMapOfPath(String pathId) {
+		return this.statistics.getBlockedTimeMapOfPath(pathId);
+	}
+
+	/**
+	 * Mean number of messages in the transmissions of a broker, 1.0 if it
+	 * does not batch them
+	 * 
+	 * @param brokerId
+	 *            the broker
+	 * @return the mean batch size, or NaN if the broker has not transmitted
+	 */
+	public double getMeanBatchSize(String brokerId) {
+		Integer vmId = this.nodeToVmMap.get(brokerId);
+		if (vmId == null)
+			return Double.NaN;
+
+		PSCloudletSchedulerSpaceShared cloudletScheduler = (PSCloudletSchedulerSpaceShared) VmList
+				.getById(getVmList(), vmId).getCloudletScheduler();
+		long batches = cloudletScheduler.getTransmittedBatches();
+		return batches > 0 ? cloudletScheduler.getTransmittedCloudlets() / (double) batches : Double.NaN;
+	}
+
 	/**
 	 * It is used to set which VM has been created for each broker
 	 * 
@@ -180,9 +291,30 @@ public class PSDatacenterBroker extends DatacenterBroker {
 		this.nodeToVmMap.put(brokerId, vmId);
 	}
 
-	// OK
 	@Override
 	public void processEvent(SimEvent ev) {
+		if (!EventProfiler.ENABLED) {
+			dispatchEvent(ev);
+			return;
+		}
+
+		if (profiler == null)
+			profiler = EventProfiler.create(getName(), PSDatacenterBroker.class, PSCloudSimTags.class,
+					CloudSimTags.class);
+
+		profiler.begin();
+		try {
+			dispatchEvent(ev);
+		} finally {
+			profiler.end(ev.getTag());
+		}
+	}
+
+	/**
+	 * Handles an event according with its tag
+	 */
+	// OK
+	protected void dispatchEvent(SimEvent ev) {
 		switch (ev.getTag()) {
 		// Resource characteristics request
 		case CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST:
@@ -206,6 +338,11 @@ public class PSDatacenterBroker extends DatacenterBroker {
 			processCloudletTransmitted(ev);
 			break;
 
+		// A cloudlet dropped by a full queue
+		case PSCloudSimTags.CLOUDLET_DROPPED:
+			processCloudletDropped((PSCloudlet) ev.getData());
+			break;
+
 		// if the simulation finishes
 		case CloudSimTags.END_OF_SIMULATION:
 			shutdownEntity();
@@ -254,14 +391,59 @@ public class PSDatacenterBroker extends DatacenterBroker {
 		// remove submitted cloudlets from waiting list
 		getCloudletList().removeAll(successfullySubmitted);
 
-		initPathBrokersMap();
+		this.routingTable = new RoutingTable(this.psNetwork, this.nodeToVmMap, getVmsToDatacentersMap());
+		initSubscriberVmsMap();
+		initNodeQueues();
 		scheduleIntermittence();
+		schedulePublications();
+	}
+
+	/**
+	 * Process a publication event.<BR>
+	 * It submits the publication to the first broker of each dissemination
+	 * tree of the publisher and schedules the next publication of the same
+	 * publisher.
+	 * 
+	 * @param source
+	 *            the source of publications of a publisher
+	 */
+	protected void processPublication(PublicationSource source) {
+		double publicationTime = CloudSim.clock();
+		for (PSNetworkPath networkPath : source.getRootPaths())
+			submitPublication(networkPath, source.getPublisher(), publicationTime);
+
+		schedulePublication(source);
+	}
+
+	private void submitPublication(PSNetworkPath networkPath, Publisher publisher, double publicationTime) {
+		int path = this.statistics.getPathIndex(networkPath.getPathId());
+		String brokerId = this.routingTable.getBrokerId(path, 0);
+		int vmId = this.routingTable.getVmId(path, 0);
+
+		PSCloudlet cloudlet = newCloudlet(networkPath.getPathId(), brokerId, publisher,
+				SimulationConstants.PUBLISH_CLOUDLET_FILESIZE, PSCloudlet.cloudletType.IN, publicationTime);
+		cloudlet.setUserId(getId());
+		cloudlet.setVmId(vmId);
+		cloudlet.setHop(path, 0);
+
+		// nothing before the first broker can hold the publication
+		if (isFull(this.psNetwork.getNodeIndex(path, 0))) {
+			if (Trace.DEBUG)
+				Trace.record(TraceEvent.MESSAGE_DROPPED, cloudlet.getCloudletId(), brokerId);
+			this.statistics.addDrop(path, 0);
+			recycle(cloudlet);
+		} else {
+			if (Trace.DEBUG)
+				Trace.record(TraceEvent.PUBLICATION_SCHEDULED, cloudlet.getCloudletId(), brokerId);
+			submitInput(cloudlet);
+		}
 	}
 
 	/**
 	 * Process a cloudlet return event.<BR>
 	 * If the finished cloudlet is a publish event, it schedules another to each
-	 * subscriber.
+	 * subscriber. A broker shared by several paths transmits one output
+	 * cloudlet to each of its branches.
 	 * 
 	 * @param ev
 	 *            a SimEvent object
@@ -269,44 +451,43 @@ public class PSDatacenterBroker extends DatacenterBroker {
 	// OK
 	protected void processCloudletReturn(SimEvent ev) {
 		PSCloudlet cloudlet = (PSCloudlet) ev.getData();
-		String pathId = cloudlet.getPathId();
-		PSNetworkPath networkPath = this.psNetwork.getNetworkPathWithPublisher(cloudlet.getPathId());
-		Publisher publisher = networkPath.getPublisher();
+		Publisher publisher = this.routingTable.getPublisher(cloudlet.getPathIndex());
 
 		// if an input task is finished we need to generate an output task
 		if (cloudlet.isInput()) {
 			getCloudletReceivedList().add(cloudlet);
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloudlet " + cloudlet + " received on broker "
-					+ cloudlet.getBrokerId());
+			if (Trace.DEBUG)
+				Trace.record(TraceEvent.INPUT_RECEIVED, cloudlet.getCloudletId(), cloudlet.getBrokerId());
 			cloudletsSubmitted--;
 
-			PSCloudlet outCloudlet = new PSCloudlet(++PSSimulation.cloudletCount, pathId, cloudlet.getBrokerId(),
-					(long) publisher.getMIpr(), (long) publisher.getBtr(), 1,
-					SimulationConstants.SUBSCRIBE_CLOUDLET_FILESIZE, SimulationConstants.CLOUDLET_OUTPUT_SIZE,
-					new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull(),
-					PSCloudlet.cloudletType.OUT, CloudSim.clock());
-
-			getCloudletTransmissionList().add(outCloudlet);
-			outCloudlet.setVmId(cloudlet.getVmId());
-			outCloudlet.setUserId(getId());
-			cloudletsTransmissionSubmitted++;
-			getCloudletTransmissionSubmittedList().add(outCloudlet);
-			sendNow(getVmsToDatacentersMap().get(outCloudlet.getVmId()), PSCloudSimTags.CLOUDLET_TRANSMISSION_START,
-					outCloudlet);
-			this.outToInTasksMap.put(outCloudlet, cloudlet);
+			int hop = cloudlet.getHopIndex();
+			int node = this.psNetwork.getNodeIndex(cloudlet.getPathIndex(), hop);
+			this.nodeMessages[node]--;
+			int datacenterId = this.routingTable.getDatacenterId(cloudlet.getPathIndex(), hop);
+			for (int branch : this.routingTable.getBranches(cloudlet.getPathIndex(), hop)) {
+				PSNetworkPath branchPath = this.routingTable.getPath(branch);
+				PSCloudlet outCloudlet = newCloudlet(branchPath.getPathId(), cloudlet.getBrokerId(), publisher,
+						SimulationConstants.SUBSCRIBE_CLOUDLET_FILESIZE, PSCloudlet.cloudletType.OUT, CloudSim.clock());
+
+				getCloudletTransmissionList().add(outCloudlet);
+				outCloudlet.setVmId(cloudlet.getVmId());
+				outCloudlet.setUserId(getId());
+				outCloudlet.setHop(branch, hop);
+				outCloudlet.setPublicationTime(cloudlet.getPublicationTime());
+				outCloudlet.setInputSubmissionTime(cloudlet.getSubmissionTime());
+				if (this.routingTable.isLastHop(branch, hop))
+					outCloudlet.setSubscriber(branchPath.getSubscriber());
+				cloudletsTransmissionSubmitted++;
+				getCloudletTransmissionSubmittedList().add(outCloudlet);
+				this.nodeMessages[node]++;
+				sendNow(datacenterId, PSCloudSimTags.CLOUDLET_TRANSMISSION_START, outCloudlet);
+			}
+			releaseBlocked(node);
 
 			double DPr = cloudlet.getActualCPUTime();
-			Pair<String, String> mapKey = Pair.of(cloudlet.getPathId(), cloudlet.getBrokerId());
-			if (!this.avgBrokerDPrInPath.containsKey(mapKey)) {
-				this.avgBrokerDPrInPath.put(mapKey, DPr);
-				this.finishedInTasksPerBrokerInPath.put(mapKey, 1);
-			} else {
-				int finishedTasks = this.finishedInTasksPerBrokerInPath.get(mapKey) + 1;
-				double avgDPr = (this.avgBrokerDPrInPath.get(mapKey) * (double) (finishedTasks - 1) + DPr)
-						/ (double) finishedTasks;
-				this.avgBrokerDPrInPath.put(mapKey, avgDPr);
-				this.finishedInTasksPerBrokerInPath.put(mapKey, finishedTasks);
-			}
+			this.statistics.addInput(cloudlet.getPathIndex(), cloudlet.getHopIndex(), CloudSim.clock(), DPr);
+			writeResult(cloudlet, cloudlet.getSubmissionTime());
+			recycle(cloudlet);
 		} else {
 			throw new IllegalStateException("Invalid operation: the method processCloudletTransmitted should be used");
 		}
@@ -328,16 +509,19 @@ public class PSDatacenterBroker extends DatacenterBroker {
 		case PUT_SUBSCRIBER_ONLINE:
 			Subscriber subscriber = (Subscriber) ev.getData();
 			subscriber.setStatus(ConnectivityStatus.ONLINE);
-			Log.printLine(
-					CloudSim.clock() + ": " + getName() + ": Putting subscriber " + subscriber.getId() + " ONLINE");
+			if (Trace.INFO)
+				Trace.record(TraceEvent.SUBSCRIBER_ONLINE, -1, subscriber.getId());
 			resumePausedCloudlets(subscriber.getId());
 			startNewCloudlets(subscriber.getId());
 			break;
 		case PUT_SUBSCRIBER_OFFLINE:
 			subscriber = (Subscriber) ev.getData();
 			subscriber.setStatus(ConnectivityStatus.OFFLINE);
-			Log.printLine(
-					CloudSim.clock() + ": " + getName() + ": Putting subscriber " + subscriber.getId() + " OFFLINE");
+			if (Trace.INFO)
+				Trace.record(TraceEvent.SUBSCRIBER_OFFLINE, -1, subscriber.getId());
+			break;
+		case PUBLISH:
+			processPublication((PublicationSource) ev.getData());
 			break;
 		default:
 			throw new UnsupportedOperationException("Unknow event type");
@@ -362,119 +546,263 @@ public class PSDatacenterBroker extends DatacenterBroker {
 	// OK
 	protected void processCloudletTransmitted(SimEvent ev) {
 		PSCloudlet cloudlet = (PSCloudlet) ev.getData();
-		int cloudletVm = cloudlet.getVmId();
-		String currentNodeId = this.nodeToVmMap.inverse().get(cloudletVm);
+		int path = cloudlet.getPathIndex();
+		int hop = cloudlet.getHopIndex();
 		String pathId = cloudlet.getPathId();
-		PSNetworkPath networkPath = this.psNetwork.getNetworkPathWithPublisher(cloudlet.getPathId());
-		Publisher publisher = networkPath.getPublisher();
+		Publisher publisher = this.routingTable.getPublisher(path);
 
 		if (cloudlet.isOutput()) {
 			getCloudletTransmissionReceivedList().add(cloudlet);
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloudlet " + cloudlet + " received on broker "
-					+ cloudlet.getBrokerId());
 			cloudletsTransmissionSubmitted--;
+			int node = this.psNetwork.getNodeIndex(path, hop);
+			this.nodeMessages[node]--;
 
-			PSCloudlet inCloudlet = this.outToInTasksMap.remove(cloudlet);
-			DeployablePathNode nextBrokerNode = getNextBrokerInPath(pathId, currentNodeId);
 			double DTr = cloudlet.getActualCPUTime();
-			double rt = cloudlet.getFinishTime() - inCloudlet.getSubmissionTime();
-			Pair<String, String> mapKey = Pair.of(cloudlet.getPathId(), cloudlet.getBrokerId());
-			Log.printLine(
-					CloudSim.clock() + ": " + getName() + ": RT for cloudlet " + cloudlet.getCloudletId() + " = " + rt);
+			double rt = cloudlet.getFinishTime() - cloudlet.getInputSubmissionTime();
+			if (Trace.INFO)
+				Trace.record(TraceEvent.OUTPUT_RECEIVED, cloudlet.getCloudletId(), cloudlet.getBrokerId(), rt);
 
 			// Updates statistics
-			if (!this.avgBrokerDTrInPath.containsKey(mapKey)) {
-				this.avgBrokerDTrInPath.put(mapKey, DTr);
-				this.finishedOutTasksPerBrokerInPath.put(mapKey, 1);
-			} else {
-				int finishedTasks = this.finishedOutTasksPerBrokerInPath.get(mapKey) + 1;
-				double avgDTr = (this.avgBrokerDTrInPath.get(mapKey) * (double) (finishedTasks - 1) + DTr)
-						/ (double) finishedTasks;
-				this.avgBrokerDTrInPath.put(mapKey, avgDTr);
-				this.finishedOutTasksPerBrokerInPath.put(mapKey, finishedTasks);
-			}
-			if (!this.avgBrokerRTInPath.containsKey(mapKey)) {
-				this.avgBrokerRTInPath.put(mapKey, rt);
-				this.finishedTasksPerBrokerInPath.put(mapKey, 1);
-			} else {
-				int finishedTasks = this.finishedTasksPerBrokerInPath.get(mapKey) + 1;
-				double avgRT = (this.avgBrokerRTInPath.get(mapKey) * (double) (finishedTasks - 1) + rt)
-						/ (double) finishedTasks;
-				this.avgBrokerRTInPath.put(mapKey, avgRT);
-				this.finishedTasksPerBrokerInPath.put(mapKey, finishedTasks);
-			}
+			this.statistics.addOutput(path, hop, CloudSim.clock(), DTr, rt);
+			this.windowedMetrics.addDeparture(path, hop, CloudSim.clock(), rt);
+			writeResult(cloudlet, cloudlet.getInputSubmissionTime());
 
 			// if there is another broker we need to generate an input task
-			if (nextBrokerNode != null) {
-				int nextVmId = this.nodeToVmMap.get(nextBrokerNode.getTargetNode().getId());
+			if (!this.routingTable.isLastHop(path, hop)) {
+				int nextHop = hop + 1;
 
-				PSCloudlet nextInCloudlet = new PSCloudlet(++PSSimulation.cloudletCount, pathId,
-						nextBrokerNode.getTargetNode().getId(), (long) publisher.getMIpr(), (long) publisher.getBtr(), 1,
-						SimulationConstants.SUBSCRIBE_CLOUDLET_FILESIZE, SimulationConstants.CLOUDLET_OUTPUT_SIZE,
-						new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull(),
-						PSCloudlet.cloudletType.IN, CloudSim.clock());
+				PSCloudlet nextInCloudlet = newCloudlet(pathId, this.routingTable.getBrokerId(path, nextHop),
+						publisher, SimulationConstants.SUBSCRIBE_CLOUDLET_FILESIZE, PSCloudlet.cloudletType.IN,
+						CloudSim.clock());
 
-				getCloudletList().add(nextInCloudlet);
-				nextInCloudlet.setVmId(nextVmId);
+				nextInCloudlet.setVmId(this.routingTable.getVmId(path, nextHop));
 				nextInCloudlet.setUserId(getId());
-				cloudletsSubmitted++;
-				getCloudletSubmittedList().add(nextInCloudlet);
-				sendNow(getVmsToDatacentersMap().get(nextInCloudlet.getVmId()), CloudSimTags.CLOUDLET_SUBMIT,
-						nextInCloudlet);
+				nextInCloudlet.setHop(path, nextHop);
+				nextInCloudlet.setPublicationTime(cloudlet.getPublicationTime());
+
+				// a full next broker makes this one hold the message
+				int nextNode = this.psNetwork.getNodeIndex(path, nextHop);
+				if (isFull(nextNode)) {
+					this.blockedMessages.get(nextNode).add(nextInCloudlet);
+					this.heldMessages[node]++;
+				} else {
+					submitInput(nextInCloudlet);
+				}
+			} else {
+				this.statistics.addDelivery(path, CloudSim.clock(),
+						cloudlet.getFinishTime() - cloudlet.getPublicationTime());
 			}
+			releaseBlocked(node);
+			recycle(cloudlet);
 		} else {
 			throw new IllegalStateException("Invalid operation: the method processCloudletReturn should be used");
 		}
 	}
 
-	private void initPathBrokersMap() {
-		List<PSNetworkPath> paths = this.psNetwork.getPaths();
+	/**
+	 * Process a cloudlet dropped because a queue of its broker is full. An
+	 * input cloudlet is dropped for every branch it would be transmitted to
+	 * 
+	 * @param cloudlet
+	 *            the dropped cloudlet
+	 */
+	protected void processCloudletDropped(PSCloudlet cloudlet) {
+		int path = cloudlet.getPathIndex();
+		int hop = cloudlet.getHopIndex();
+
+		this.statistics.addDrop(path, hop);
+		if (cloudlet.isInput()) {
+			cloudletsSubmitted--;
+			for (int branch : this.routingTable.getBranches(path, hop))
+				this.windowedMetrics.addDrop(branch, hop, CloudSim.clock());
+		} else {
+			cloudletsTransmissionSubmitted--;
+			this.windowedMetrics.addDrop(path, hop, CloudSim.clock());
+		}
+
+		int node = this.psNetwork.getNodeIndex(path, hop);
+		this.nodeMessages[node]--;
+		releaseBlocked(node);
+		recycle(cloudlet);
+	}
 
-		for (PSNetworkPath path : paths) {
-			LinkedList<DeployablePathNode> pathBrokers = path.getBrokersPath();
-			String pathId = path.getPathId();
+	/**
+	 * Creates the cloudlet of a message at a hop, reusing a finished one if
+	 * the retention policy keeps none
+	 * 
+	 * @param pathId
+	 *            the path of the message
+	 * @param brokerId
+	 *            the broker of the hop
+	 * @param publisher
+	 *            the publisher of the message, which gives its length and
+	 *            bytes
+	 * @param fileSize
+	 *            the file size of a new cloudlet. A reused one keeps its own,
+	 *            which is the same for every hop
+	 * @param type
+	 *            if the cloudlet is processed or transmitted
+	 * @param arrivalTime
+	 *            when the cloudlet is created
+	 * @return the cloudlet
+	 */
+	private PSCloudlet newCloudlet(String pathId, String brokerId, Publisher publisher, long fileSize,
+			PSCloudlet.cloudletType type, double arrivalTime) {
+		PSCloudlet cloudlet = cloudletPool != null ? cloudletPool.poll() : null;
+		if (cloudlet == null)
+			return new PSCloudlet(context.nextCloudletId(), pathId, brokerId, (long) publisher.getMIpr(),
+					(long) publisher.getBtr(), 1, fileSize, SimulationConstants.CLOUDLET_OUTPUT_SIZE,
+					UTILIZATION_MODEL, UTILIZATION_MODEL, UTILIZATION_MODEL, type, arrivalTime);
+
+		cloudlet.reset(context.nextCloudletId(), pathId, brokerId, (long) publisher.getMIpr(),
+				(long) publisher.getBtr(), type, arrivalTime);
+		return cloudlet;
+	}
+
+	/**
+	 * Keeps a cloudlet no longer referenced to be reused, if the retention
+	 * policy keeps none
+	 * 
+	 * @param cloudlet
+	 *            the finished or dropped cloudlet
+	 */
+	private void recycle(PSCloudlet cloudlet) {
+		if (cloudletPool != null)
+			cloudletPool.push(cloudlet);
+	}
+
+	/**
+	 * Submits an input cloudlet to the broker of its hop
+	 */
+	private void submitInput(PSCloudlet cloudlet) {
+		int path = cloudlet.getPathIndex();
+		int hop = cloudlet.getHopIndex();
+
+		this.nodeMessages[this.psNetwork.getNodeIndex(path, hop)]++;
+		addArrivals(path, hop);
+		cloudletsSubmitted++;
+		getCloudletSubmittedList().add(cloudlet);
+		sendNow(this.routingTable.getDatacenterId(path, hop), CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+	}
+
+	/**
+	 * Check if a broker with backpressure has no room for another message,
+	 * counting the ones it holds for its next brokers
+	 */
+	private boolean isFull(int node) {
+		QueuePolicy queuePolicy = this.nodePolicies[node];
+		return queuePolicy.isBackpressure()
+				&& this.nodeMessages[node] + this.heldMessages[node] >= queuePolicy.getCapacity();
+	}
+
+	/**
+	 * Submits the messages held for a broker while it has room for them. The
+	 * previous broker holds fewer messages then, so the ones held for it may
+	 * be submitted as well
+	 */
+	private void releaseBlocked(int node) {
+		Queue<PSCloudlet> blocked = this.blockedMessages.get(node);
+		int previous = -1;
+
+		PSCloudlet cloudlet;
+		while (!isFull(node) && (cloudlet = blocked.poll()) != null) {
+			int path = cloudlet.getPathIndex();
+			int hop = cloudlet.getHopIndex() - 1;
+			double blockedTime = CloudSim.clock() - cloudlet.getArrivalTime();
+
+			previous = this.psNetwork.getNodeIndex(path, hop);
+			this.heldMessages[previous]--;
+			this.statistics.addBlocked(path, hop, blockedTime);
+			if (Trace.DEBUG)
+				Trace.record(TraceEvent.MESSAGE_RELEASED, cloudlet.getCloudletId(), cloudlet.getBrokerId(),
+						blockedTime);
+			submitInput(cloudlet);
+		}
+
+		if (previous >= 0)
+			releaseBlocked(previous);
+	}
+
+	/**
+	 * Counts the arrival of a message at a broker in the windowed metrics of
+	 * each branch it will be transmitted to
+	 * 
+	 * @param path
+	 *            the index of the path the message follows
+	 * @param hop
+	 *            the index of the broker in the path
+	 */
+	private void addArrivals(int path, int hop) {
+		for (int branch : this.routingTable.getBranches(path, hop))
+			this.windowedMetrics.addArrival(branch, hop, CloudSim.clock());
+	}
+
+	/**
+	 * Writes the result of a finished hop, if the results of every message
+	 * are kept
+	 * 
+	 * @param cloudlet
+	 *            the finished cloudlet
+	 * @param submissionTime
+	 *            when the message arrived at the broker
+	 */
+	private void writeResult(PSCloudlet cloudlet, double submissionTime) {
+		MessageResultWriter resultWriter = context.getResultWriter();
+		if (resultWriter == null)
+			return;
 
-			this.pathBrokersMap.put(pathId, pathBrokers);
+		try {
+			resultWriter.append(cloudlet.getPathId(), cloudlet.getBrokerId(), cloudlet.isOutput(), submissionTime,
+					cloudlet.getFinishTime(), cloudlet.getActualCPUTime(), cloudlet.getBytes(),
+					cloudlet.getOfflineTime());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the result of cloudlet " + cloudlet.getCloudletId(), e);
 		}
 	}
 
 	/**
 	 * Schedule subscriber change of status (ONLINE or OFFLINE) according with
-	 * an exponential distribution.
+	 * an exponential distribution. A subscriber of several paths is scheduled
+	 * once.
 	 */
 	private void scheduleIntermittence() {
 		List<PSNetworkPath> networkPaths = this.psNetwork.getPaths();
+		Set<String> scheduledSubscribers = new HashSet<>();
 
 		for (PSNetworkPath networkPath : networkPaths) {
 			Subscriber subscriber = networkPath.getSubscriber();
 			double onRate = subscriber.gettON();
 			double offRate = subscriber.gettOFF();
+			boolean scheduled = !scheduledSubscribers.add(subscriber.getId());
 
 			if (onRate > 0.0 && offRate > 0.0) {
 				ExponentialDistribution distON = new ExponentialDistribution(onRate);
 				ExponentialDistribution distOFF = new ExponentialDistribution(offRate);
 
-				double offStart = distON.sample();
-				while (offStart <= SimulationConstants.SIMULATION_INTERVAL) {
-					Log.printLine(CloudSim.clock() + ": " + getName() + ": Subscriber scheduled to go offline at "
-							+ offStart);
-					send(getId(), offStart, PSDatacenterBroker.PUT_SUBSCRIBER_OFFLINE, subscriber);
-
-					double offEnd = offStart + distOFF.sample();
-					if (offEnd <= SimulationConstants.SIMULATION_INTERVAL) {
-						Log.printLine(CloudSim.clock() + ": " + getName() + ": Subscriber scheduled to go online at "
-								+ offEnd);
-						send(getId(), offEnd, PSDatacenterBroker.PUT_SUBSCRIBER_ONLINE, subscriber);
+				if (!scheduled) {
+					double offStart = distON.sample();
+					while (offStart <= SimulationConstants.SIMULATION_INTERVAL) {
+						if (Trace.DEBUG)
+							Trace.record(TraceEvent.SUBSCRIBER_OFFLINE_SCHEDULED, -1, subscriber.getId(), offStart);
+						send(getId(), offStart, PSDatacenterBroker.PUT_SUBSCRIBER_OFFLINE, subscriber);
+
+						double offEnd = offStart + distOFF.sample();
+						if (offEnd <= SimulationConstants.SIMULATION_INTERVAL) {
+							if (Trace.DEBUG)
+								Trace.record(TraceEvent.SUBSCRIBER_ONLINE_SCHEDULED, -1, subscriber.getId(), offEnd);
+							send(getId(), offEnd, PSDatacenterBroker.PUT_SUBSCRIBER_ONLINE, subscriber);
+						}
+
+						offStart = offEnd + distON.sample();
 					}
-
-					offStart = offEnd + distON.sample();
 				}
 
 				this.avgtON.put(networkPath.getPathId(), distON.getMean());
 				this.avgtOFF.put(networkPath.getPathId(), distOFF.getMean());
 			} else if (offRate > 0.0) {
 				// If subscriber is only offline
-				sendNow(getId(), PSDatacenterBroker.PUT_SUBSCRIBER_OFFLINE, subscriber);
+				if (!scheduled)
+					sendNow(getId(), PSDatacenterBroker.PUT_SUBSCRIBER_OFFLINE, subscriber);
 
 				this.avgtON.put(networkPath.getPathId(), 0.0);
 				this.avgtOFF.put(networkPath.getPathId(), offRate);
@@ -486,81 +814,135 @@ public class PSDatacenterBroker extends DatacenterBroker {
 	}
 
 	/**
-	 * Start cloudlets not yet initialized due subscriber disconnection
+	 * Schedule the first publication of each publisher. The following ones are
+	 * scheduled only when the previous publication is submitted. A publisher
+	 * whose paths start at different brokers has a dissemination tree rooted
+	 * at each one, so its publications are submitted to the first path through
+	 * each of those brokers, and the brokers of the trees fan them out to the
+	 * other paths.
 	 */
-	private void startNewCloudlets(String subscriberId) {
-		List<Vm> createdVms = getVmsCreatedList();
-		PSNetworkPath networkPath = this.psNetwork.getNetworkPathWithSubscriber(subscriberId);
+	private void schedulePublications() {
+		Map<String, List<PSNetworkPath>> rootPaths = new LinkedHashMap<>();
+		boolean[] roots = new boolean[this.psNetwork.getNodeCount()];
 
-		for (Vm vm : createdVms) {
-			PSCloudletSchedulerSpaceShared cloudletScheduler = (PSCloudletSchedulerSpaceShared) vm
-					.getCloudletScheduler();
-			Queue<PSCloudlet> newCloudlets = cloudletScheduler.getNewCloudlets();
-
-			int n = newCloudlets.size();
-			for (int i = 0; i < n; i++) {
-				PSCloudlet cloudlet = newCloudlets.element();
-				if (cloudlet.getPathId().equals(networkPath.getPathId())) {
-					cloudletsTransmissionSubmitted++;
-					getCloudletTransmissionSubmittedList().add(cloudlet);
-					sendNow(getVmsToDatacentersMap().get(vm.getId()), PSCloudSimTags.CLOUDLET_TRANSMISSION_START, cloudlet);
-					newCloudlets.remove();
-				}
+		List<PSNetworkPath> networkPaths = this.psNetwork.getPaths();
+		for (int path = 0; path < networkPaths.size(); path++) {
+			int root = this.psNetwork.getNodeIndex(path, 0);
+			if (roots[root])
+				continue;
+
+			roots[root] = true;
+			PSNetworkPath networkPath = networkPaths.get(path);
+			String publisherId = networkPath.getPublisher().getId();
+			List<PSNetworkPath> publisherRoots = rootPaths.get(publisherId);
+			if (publisherRoots == null) {
+				publisherRoots = new ArrayList<>(1);
+				rootPaths.put(publisherId, publisherRoots);
+			}
+			publisherRoots.add(networkPath);
+		}
+
+		for (List<PSNetworkPath> publisherRoots : rootPaths.values()) {
+			Publisher publisher = publisherRoots.get(0).getPublisher();
+			schedulePublication(
+					new PublicationSource(publisher, publisherRoots, SimulationConstants.SIMULATION_INTERVAL));
+		}
+	}
+
+	private void schedulePublication(PublicationSource source) {
+		double arrivalTime = source.nextArrivalTime();
+
+		if (arrivalTime <= SimulationConstants.SIMULATION_INTERVAL)
+			send(getId(), Math.max(0.0, arrivalTime - CloudSim.clock()), PUBLISH, source);
+	}
+
+	private void initSubscriberVmsMap() {
+		this.subscriberVmsMap = new HashMap<>();
+
+		for (int path = 0; path < this.psNetwork.getPaths().size(); path++) {
+			String subscriberId = this.routingTable.getPath(path).getSubscriber().getId();
+			Vm vm = VmList.getById(getVmsCreatedList(),
+					this.routingTable.getVmId(path, this.routingTable.getHops(path) - 1));
+
+			List<Vm> vms = this.subscriberVmsMap.get(subscriberId);
+			if (vms == null) {
+				vms = new ArrayList<>(1);
+				this.subscriberVmsMap.put(subscriberId, vms);
+			}
+			if (!vms.contains(vm))
+				vms.add(vm);
+		}
+	}
+
+	private void initNodeQueues() {
+		int nodes = this.psNetwork.getNodeCount();
+		this.nodePolicies = new QueuePolicy[nodes];
+		this.nodeMessages = new int[nodes];
+		this.heldMessages = new int[nodes];
+		this.blockedMessages = new ArrayList<>(nodes);
+		for (int node = 0; node < nodes; node++)
+			this.blockedMessages.add(new LinkedList<PSCloudlet>());
+
+		List<PSNetworkPath> networkPaths = this.psNetwork.getPaths();
+		for (int path = 0; path < networkPaths.size(); path++) {
+			int hop = 0;
+			for (DeployablePathNode brokerNode : networkPaths.get(path).getBrokersPath()) {
+				EventEntity broker = brokerNode.getTargetNode();
+				this.nodePolicies[this.psNetwork.getNodeIndex(path, hop)] = broker instanceof PSBroker
+						? ((PSBroker) broker).getQueuePolicy() : QueuePolicy.UNBOUNDED;
+				hop++;
 			}
 		}
 	}
 
 	/**
-	 * Resume previously paused cloudlets due subscriber disconnection
+	 * Start cloudlets not yet initialized due subscriber disconnection. Only
+	 * the last-hop VMs of the subscriber are visited, and each one keeps the
+	 * cloudlets of the subscriber apart from the ones of other subscribers
 	 */
-	private void resumePausedCloudlets(String subscriberId) {
-		List<Vm> createdVms = getVmsCreatedList();
-		PSNetworkPath networkPath = this.psNetwork.getNetworkPathWithSubscriber(subscriberId);
+	private void startNewCloudlets(String subscriberId) {
+		List<Vm> subscriberVms = this.subscriberVmsMap.get(subscriberId);
+		if (subscriberVms == null)
+			return;
 
-		for (Vm vm : createdVms) {
+		for (Vm vm : subscriberVms) {
 			PSCloudletSchedulerSpaceShared cloudletScheduler = (PSCloudletSchedulerSpaceShared) vm
 					.getCloudletScheduler();
-			Queue<PSCloudlet> pausedCloudlets = cloudletScheduler.getPausedCloudlets();
-
-			int n = pausedCloudlets.size();
-			for (int i = 0; i < n; i++) {
-				PSCloudlet cloudlet = pausedCloudlets.element();
-				if (cloudlet.getPathId().equals(networkPath.getPathId())) {
-					sendNow(getVmsToDatacentersMap().get(vm.getId()), PSCloudSimTags.CLOUDLET_TRANSMISSION_RESUME, cloudlet);
-					pausedCloudlets.remove();
-				}
+			Queue<PSCloudlet> newCloudlets = cloudletScheduler.getNewCloudlets(subscriberId);
+			int datacenterId = getVmsToDatacentersMap().get(vm.getId());
+
+			PSCloudlet cloudlet;
+			while ((cloudlet = newCloudlets.poll()) != null) {
+				cloudlet.setOnline(CloudSim.clock());
+				cloudletsTransmissionSubmitted++;
+				getCloudletTransmissionSubmittedList().add(cloudlet);
+				sendNow(datacenterId, PSCloudSimTags.CLOUDLET_TRANSMISSION_START, cloudlet);
 			}
 		}
 	}
 
 	/**
-	 * Get next broker in path
-	 * 
-	 * @param pathId
-	 * @param currentNodeId
-	 * @return
+	 * Resume previously paused cloudlets due subscriber disconnection
 	 */
-	private DeployablePathNode getNextBrokerInPath(String pathId, String currentNodeId) {
-		LinkedList<DeployablePathNode> pathBrokers = this.pathBrokersMap.get(pathId);
-
-		boolean found = false;
-		int i = 0;
-		for (; i < pathBrokers.size(); i++) {
-			if (pathBrokers.get(i).getTargetNode().getId().equals(currentNodeId)) {
-				found = true;
-				break;
-			}
-		}
-
-		if (!found)
-			throw new IllegalArgumentException(currentNodeId + " is not part of path " + pathId);
+	private void resumePausedCloudlets(String subscriberId) {
+		List<Vm> subscriberVms = this.subscriberVmsMap.get(subscriberId);
+		if (subscriberVms == null)
+			return;
 
-		if (i + 1 >= pathBrokers.size())
-			return null;
+		for (Vm vm : subscriberVms) {
+			PSCloudletSchedulerSpaceShared cloudletScheduler = (PSCloudletSchedulerSpaceShared) vm
+					.getCloudletScheduler();
+			Queue<PSCloudlet> pausedCloudlets = cloudletScheduler.getPausedCloudlets(subscriberId);
+			int datacenterId = getVmsToDatacentersMap().get(vm.getId());
 
-		return pathBrokers.get(i + 1);
+			PSCloudlet cloudlet;
+			while ((cloudlet = pausedCloudlets.poll()) != null) {
+				cloudlet.setOnline(CloudSim.clock());
+				sendNow(datacenterId, PSCloudSimTags.CLOUDLET_TRANSMISSION_RESUME, cloudlet);
+			}
+		}
 	}
-	
+
 	/**
 	 * Print in the standard log the simulation results.<BR>
 	 * It must be called. Otherwise {@link DatacenterBroker#finishExecution}
@@ -21,7 +21,9 @@ public class PSHost extends Host {
 	public double updateVmsTransmission(double currentTime) {
 		double smallerTime = Double.MAX_VALUE;
 
-		for (Vm vm : getVmList()) {
+		List<Vm> vms = getVmList();
+		for (int i = 0; i < vms.size(); i++) {
+			Vm vm = vms.get(i);
 			double time = ((VmType) vm).updateVmTransmission(currentTime,
 					((PSVmSchedulerSpaceShared) getVmScheduler()).getAllocatedBWForVm(vm));
 			if (time > 0.0 && time < smallerTime) {
@@ -6,7 +6,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Host;
@@ -18,6 +17,8 @@ import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.ProcessingPolicy;
 import br.ufg.inf.mcloudsim.network.DeployablePathNode;
 import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
 import br.ufg.inf.mcloudsim.network.PSNetworkPath;
@@ -28,13 +29,20 @@ public class PSNetworkCreator {
 
 	public static final double DATACENTER_SCHED_INTERVAL = 0.0;
 
-	private static int vmCount = 0;
+	private int vmCount;
 
-	private static Map<String, Vm> firstVmMap = new HashMap<>();
+	private Map<String, Vm> firstVmMap;
 
-	private static Map<String, Vm> nodeToVmMap = new HashMap<>();
+	private Map<String, Vm> nodeToVmMap;
 
-	private static Map<Integer, String> vmToNodeMap = new HashMap<>();
+	private Map<Integer, String> vmToNodeMap;
+
+	private VmTypeRegistry vmTypeRegistry;
+
+	public PSNetworkCreator(VmTypeRegistry vmTypeRegistry) {
+		this.vmTypeRegistry = vmTypeRegistry;
+		reset();
+	}
 
 	/**
 	 * Creates a list of hosts
@@ -117,19 +125,19 @@ public class PSNetworkCreator {
 	}
 
 	/**
-	 * Creates a list of VMs
+	 * Creates a list of VMs. A broker shared by several paths is deployed
+	 * once, in the VM created for the first path through it.
 	 * 
 	 * @param psNetwork
 	 * @param resourceSynthesisResult
 	 * @return the list of VMs
 	 * @throws SimulationCreationException
 	 */
-	public static List<Vm> createVmList(PSNetworkDescriptor psNetwork, ResourceSynthesisResult resourceSynthesisResult,
+	public List<Vm> createVmList(PSNetworkDescriptor psNetwork, ResourceSynthesisResult resourceSynthesisResult,
 			PSDatacenterBroker datacenterBroker) throws SimulationCreationException {
 		List<Vm> vms = new LinkedList<Vm>();
 		List<PSNetworkPath> psNetworkPaths = psNetwork.getPaths();
-		List<String> deployedNodes = new LinkedList<>();
-		VmTypeRegistry vmTypeRegistry = VmTypeRegistry.getInstance();
+		Map<String, Vm> deployedNodes = new HashMap<>();
 
 		for (PSNetworkPath psNetworkPath : psNetworkPaths) {
 			LinkedList<DeployablePathNode> brokersPath = psNetworkPath.getBrokersPath();
@@ -137,8 +145,16 @@ public class PSNetworkCreator {
 			for (DeployablePathNode brokerNode : brokersPath) {
 				String nodeId = brokerNode.getTargetNode().getId();
 
-				if (deployedNodes.contains(nodeId))
-					throw new SimulationCreationException("Broker " + nodeId + " already deployed");
+				// The network descriptor has checked that a shared broker is
+				// in the same position of every path through it
+				Vm vm = deployedNodes.get(nodeId);
+				if (vm != null) {
+					if (firstVm) {
+						firstVmMap.put(psNetworkPath.getPathId(), vm);
+						firstVm = false;
+					}
+					continue;
+				}
 
 				String vmId = resourceSynthesisResult.getVmForBroker(nodeId);
 				VmConfiguration vmDescriptor = vmTypeRegistry.getVmType(vmId);
@@ -146,8 +162,18 @@ public class PSNetworkCreator {
 				if (vmDescriptor == null)
 					throw new SimulationCreationException("VM descriptor for type " + vmId + " not found");
 
-				CloudletScheduler cloudletScheduler = new PSCloudletSchedulerSpaceShared(psNetworkPath, nodeId);
-				Vm vm = new VmType(vmDescriptor.getName(), ++vmCount, datacenterBroker.getId(), vmDescriptor.getMips(),
+				PSCloudletSchedulerSpaceShared cloudletScheduler;
+				if (brokerNode.getTargetNode() instanceof PSBroker) {
+					PSBroker broker = (PSBroker) brokerNode.getTargetNode();
+					cloudletScheduler = broker.getProcessingPolicy() == ProcessingPolicy.TIME_SHARED
+							? new PSCloudletSchedulerTimeShared(nodeId) : new PSCloudletSchedulerSpaceShared(nodeId);
+					cloudletScheduler.setBatchingPolicy(broker.getBatchingPolicy());
+					cloudletScheduler.setQueuePolicy(broker.getQueuePolicy());
+					cloudletScheduler.setTransmissionPolicy(broker.getTransmissionPolicy());
+				} else {
+					cloudletScheduler = new PSCloudletSchedulerSpaceShared(nodeId);
+				}
+				vm = new VmType(vmDescriptor.getName(), ++vmCount, datacenterBroker.getId(), vmDescriptor.getMips(),
 						vmDescriptor.getNumberOfPes(), vmDescriptor.getRam(), vmDescriptor.getBw(),
 						vmDescriptor.getSize(), cloudletScheduler, vmDescriptor.getProvider(), vmDescriptor.getRegion(),
 						vmDescriptor.getPrice());
@@ -161,21 +187,21 @@ public class PSNetworkCreator {
 				}
 				nodeToVmMap.put(nodeId, vm);
 				vmToNodeMap.put(vm.getId(), nodeId);
-				deployedNodes.add(nodeId);
+				deployedNodes.put(nodeId, vm);
 			}
 		}
 
 		return vms;
 	}
 
-	public static Vm getFirstVmOfPath(String pubId) {
+	public Vm getFirstVmOfPath(String pubId) {
 		if (pubId == null || pubId.isEmpty())
 			throw new IllegalArgumentException("Invalid publisher ID");
 
 		return firstVmMap.get(pubId);
 	}
 
-	public static void reset() {
+	public void reset() {
 		vmCount = 0;
 		firstVmMap = new HashMap<>();
 		nodeToVmMap = new HashMap<>();
@@ -9,12 +9,18 @@
 
 package br.ufg.inf.mcloudsim.simulator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.ResCloudlet;
 
 /**
  * It's a extension of {@link ResCloudlet} to process only when subscriber is
- * online.
+ * online. <br>
+ * It may also head a batch: the cloudlets transmitted along with it, whose
+ * bytes and header are added to its own.
  * 
  * @author Raphael Gomes
  *
@@ -24,6 +30,25 @@ public class PSResCloudlet extends ResCloudlet {
 
 	private long cloudletTransmittedSoFar;
 
+	/** Bytes of the transmission, including the batched cloudlets */
+	private long bytes;
+
+	/** Cloudlets transmitted along with this one, or null if not batched */
+	private List<PSResCloudlet> batch;
+
+	/**
+	 * Virtual time of the scheduler at which the transmission finishes. While
+	 * it is being transmitted, the bytes transmitted so far are only brought
+	 * up to date when it stops
+	 */
+	private long virtualFinish;
+
+	/**
+	 * Instructions executed by each PE of a time-shared scheduler, in MI, at
+	 * which the processing finishes
+	 */
+	private double processingFinish;
+
 	/**
 	 * @param cloudlet
 	 *            The cloudlet being managed
@@ -42,11 +67,56 @@ public class PSResCloudlet extends ResCloudlet {
 		// In case a Cloudlet has been executed partially by some other grid
 		// hostList.
 		cloudletTransmittedSoFar = ((PSCloudlet) getCloudlet()).getCloudletTransmittedSoFar();
+		bytes = ((PSCloudlet) getCloudlet()).getBytes();
+	}
+
+	/**
+	 * Transmits another cloudlet along with this one
+	 * 
+	 * @param rcl
+	 *            the cloudlet, not yet transmitted
+	 * @param headerBytes
+	 *            bytes of the batch header, added with the first cloudlet
+	 */
+	public void addToBatch(PSResCloudlet rcl, long headerBytes) {
+		if (batch == null) {
+			batch = new ArrayList<>();
+			bytes += headerBytes;
+		}
+		batch.add(rcl);
+		bytes += rcl.getRemainingCloudletBytes();
+	}
+
+	/**
+	 * @return the cloudlets transmitted along with this one
+	 */
+	public List<PSResCloudlet> getBatch() {
+		return batch != null ? batch : Collections.<PSResCloudlet> emptyList();
+	}
+
+	/**
+	 * @return how many cloudlets this transmission carries
+	 */
+	public int getBatchSize() {
+		return batch != null ? batch.size() + 1 : 1;
+	}
+
+	/**
+	 * Sets the status of this cloudlet and of the ones batched with it
+	 */
+	@Override
+	public boolean setCloudletStatus(int status) {
+		boolean changed = super.setCloudletStatus(status);
+		if (batch != null) {
+			for (PSResCloudlet rcl : batch)
+				rcl.setCloudletStatus(status);
+		}
+		return changed;
 	}
 
 	// OK
 	public long getRemainingCloudletBytes() {
-		long length = (long) (((PSCloudlet) getCloudlet()).getBytes() - cloudletTransmittedSoFar);
+		long length = (long) (bytes - cloudletTransmittedSoFar);
 
 		// Remaining Cloudlet length can't be negative number.
 		if (length < 0) {
@@ -56,6 +126,22 @@ public class PSResCloudlet extends ResCloudlet {
 		return length;
 	}
 
+	public long getVirtualFinish() {
+		return virtualFinish;
+	}
+
+	public void setVirtualFinish(long virtualFinish) {
+		this.virtualFinish = virtualFinish;
+	}
+
+	public double getProcessingFinish() {
+		return processingFinish;
+	}
+
+	public void setProcessingFinish(double processingFinish) {
+		this.processingFinish = processingFinish;
+	}
+
 	// OK
 	public void finalizeCloudletTransmission() {
 		long finished = 0;
@@ -68,12 +154,17 @@ public class PSResCloudlet extends ResCloudlet {
 		}
 
 		((PSCloudlet)getCloudlet()).setCloudletTransmittedSoFar(finished);
+
+		if (batch != null) {
+			for (PSResCloudlet rcl : batch)
+				rcl.finalizeCloudletTransmission();
+		}
 	}
 
 	public void updateCloudletTransmittedSoFar(long bytes) {
 		cloudletTransmittedSoFar += bytes;
 		
-		if (((PSCloudlet)getCloudlet()).getBytes() - cloudletTransmittedSoFar == 1) {
+		if (bytes - cloudletTransmittedSoFar == 1) {
 			cloudletTransmittedSoFar++;
 		}
 	}
@@ -1,34 +1,31 @@
 package br.ufg.inf.mcloudsim.simulator;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.PrintWriter;
 import java.util.Calendar;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
-import org.apache.commons.math3.distribution.PoissonDistribution;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
-import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 
-import br.ufg.inf.mcloudsim.core.EventEntity;
 import br.ufg.inf.mcloudsim.core.PSNetworkRegistry;
 import br.ufg.inf.mcloudsim.core.Publisher;
 import br.ufg.inf.mcloudsim.core.Subscriber;
-import br.ufg.inf.mcloudsim.network.DeployablePathNode;
 import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
 import br.ufg.inf.mcloudsim.network.PSNetworkPath;
 import br.ufg.inf.mcloudsim.network.ResourceSynthesisResult;
+import br.ufg.inf.mcloudsim.network.VmTypeRegistry;
+import br.ufg.inf.mcloudsim.result.MessageResultWriter;
+import br.ufg.inf.mcloudsim.trace.Trace;
+import br.ufg.inf.mcloudsim.utils.LatencyHistogram;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
 
 public class PSSimulation {
 
@@ -38,14 +35,29 @@ public class PSSimulation {
 
 	public static final int NUM_USER = 1;
 
-	protected static int cloudletCount;
+	/** Extension of the trace written along with the simulation log */
+	public static final String TRACE_EXTENSION = ".trace";
+
+	/** Extension of the per-message results written along with the log */
+	public static final String RESULTS_EXTENSION = ".results";
+
+	/** Extension of the file with the windowed metrics of a run */
+	public static final String WINDOWS_EXTENSION = ".windows.csv";
+
+	private SimulationContext context;
 
 	private PSDatacenterBroker datacenterBroker;
 
 	public PSSimulation() {
-		cloudletCount = 0;
-		EventEntity.reset();
-		PSNetworkRegistry.reset();
+		this(new SimulationContext());
+	}
+
+	public PSSimulation(SimulationContext context) {
+		this.context = context;
+	}
+
+	public SimulationContext getContext() {
+		return context;
 	}
 
 	public void setupSimulation(String outputFileName, Class<? extends DatacenterBroker> datacenterBrokerClass,
@@ -54,19 +66,18 @@ public class PSSimulation {
 		try {
 			FileOutputStream fw = new FileOutputStream(outputFileName, false);
 			Log.setOutput(fw);
+			Trace.open(new File(outputFileName + TRACE_EXTENSION));
+			if (SimulationConstants.WRITE_MESSAGE_RESULTS)
+				context.setResultWriter(new MessageResultWriter(new File(outputFileName + RESULTS_EXTENSION)));
 		} catch (IOException e) {
 			Log.printLine("Experiment failed: File " + outputFileName + " not found");
 			throw new SimulationCreationException("Experiment failed: File " + outputFileName + " not found", e);
 		}
 
-		Logger.getRootLogger().setLevel(Level.INFO);
-		Log.disable();
-
+		// Events of the simulation are recorded by the trace, whose level is
+		// given by the system property mcloudsim.trace.level
 		Logger.getRootLogger().setLevel(Level.DEBUG);
-		Log.setOutput(System.out);
-		Log.enable();
-
-		Log.printLine("Starting Experiment...");
+		Log.disable();
 
 		// Initialize the CloudSim package. It should be called
 		// before creating any entities.
@@ -80,10 +91,15 @@ public class PSSimulation {
 		// Datacenters are the resource providers in CloudSim. We need at
 		// list one of them to run a CloudSim simulation
 		PSNetworkCreator.createDatacenter(resourceSynthesisResult);
+		PSNetworkCreator networkCreator = context.getNetworkCreator();
+		PSNetworkRegistry networkRegistry = context.getNetworkRegistry();
 
 		try {
-			datacenterBroker = new PSDatacenterBroker(resourceSynthesisResult.getProvider(), psNetwork);
-			List<Vm> vmlist = PSNetworkCreator.createVmList(psNetwork, resourceSynthesisResult, datacenterBroker);
+			datacenterBroker = new PSDatacenterBroker(resourceSynthesisResult.getProvider(), psNetwork, context);
+			if (SimulationConstants.WRITE_WINDOW_METRICS)
+				datacenterBroker.getWindowedMetrics()
+						.setOutput(new PrintWriter(new File(outputFileName + WINDOWS_EXTENSION)));
+			List<Vm> vmlist = networkCreator.createVmList(psNetwork, resourceSynthesisResult, datacenterBroker);
 			List<PSNetworkPath> networkPaths = psNetwork.getPaths();
 
 			// submit vm list to the broker
@@ -94,24 +110,33 @@ public class PSSimulation {
 				publisher.setRate(rate);
 				Subscriber subscriber = networkPath.getSubscriber();
 
-				// Register entities
-				PSNetworkRegistry.addPublisher(publisher);
-				PSNetworkRegistry.addSubscriber(subscriber);
-
-				List<Cloudlet> cloudletList = createCloudletList(publisher, datacenterBroker.getId(), networkPath);
-
-				// Submit cloudlet list to the broker
-				datacenterBroker.submitCloudletList(cloudletList);
+				// Register entities. Publications are generated by the broker
+				// during the simulation. A publisher of several paths is
+				// registered once
+				if (networkRegistry.getPublisherById(publisher.getId()) == null)
+					networkRegistry.addPublisher(publisher);
+				networkRegistry.addSubscriber(subscriber);
 			}
 		} catch (Exception e) {
 			throw new SimulationCreationException(e.getMessage(), e);
 		}
 	}
 
-	public void runSimulation() {
+	public void runSimulation() throws IOException {
 		CloudSim.terminateSimulation(SimulationConstants.SIMULATION_INTERVAL);
 
-		CloudSim.startSimulation();
+		long start = System.nanoTime();
+		try {
+			CloudSim.startSimulation();
+
+			if (EventProfiler.ENABLED)
+				EventProfiler.report((System.nanoTime() - start) / 1e9);
+		} finally {
+			datacenterBroker.getWindowedMetrics().close(CloudSim.clock());
+			Trace.close();
+			if (context.getResultWriter() != null)
+				context.getResultWriter().close();
+		}
 
 		// Print results when simulation is over
 		// List<Cloudlet> newList = broker.getCloudletReceivedList();
@@ -137,160 +162,110 @@ public class PSSimulation {
 		return datacenterBroker.getAvgRTOfPath(pathId);
 	}
 
-	public double getAvgTON(String pathId) {
-		return datacenterBroker.getAvgTOnOfPath(pathId);
+	/**
+	 * Steady-state RT of a path estimated by batch means within this run
+	 */
+	public RunningStatistics getSteadyStateRTOfPath(String pathId) {
+		return datacenterBroker.getSteadyStateRTOfPath(pathId);
 	}
 
-	public double getAvgTOFF(String pathId) {
-		return datacenterBroker.getAvgTOFFOfPath(pathId);
+	/**
+	 * Percentile of the RT of a broker in a path, e.g. 50, 90, 99 or 99.9
+	 */
+	public double getRTPercentileOfBrokerInPath(String pathId, String brokerId, double percentile) {
+		return getPercentile(datacenterBroker.getRTHistogramMapOfPath(pathId), brokerId, percentile);
 	}
 
-	protected List<Cloudlet> createCloudletList(Publisher publisher, int userId, PSNetworkPath networkPath) {
-		PoissonDistribution distLoad = new PoissonDistribution(publisher.getRate());
-		Random random = new Random(System.currentTimeMillis());
-		List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
-		Vm vm = PSNetworkCreator.getFirstVmOfPath(publisher.getId());
-		String brokerId = networkPath.getBrokersPath().getFirst().getTargetNode().getId();
-
-		// For each second of simulation submit 'rate' requests
-		for (int time = 1; time <= SimulationConstants.SIMULATION_INTERVAL; time++) {
-			// How many events for this iteration
-			int nEvents = distLoad.sample();
-
-			// Events for this iteration
-			while (nEvents >= 1) {
-				double arrivalTime = Math.min(time, (time - 1) + random.nextDouble());
-				PSCloudlet cloudlet = createCloudlet(publisher, userId, arrivalTime, vm, brokerId);
-				cloudletList.add(cloudlet);
-				nEvents--;
-			}
-		}
+	public double getDprPercentileOfBrokerInPath(String pathId, String brokerId, double percentile) {
+		return getPercentile(datacenterBroker.getDPrHistogramMapOfPath(pathId), brokerId, percentile);
+	}
 
-		while (cloudletList.size() > (double) SimulationConstants.SIMULATION_INTERVAL * publisher.getRate()) {
-			int iToRemove = random.nextInt(cloudletList.size());
-			cloudletList.remove(iToRemove);
-		}
+	public double getDtrPercentileOfBrokerInPath(String pathId, String brokerId, double percentile) {
+		return getPercentile(datacenterBroker.getDTrHistogramMapOfPath(pathId), brokerId, percentile);
+	}
 
-		while (cloudletList.size() < (double) SimulationConstants.SIMULATION_INTERVAL * publisher.getRate()) {
-			int iToAdd = cloudletList.isEmpty() ? 0 : random.nextInt(cloudletList.size());
-			double arrivalTime = Math.min(iToAdd + 1, iToAdd + random.nextDouble());
-			PSCloudlet cloudlet = createCloudlet(publisher, userId, arrivalTime, vm, brokerId);
-			cloudletList.add(iToAdd, cloudlet);
-		}
+	private static double getPercentile(Map<String, LatencyHistogram> histogramMapOfPath, String brokerId,
+			double percentile) {
+		LatencyHistogram histogram = histogramMapOfPath.get(brokerId);
+		return histogram != null ? histogram.getPercentile(percentile) : Double.NaN;
+	}
 
-		// System.out.println(distLoad.getMean() + "\t" + cloudletList.size() +
-		// "\t"
-		// + ((double) ExperimentConstants.SIMULATION_INTERVAL *
-		// publisher.getRate()));
+	/**
+	 * Percentile of the end-to-end RT of a path, from the publication to the
+	 * delivery by its last broker
+	 */
+	public double getRTPercentileOfPath(String pathId, double percentile) {
+		return datacenterBroker.getRTHistogramOfPath(pathId).getPercentile(percentile);
+	}
 
-		return cloudletList;
+	public LatencyHistogram getRTHistogramOfBrokerInPath(String pathId, String brokerId) {
+		LatencyHistogram histogram = datacenterBroker.getRTHistogramMapOfPath(pathId).get(brokerId);
+		return histogram != null ? histogram : new LatencyHistogram();
 	}
 
-	private PSCloudlet createCloudlet(Publisher publisher, int userId, double arrivalTime, Vm vm, String brokerId) {
-		PSCloudlet cloudlet = new PSCloudlet(++cloudletCount, publisher.getId(), brokerId, (long) publisher.getMIpr(),
-				(long) publisher.getBtr(), 1, SimulationConstants.PUBLISH_CLOUDLET_FILESIZE,
-				SimulationConstants.CLOUDLET_OUTPUT_SIZE, new UtilizationModelFull(), new UtilizationModelFull(),
-				new UtilizationModelFull(), PSCloudlet.cloudletType.IN, arrivalTime);
-		cloudlet.setUserId(userId);
-		cloudlet.setVmId(vm.getId());
+	public LatencyHistogram getRTHistogramOfPath(String pathId) {
+		return datacenterBroker.getRTHistogramOfPath(pathId);
+	}
 
-		return cloudlet;
+	/**
+	 * Messages dropped by a broker of a path because its queues were full
+	 */
+	public long getDropsOfBrokerInPath(String pathId, String brokerId) {
+		Map<String, Long> dropMapOfPath = datacenterBroker.getDropMapOfPath(pathId);
+		return dropMapOfPath.containsKey(brokerId) ? dropMapOfPath.get(brokerId) : 0;
 	}
 
-	private static String calculateAndFormatStas(Map<String, Double> mapSum, int n) {
-		StringBuilder sb = new StringBuilder();
-		Iterator<String> iterator = mapSum.keySet().iterator();
+	/**
+	 * Time a broker of a path held messages because its next broker was full
+	 */
+	public double getBlockedTimeOfBrokerInPath(String pathId, String brokerId) {
+		Map<String, Double> blockedTimeMapOfPath = datacenterBroker.getBlockedTimeMapOfPath(pathId);
+		return blockedTimeMapOfPath.containsKey(brokerId) ? blockedTimeMapOfPath.get(brokerId) : Double.NaN;
+	}
 
-		while (iterator.hasNext()) {
-			String key = iterator.next();
-			sb.append(key);
-			sb.append("=");
-			double avg = mapSum.get(key) / (double) n;
-			sb.append(String.format("%.4f", avg));
+	/**
+	 * Mean number of messages transmitted together by a broker
+	 */
+	public double getMeanBatchSizeOfBroker(String brokerId) {
+		return datacenterBroker.getMeanBatchSize(brokerId);
+	}
 
-			if (iterator.hasNext())
-				sb.append(", ");
-		}
+	/**
+	 * Metrics of the brokers over windows of simulation time
+	 */
+	public WindowedMetrics getWindowedMetrics() {
+		return datacenterBroker.getWindowedMetrics();
+	}
 
-		return sb.toString();
+	public double getAvgTON(String pathId) {
+		return datacenterBroker.getAvgTOnOfPath(pathId);
+	}
+
+	public double getAvgTOFF(String pathId) {
+		return datacenterBroker.getAvgTOFFOfPath(pathId);
 	}
 
 	public static void main(String[] args) {
-		PSNetworkDescriptor psNetwork = null;
-		List<ResourceSynthesisResult> resourceSynthesisResult = null;
+		// Replications read the descriptor again, it is only validated here
 		try {
-			psNetwork = XmlReader.readNetworkDescriptor(SimulationConstants.PS_NETWORK_DESCRIPTOR);
-			resourceSynthesisResult = XmlReader.readResourceSynthesisResults(SimulationConstants.PS_NETWORK_DESCRIPTOR);
+			XmlReader.readNetworkDescriptor(SimulationConstants.PS_NETWORK_DESCRIPTOR);
+			XmlReader.readResourceSynthesisResults(SimulationConstants.PS_NETWORK_DESCRIPTOR, new VmTypeRegistry());
 		} catch (XmlParserException e1) {
 			e1.printStackTrace();
 			System.exit(-1);
 		}
 
-		// Using a single path
-		for (int i = 0; i < SimulationConstants.PUBLISH_RATE.length; i++) {
-			Map<String, Double> DprSum = new HashMap<>();
-			Map<String, Double> DtrSum = new HashMap<>();
-			Map<String, Double> brokerRTSum = new HashMap<>();
-			double rtSum = 0.0;
-
-			for (int k = 0; k < SimulationConstants.EXPERIMENT_RUNS; k++) {
-				try {
-					PSSimulation simulation = new PSSimulation();
-
-					simulation.setupSimulation(
-							"results/ps" + SimulationConstants.PUBLISH_RATE[i] + "" + (k + 1) + ".txt",
-							PSDatacenterBroker.class, psNetwork, resourceSynthesisResult.get(0),
-							SimulationConstants.PUBLISH_RATE[i]);
-
-					simulation.runSimulation();
-
-					List<PSNetworkPath> networkPaths = psNetwork.getPaths();
-					String singlePath = null;
-
-					for (PSNetworkPath networkPath : networkPaths) {
-						String pathId = networkPath.getPathId();
-						singlePath = pathId;
-						LinkedList<DeployablePathNode> brokers = networkPath.getBrokersPath();
-						double rt = simulation.getAvgRTOfPath(pathId);
-
-						for (DeployablePathNode brokerNode : brokers) {
-							String brokerId = brokerNode.getTargetNode().getId();
-							double Dpr = simulation.getAvgDprOfBrokerInPath(pathId, brokerId);
-							double Dtr = simulation.getAvgDtrOfBrokerInPath(pathId, brokerId);
-							double brokerRT = simulation.getAvgRTOfBrokerInPath(pathId, brokerId);
-
-							if (!DprSum.containsKey(brokerId))
-								DprSum.put(brokerId, Dpr);
-							else
-								DprSum.put(brokerId, DprSum.get(brokerId) + Dpr);
-							if (!DtrSum.containsKey(brokerId))
-								DtrSum.put(brokerId, Dtr);
-							else
-								DtrSum.put(brokerId, DtrSum.get(brokerId) + Dtr);
-							if (!brokerRTSum.containsKey(brokerId))
-								brokerRTSum.put(brokerId, brokerRT);
-							else
-								brokerRTSum.put(brokerId, brokerRTSum.get(brokerId) + brokerRT);
-						}
-
-						rtSum += Double.isNaN(rt) ? 0.0 : rt;
-					}
-					logger.debug("Valid run #" + (k + 1) + "\t" + SimulationConstants.PUBLISH_RATE[i] + "\t"
-							+ calculateAndFormatStas(DprSum, k + 1) + "\t" + calculateAndFormatStas(DtrSum, k + 1)
-							+ "\t" + simulation.getAvgTON(singlePath) + "\t" + simulation.getAvgTOFF(singlePath) + "\t"
-							+ (rtSum != 0.0 ? rtSum / (k + 1) : Double.NaN));
-				} catch (Exception e) {
-					logger.debug("Exception\t");
-					e.printStackTrace();
-					// Invalid run. It should be performed again
-					k--;
-					// System.exit(-1);
-				}
-			}
-			logger.info(SimulationConstants.PUBLISH_RATE[i] + "\t"
-					+ calculateAndFormatStas(DprSum, SimulationConstants.EXPERIMENT_RUNS) + "\t"
-					+ calculateAndFormatStas(DtrSum, SimulationConstants.EXPERIMENT_RUNS) + "\t"
-					+ (rtSum != 0.0 ? rtSum / SimulationConstants.EXPERIMENT_RUNS : Double.NaN));
+		int threads = Runtime.getRuntime().availableProcessors();
+		ParallelExperimentRunner runner = new ParallelExperimentRunner(SimulationConstants.PS_NETWORK_DESCRIPTOR,
+				threads);
+		ReplicationController controller = new ReplicationController(runner, threads);
+
+		try {
+			controller.run(SimulationConstants.PUBLISH_RATE);
+			runner.shutdown();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			System.exit(-1);
 		}
 	}
 }
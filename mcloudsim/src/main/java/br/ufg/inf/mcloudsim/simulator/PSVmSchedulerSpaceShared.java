@@ -13,8 +13,8 @@ public class PSVmSchedulerSpaceShared extends VmSchedulerSpaceShared {
 		super(pelist);
 	}
 	
-	public Double getAllocatedBWForVm(Vm vm) {
-		return (double) vm.getBw();
+	public double getAllocatedBWForVm(Vm vm) {
+		return vm.getBw();
 	}
 
 }
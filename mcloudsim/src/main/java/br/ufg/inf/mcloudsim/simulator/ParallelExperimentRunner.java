@@ -0,0 +1,154 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs simulation replications concurrently. <br>
+ * Every worker thread loads the simulator through its own
+ * {@link SimulationClassLoader} and performs its replications one after
+ * another, so the static state of CloudSim is never shared between threads.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ParallelExperimentRunner {
+
+	private static Logger logger = Logger.getLogger(ParallelExperimentRunner.class.getName());
+
+	private String descriptorFile;
+
+	private ExecutorService executor;
+
+	private CompletionService<ReplicationResult> completionService;
+
+	private ThreadLocal<ClassLoader> workerClassLoader;
+
+	private int maxAttempts;
+
+	/**
+	 * @param descriptorFile
+	 *            the file with the pub/sub network description
+	 * @param threads
+	 *            how many replications are performed at the same time
+	 * @param maxAttempts
+	 *            how many times a run is attempted before it fails
+	 */
+	public ParallelExperimentRunner(String descriptorFile, int threads, int maxAttempts) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		if (maxAttempts <= 0)
+			throw new IllegalArgumentException("Invalid number of attempts: " + maxAttempts);
+
+		this.descriptorFile = descriptorFile;
+		this.maxAttempts = maxAttempts;
+		this.executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+		this.completionService = new ExecutorCompletionService<>(this.executor);
+		final ClassLoader parent = ParallelExperimentRunner.class.getClassLoader();
+		this.workerClassLoader = new ThreadLocal<ClassLoader>() {
+			@Override
+			protected ClassLoader initialValue() {
+				return new SimulationClassLoader(parent, ReplicationResult.class);
+			}
+		};
+	}
+
+	public ParallelExperimentRunner(String descriptorFile, int threads) {
+		this(descriptorFile, threads, SimulationConstants.MAX_RUN_ATTEMPTS);
+	}
+
+	/**
+	 * Schedules a replication. A run that throws an exception is performed
+	 * again, up to the maximum number of attempts. Then it fails: the
+	 * exception of the last attempt is thrown by {@link Future#get()}.
+	 * 
+	 * @param rate
+	 *            the publish rate
+	 * @param run
+	 *            the run number
+	 * @param outputFileName
+	 *            the file with the simulation log
+	 * @return the result of the replication
+	 */
+	public Future<ReplicationResult> submit(final double rate, final int run, final String outputFileName) {
+		return this.completionService.submit(new Callable<ReplicationResult>() {
+			@Override
+			public ReplicationResult call() throws Exception {
+				for (int attempt = 1;; attempt++) {
+					try {
+						return runIsolated(rate, run, outputFileName);
+					} catch (Exception e) {
+						logger.warn("Exception\t" + rate + "\t" + run + "\tattempt " + attempt + "/" + maxAttempts, e);
+						if (attempt >= maxAttempts)
+							throw e;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits the next replication to finish, in order of completion.
+	 * 
+	 * @return the replication, which may have failed
+	 */
+	public Future<ReplicationResult> take() throws InterruptedException {
+		return this.completionService.take();
+	}
+
+	/**
+	 * Waits the scheduled replications and releases the threads.
+	 */
+	public void shutdown() throws InterruptedException {
+		this.executor.shutdown();
+		this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ReplicationResult runIsolated(double rate, int run, String outputFileName) throws Exception {
+		ClassLoader classLoader = this.workerClassLoader.get();
+		Class<?> taskClass = Class.forName(ReplicationTask.class.getName(), true, classLoader);
+		Callable<ReplicationResult> task = (Callable<ReplicationResult>) taskClass
+				.getConstructor(String.class, double.class, int.class, String.class)
+				.newInstance(this.descriptorFile, rate, run, outputFileName);
+
+		Thread thread = Thread.currentThread();
+		ClassLoader previous = thread.getContextClassLoader();
+		thread.setContextClassLoader(classLoader);
+		try {
+			return task.call();
+		} finally {
+			thread.setContextClassLoader(previous);
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "simulation-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
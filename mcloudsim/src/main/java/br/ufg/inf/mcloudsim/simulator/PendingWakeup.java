@@ -0,0 +1,97 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+/**
+ * The wakeup an entity has pending for itself with a given tag. At most one
+ * such event is kept in the future event queue: a wakeup requested after the
+ * pending one is not scheduled, since the entity updates itself at the pending
+ * one and asks again for the next, and a wakeup requested before it takes its
+ * place. The events of the replaced wakeups are not cancelled, which would
+ * scan the future event queue, but are told apart and ignored when they
+ * arrive, as is a second event at the time of a wakeup already done.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class PendingWakeup {
+
+	/** Time of the pending wakeup, or infinity if there is none */
+	private double time;
+
+	/**
+	 * Wakeups requested, i.e. the events sent without coalescing, wakeups
+	 * scheduled and stale events ignored
+	 */
+	private long requested;
+	private long scheduled;
+	private long stale;
+
+	public PendingWakeup() {
+		this.time = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Requests a wakeup
+	 *
+	 * @param wakeupTime
+	 *            the simulation time to wake up at
+	 * @return if an event must be scheduled for it, or false if the pending
+	 *         wakeup is not later
+	 */
+	public boolean request(double wakeupTime) {
+		requested++;
+		if (wakeupTime >= time)
+			return false;
+
+		time = wakeupTime;
+		scheduled++;
+		return true;
+	}
+
+	/**
+	 * Checks an arriving wakeup event. The pending wakeup is no longer pending
+	 * once its event arrives. The event of the pending wakeup is scheduled at
+	 * exactly its time, so any other event is stale.
+	 *
+	 * @param eventTime
+	 *            the time of the event
+	 * @return if it is the pending wakeup, or false if it was replaced by an
+	 *         earlier one or the wakeup of its time was already done
+	 */
+	public boolean arrive(double eventTime) {
+		if (eventTime != time) {
+			stale++;
+			return false;
+		}
+
+		time = Double.POSITIVE_INFINITY;
+		return true;
+	}
+
+	/**
+	 * @return the time of the pending wakeup, or infinity if there is none
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	public long getRequested() {
+		return requested;
+	}
+
+	public long getScheduled() {
+		return scheduled;
+	}
+
+	public long getStale() {
+		return stale;
+	}
+}
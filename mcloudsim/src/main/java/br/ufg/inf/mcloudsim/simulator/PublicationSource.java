@@ -0,0 +1,79 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.List;
+import java.util.Random;
+
+import br.ufg.inf.mcloudsim.arrival.ArrivalProcess;
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+
+/**
+ * Generates the publications of a publisher one at a time, according with its
+ * {@link ArrivalProcess}. Only the next arrival is known at any moment, so
+ * memory does not depend on the simulation interval. <br>
+ * Each publication is submitted to the root of every dissemination tree of the
+ * publisher, i.e. to the first broker of each of its paths, represented by the
+ * first path through it.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class PublicationSource {
+
+	private Publisher publisher;
+	private List<PSNetworkPath> rootPaths;
+	private ArrivalProcess arrivalProcess;
+
+	/**
+	 * @param publisher
+	 *            the publisher generating the publications
+	 * @param rootPaths
+	 *            the first path through each first broker of the publisher
+	 * @param interval
+	 *            how long the publisher generates publications
+	 */
+	public PublicationSource(Publisher publisher, List<PSNetworkPath> rootPaths, double interval) {
+		if (rootPaths.isEmpty())
+			throw new IllegalArgumentException("Publisher " + publisher.getId() + " has no path");
+
+		this.publisher = publisher;
+		this.rootPaths = rootPaths;
+		this.arrivalProcess = publisher.getArrivalProcess();
+		this.arrivalProcess.start(publisher.getRate(), interval, new Random());
+	}
+
+	/**
+	 * @return the first path through each first broker of the publisher
+	 */
+	public List<PSNetworkPath> getRootPaths() {
+		return rootPaths;
+	}
+
+	public Publisher getPublisher() {
+		return publisher;
+	}
+
+	/**
+	 * Generates the arrival time of the next publication
+	 * 
+	 * @return the arrival time or {@link Double#NaN} if the publisher will not
+	 *         generate more publications
+	 */
+	public double nextArrivalTime() {
+		return arrivalProcess.nextArrivalTime();
+	}
+
+	@Override
+	public String toString() {
+		return "Publications of " + publisher + " (" + arrivalProcess + ")";
+	}
+}
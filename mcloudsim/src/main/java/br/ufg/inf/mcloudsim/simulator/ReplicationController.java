@@ -0,0 +1,201 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Performs the replications of a sweep of publish rates with sequential
+ * stopping. <br>
+ * Each rate runs until the relative half-width of the confidence interval of
+ * the path RT reaches the target, after a minimum and up to a maximum number
+ * of runs. The interval is given by the steady-state RT of each run. Free
+ * threads always go to the rate with the widest interval, so rates near
+ * saturation, which converge slowly, get most of the CPU time.
+ * Failed runs are counted apart and do not contribute to the statistics.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationController {
+
+	/** Percentiles of the end-to-end RT reported for each rate */
+	private static final double[] REPORTED_PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private static Logger logger = Logger.getLogger(ReplicationController.class.getName());
+
+	private ParallelExperimentRunner runner;
+	private int threads;
+
+	private int minRuns;
+	private int maxRuns;
+	private int maxFailedRuns;
+	private double confidence;
+	private double targetRelativeHalfWidth;
+
+	/**
+	 * @param runner
+	 *            the runner that performs the replications
+	 * @param threads
+	 *            how many replications are kept running at the same time
+	 * @param minRuns
+	 *            minimum number of runs of each rate
+	 * @param maxRuns
+	 *            maximum number of runs of each rate
+	 * @param maxFailedRuns
+	 *            a rate is abandoned after this number of failed runs
+	 * @param confidence
+	 *            confidence level of the path RT
+	 * @param targetRelativeHalfWidth
+	 *            target half-width of the confidence interval, relative to
+	 *            the mean
+	 */
+	public ReplicationController(ParallelExperimentRunner runner, int threads, int minRuns, int maxRuns,
+			int maxFailedRuns, double confidence, double targetRelativeHalfWidth) {
+		if (minRuns < 1 || maxRuns < minRuns)
+			throw new IllegalArgumentException("Invalid number of runs: " + minRuns + ".." + maxRuns);
+
+		this.runner = runner;
+		this.threads = threads;
+		this.minRuns = minRuns;
+		this.maxRuns = maxRuns;
+		this.maxFailedRuns = maxFailedRuns;
+		this.confidence = confidence;
+		this.targetRelativeHalfWidth = targetRelativeHalfWidth;
+	}
+
+	public ReplicationController(ParallelExperimentRunner runner, int threads) {
+		this(runner, threads, SimulationConstants.MIN_EXPERIMENT_RUNS, SimulationConstants.MAX_EXPERIMENT_RUNS,
+				SimulationConstants.MAX_FAILED_RUNS, SimulationConstants.CONFIDENCE_LEVEL,
+				SimulationConstants.TARGET_RELATIVE_HALF_WIDTH);
+	}
+
+	/**
+	 * Performs the replications of every rate
+	 * 
+	 * @param rates
+	 *            the publish rates
+	 * @return the statistics of each rate, in the order of the rates
+	 */
+	public List<ReplicationStatistics> run(double[] rates) throws InterruptedException {
+		List<ReplicationStatistics> sweep = new ArrayList<>();
+		for (double rate : rates)
+			sweep.add(new ReplicationStatistics(rate));
+
+		Map<Future<ReplicationResult>, ReplicationStatistics> pending = new HashMap<>();
+
+		while (true) {
+			while (pending.size() < threads) {
+				ReplicationStatistics point = selectNext(sweep);
+				if (point == null)
+					break;
+
+				int run = point.scheduleRun();
+				pending.put(runner.submit(point.getRate(), run, "results/ps" + point.getRate() + "" + run + ".txt"),
+						point);
+			}
+
+			if (pending.isEmpty())
+				break;
+
+			Future<ReplicationResult> future = runner.take();
+			ReplicationStatistics point = pending.remove(future);
+			try {
+				ReplicationResult result = future.get();
+				point.addResult(result);
+				logger.debug("Valid run #" + result.getRun() + "\t" + point.getRate() + "\t"
+						+ ReplicationStatistics.formatMeans(point.getBrokerDPr()) + "\t"
+						+ ReplicationStatistics.formatMeans(point.getBrokerDTr()) + "\t"
+						+ ReplicationStatistics.formatMeans(point.getPathTON()) + "\t"
+						+ ReplicationStatistics.formatMeans(point.getPathTOFF()) + "\t" + point.getAvgRT() + "\t"
+						+ result.getPathSteadyStateRT() + " +/- " + result.getPathSteadyStateRTHalfWidth());
+			} catch (ExecutionException e) {
+				point.addFailure();
+				logger.warn("Failed run\t" + point.getRate() + "\t" + point.getFailedRuns() + " failure(s)",
+						e.getCause());
+			}
+
+			if (point.getPendingRuns() == 0 && isFinished(point))
+				report(point);
+		}
+
+		return sweep;
+	}
+
+	/**
+	 * Selects the rate that receives the next run: first the rates without
+	 * the minimum number of runs, then the rate with the widest interval.
+	 * 
+	 * @return the rate or null if no rate needs more runs now
+	 */
+	private ReplicationStatistics selectNext(List<ReplicationStatistics> sweep) {
+		ReplicationStatistics selected = null;
+		double widest = 0.0;
+
+		for (ReplicationStatistics point : sweep) {
+			if (isFinished(point))
+				continue;
+
+			int scheduled = point.getCompletedRuns() + point.getPendingRuns();
+			if (scheduled >= maxRuns)
+				continue;
+
+			if (scheduled < minRuns)
+				return point;
+			if (point.getCompletedRuns() < minRuns)
+				continue;
+
+			// runs still needed, assuming the half-width decreases with the
+			// square root of the number of runs
+			double relativeHalfWidth = point.getRelativeHalfWidth(confidence);
+			double ratio = relativeHalfWidth / targetRelativeHalfWidth;
+			double needed = Math.max(1.0, point.getCompletedRuns() * (ratio * ratio - 1.0));
+			if (point.getPendingRuns() >= needed)
+				continue;
+
+			if (selected == null || relativeHalfWidth > widest) {
+				selected = point;
+				widest = relativeHalfWidth;
+			}
+		}
+
+		return selected;
+	}
+
+	private boolean isFinished(ReplicationStatistics point) {
+		if (point.getFailedRuns() >= maxFailedRuns || point.getCompletedRuns() >= maxRuns)
+			return true;
+
+		return point.getCompletedRuns() >= minRuns
+				&& point.getRelativeHalfWidth(confidence) <= targetRelativeHalfWidth;
+	}
+
+	private void report(ReplicationStatistics point) {
+		logger.info(point.getRate() + "\t" + ReplicationStatistics.formatMeans(point.getBrokerDPr()) + "\t"
+				+ ReplicationStatistics.formatMeans(point.getBrokerDTr()) + "\t" + point.getAvgRT() + "\t"
+				+ ReplicationStatistics.formatMeans(point.getPathSteadyStateRT()) + "\t"
+				+ String.format("%.4f", point.getRelativeHalfWidth(confidence)) + "\t" + point.getCompletedRuns()
+				+ " run(s)\t" + point.getFailedRuns() + " failure(s)");
+		logger.info(point.getRate() + "\tRT percentiles\t"
+				+ ReplicationStatistics.formatPercentiles(point.getPathRTHistogram(), REPORTED_PERCENTILES));
+		logger.debug(point.getRate() + "\tRT batch means\t"
+				+ ReplicationStatistics.formatMeans(point.getPathRTBatches()));
+
+		if (point.getFailedRuns() >= maxFailedRuns)
+			logger.warn("Rate " + point.getRate() + " abandoned after " + point.getFailedRuns() + " failed runs");
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of a single simulation run. <br>
+ * Instances cross the boundary between the isolated class loaders used by
+ * {@link ParallelExperimentRunner}, so this class must only reference types of
+ * the Java platform.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationResult {
+
+	private double rate;
+	private int run;
+
+	/** Average RT of each path */
+	private Map<String, Double> pathRT;
+
+	/**
+	 * Steady-state RT of each path estimated by batch means, and the
+	 * half-width of its confidence interval
+	 */
+	private Map<String, Double> pathSteadyStateRT;
+	private Map<String, Double> pathSteadyStateRTHalfWidth;
+
+	/**
+	 * Statistics of the batch means of the RT of each path after warm-up,
+	 * exported by {@link br.ufg.inf.mcloudsim.utils.RunningStatistics#toArray()}
+	 */
+	private Map<String, double[]> pathSteadyStateRTBatches;
+
+	/** Average tON and tOFF of each path */
+	private Map<String, Double> pathTON;
+	private Map<String, Double> pathTOFF;
+
+	/**
+	 * Average service demands and RT of each broker in each path, keyed by
+	 * {@link #getBrokerKey(String, String)}: a broker shared by several paths
+	 * has a value for each of them
+	 */
+	private Map<String, Double> brokerDPr;
+	private Map<String, Double> brokerDTr;
+	private Map<String, Double> brokerRT;
+
+	/**
+	 * Histograms of the end-to-end RT of each path and of the RT of each
+	 * broker in each path, exported by {@link br.ufg.inf.mcloudsim.utils.LatencyHistogram#toArray()}
+	 */
+	private Map<String, long[]> pathRTHistogram;
+	private Map<String, long[]> brokerRTHistogram;
+
+	public ReplicationResult(double rate, int run) {
+		this.rate = rate;
+		this.run = run;
+		this.pathRT = new LinkedHashMap<>();
+		this.pathSteadyStateRT = new LinkedHashMap<>();
+		this.pathSteadyStateRTHalfWidth = new LinkedHashMap<>();
+		this.pathSteadyStateRTBatches = new LinkedHashMap<>();
+		this.pathTON = new LinkedHashMap<>();
+		this.pathTOFF = new LinkedHashMap<>();
+		this.brokerDPr = new LinkedHashMap<>();
+		this.brokerDTr = new LinkedHashMap<>();
+		this.brokerRT = new LinkedHashMap<>();
+		this.pathRTHistogram = new LinkedHashMap<>();
+		this.brokerRTHistogram = new LinkedHashMap<>();
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public int getRun() {
+		return run;
+	}
+
+	public void addPath(String pathId, double rt, Double tON, Double tOFF) {
+		this.pathRT.put(pathId, rt);
+		this.pathTON.put(pathId, tON);
+		this.pathTOFF.put(pathId, tOFF);
+	}
+
+	/**
+	 * @param batches
+	 *            statistics of the batch means of the path RT after warm-up,
+	 *            exported to an array
+	 */
+	public void addSteadyState(String pathId, double rt, double halfWidth, double[] batches) {
+		this.pathSteadyStateRT.put(pathId, rt);
+		this.pathSteadyStateRTHalfWidth.put(pathId, halfWidth);
+		this.pathSteadyStateRTBatches.put(pathId, batches);
+	}
+
+	public void addBroker(String pathId, String brokerId, double DPr, double DTr, double rt) {
+		String key = getBrokerKey(pathId, brokerId);
+		this.brokerDPr.put(key, DPr);
+		this.brokerDTr.put(key, DTr);
+		this.brokerRT.put(key, rt);
+	}
+
+	public void addPathHistogram(String pathId, long[] rtHistogram) {
+		this.pathRTHistogram.put(pathId, rtHistogram);
+	}
+
+	public void addBrokerHistogram(String pathId, String brokerId, long[] rtHistogram) {
+		this.brokerRTHistogram.put(getBrokerKey(pathId, brokerId), rtHistogram);
+	}
+
+	/**
+	 * Key of the values of a broker in a path
+	 */
+	public static String getBrokerKey(String pathId, String brokerId) {
+		return pathId + "/" + brokerId;
+	}
+
+	public Map<String, Double> getPathRT() {
+		return Collections.unmodifiableMap(pathRT);
+	}
+
+	public Map<String, Double> getPathSteadyStateRT() {
+		return Collections.unmodifiableMap(pathSteadyStateRT);
+	}
+
+	public Map<String, Double> getPathSteadyStateRTHalfWidth() {
+		return Collections.unmodifiableMap(pathSteadyStateRTHalfWidth);
+	}
+
+	public Map<String, double[]> getPathSteadyStateRTBatches() {
+		return Collections.unmodifiableMap(pathSteadyStateRTBatches);
+	}
+
+	public Map<String, Double> getPathTON() {
+		return Collections.unmodifiableMap(pathTON);
+	}
+
+	public Map<String, Double> getPathTOFF() {
+		return Collections.unmodifiableMap(pathTOFF);
+	}
+
+	public Map<String, Double> getBrokerDPr() {
+		return Collections.unmodifiableMap(brokerDPr);
+	}
+
+	public Map<String, Double> getBrokerDTr() {
+		return Collections.unmodifiableMap(brokerDTr);
+	}
+
+	public Map<String, Double> getBrokerRT() {
+		return Collections.unmodifiableMap(brokerRT);
+	}
+
+	public Map<String, long[]> getPathRTHistogram() {
+		return Collections.unmodifiableMap(pathRTHistogram);
+	}
+
+	public Map<String, long[]> getBrokerRTHistogram() {
+		return Collections.unmodifiableMap(brokerRTHistogram);
+	}
+
+	@Override
+	public String toString() {
+		return "Run #" + run + " (" + rate + "): RT=" + pathRT + "; steady-state RT=" + pathSteadyStateRT + " +/- "
+				+ pathSteadyStateRTHalfWidth + "; DPr=" + brokerDPr + "; DTr=" + brokerDTr;
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import br.ufg.inf.mcloudsim.utils.LatencyHistogram;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+
+/**
+ * Statistics of the replications of a single publish rate. Only the running
+ * mean and variance of each metric and the merged RT histograms are kept, not
+ * the results of the runs. <br>
+ * The confidence interval of the path RT is given by the steady-state means
+ * of the runs, one observation per run, since only the runs are independent.
+ * The batch means of each run are autocorrelated, e.g. by the ON/OFF periods
+ * of the subscribers, so their pooled statistics are only a diagnostic.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationStatistics {
+
+	private double rate;
+
+	private int completedRuns;
+	private int failedRuns;
+
+	/** Runs scheduled and not finished yet */
+	private int pendingRuns;
+
+	/** Number of the last scheduled run */
+	private int lastRun;
+
+	private Map<String, RunningStatistics> pathRT;
+
+	/** Steady-state RT of each path, estimated by batch means in each run */
+	private Map<String, RunningStatistics> pathSteadyStateRT;
+
+	/**
+	 * Batch means of the RT of each path after warm-up, pooled across runs.
+	 * Not used to stop the runs.
+	 */
+	private Map<String, RunningStatistics> pathRTBatches;
+
+	private Map<String, RunningStatistics> pathTON;
+	private Map<String, RunningStatistics> pathTOFF;
+	private Map<String, RunningStatistics> brokerDPr;
+	private Map<String, RunningStatistics> brokerDTr;
+	private Map<String, RunningStatistics> brokerRT;
+
+	/** RT histograms merged across the runs */
+	private Map<String, LatencyHistogram> pathRTHistogram;
+	private Map<String, LatencyHistogram> brokerRTHistogram;
+
+	public ReplicationStatistics(double rate) {
+		this.rate = rate;
+		this.pathRT = new LinkedHashMap<>();
+		this.pathSteadyStateRT = new LinkedHashMap<>();
+		this.pathRTBatches = new LinkedHashMap<>();
+		this.pathTON = new LinkedHashMap<>();
+		this.pathTOFF = new LinkedHashMap<>();
+		this.brokerDPr = new LinkedHashMap<>();
+		this.brokerDTr = new LinkedHashMap<>();
+		this.brokerRT = new LinkedHashMap<>();
+		this.pathRTHistogram = new LinkedHashMap<>();
+		this.brokerRTHistogram = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Schedules a new run
+	 * 
+	 * @return the run number
+	 */
+	public int scheduleRun() {
+		pendingRuns++;
+		return ++lastRun;
+	}
+
+	public void addResult(ReplicationResult result) {
+		pendingRuns--;
+		completedRuns++;
+
+		add(pathRT, result.getPathRT());
+		add(pathSteadyStateRT, result.getPathSteadyStateRT());
+		pool(pathRTBatches, result.getPathSteadyStateRTBatches());
+		add(pathTON, result.getPathTON());
+		add(pathTOFF, result.getPathTOFF());
+		add(brokerDPr, result.getBrokerDPr());
+		add(brokerDTr, result.getBrokerDTr());
+		add(brokerRT, result.getBrokerRT());
+		merge(pathRTHistogram, result.getPathRTHistogram());
+		merge(brokerRTHistogram, result.getBrokerRTHistogram());
+	}
+
+	public void addFailure() {
+		pendingRuns--;
+		failedRuns++;
+	}
+
+	private static void add(Map<String, RunningStatistics> statistics, Map<String, Double> values) {
+		for (Map.Entry<String, Double> entry : values.entrySet()) {
+			RunningStatistics stat = statistics.get(entry.getKey());
+			if (stat == null) {
+				stat = new RunningStatistics();
+				statistics.put(entry.getKey(), stat);
+			}
+			if (entry.getValue() != null)
+				stat.add(entry.getValue());
+		}
+	}
+
+	private static void pool(Map<String, RunningStatistics> statistics, Map<String, double[]> values) {
+		for (Map.Entry<String, double[]> entry : values.entrySet()) {
+			RunningStatistics stat = statistics.get(entry.getKey());
+			if (stat == null) {
+				stat = new RunningStatistics();
+				statistics.put(entry.getKey(), stat);
+			}
+			stat.merge(RunningStatistics.fromArray(entry.getValue()));
+		}
+	}
+
+	private static void merge(Map<String, LatencyHistogram> histograms, Map<String, long[]> values) {
+		for (Map.Entry<String, long[]> entry : values.entrySet()) {
+			LatencyHistogram histogram = LatencyHistogram.fromArray(entry.getValue());
+			LatencyHistogram merged = histograms.get(entry.getKey());
+			if (merged == null)
+				histograms.put(entry.getKey(), histogram);
+			else
+				merged.merge(histogram);
+		}
+	}
+
+	/**
+	 * Largest relative half-width of the confidence interval of the path RT,
+	 * given by the steady-state RT of each run
+	 * 
+	 * @param confidence
+	 *            the confidence level
+	 * @return the relative half-width or {@link Double#POSITIVE_INFINITY} if
+	 *         the interval of some path is not known yet
+	 */
+	public double getRelativeHalfWidth(double confidence) {
+		if (pathSteadyStateRT.isEmpty())
+			return Double.POSITIVE_INFINITY;
+
+		double max = 0.0;
+		for (RunningStatistics stat : pathSteadyStateRT.values()) {
+			double relativeHalfWidth = stat.getRelativeHalfWidth(confidence);
+			if (Double.isNaN(relativeHalfWidth))
+				return Double.POSITIVE_INFINITY;
+			max = Math.max(max, relativeHalfWidth);
+		}
+
+		return max;
+	}
+
+	/**
+	 * Average RT of the paths
+	 */
+	public double getAvgRT() {
+		double sum = 0.0;
+		int n = 0;
+
+		for (RunningStatistics stat : pathRT.values()) {
+			if (stat.getCount() > 0) {
+				sum += stat.getMean();
+				n++;
+			}
+		}
+
+		return n > 0 ? sum / n : Double.NaN;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public int getCompletedRuns() {
+		return completedRuns;
+	}
+
+	public int getFailedRuns() {
+		return failedRuns;
+	}
+
+	public int getPendingRuns() {
+		return pendingRuns;
+	}
+
+	public Map<String, RunningStatistics> getPathRT() {
+		return pathRT;
+	}
+
+	public Map<String, RunningStatistics> getPathSteadyStateRT() {
+		return pathSteadyStateRT;
+	}
+
+	public Map<String, RunningStatistics> getPathRTBatches() {
+		return pathRTBatches;
+	}
+
+	public Map<String, RunningStatistics> getPathTON() {
+		return pathTON;
+	}
+
+	public Map<String, RunningStatistics> getPathTOFF() {
+		return pathTOFF;
+	}
+
+	public Map<String, RunningStatistics> getBrokerDPr() {
+		return brokerDPr;
+	}
+
+	public Map<String, RunningStatistics> getBrokerDTr() {
+		return brokerDTr;
+	}
+
+	public Map<String, RunningStatistics> getBrokerRT() {
+		return brokerRT;
+	}
+
+	public Map<String, LatencyHistogram> getPathRTHistogram() {
+		return pathRTHistogram;
+	}
+
+	public Map<String, LatencyHistogram> getBrokerRTHistogram() {
+		return brokerRTHistogram;
+	}
+
+	/**
+	 * Formats the given percentiles of the histograms as
+	 * id=p<i>x</i>:value/p<i>y</i>:value pairs
+	 */
+	public static String formatPercentiles(Map<String, LatencyHistogram> histograms, double... percentiles) {
+		StringBuilder sb = new StringBuilder();
+		Iterator<Map.Entry<String, LatencyHistogram>> iterator = histograms.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<String, LatencyHistogram> entry = iterator.next();
+			sb.append(entry.getKey());
+			sb.append("=");
+			for (int i = 0; i < percentiles.length; i++) {
+				if (i > 0)
+					sb.append("/");
+				sb.append("p");
+				sb.append(BigDecimal.valueOf(percentiles[i]).stripTrailingZeros().toPlainString());
+				sb.append(String.format(":%.4f", entry.getValue().getPercentile(percentiles[i])));
+			}
+
+			if (iterator.hasNext())
+				sb.append(", ");
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Formats the means of the given statistics as id=mean pairs
+	 */
+	public static String formatMeans(Map<String, RunningStatistics> statistics) {
+		StringBuilder sb = new StringBuilder();
+		Iterator<Map.Entry<String, RunningStatistics>> iterator = statistics.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<String, RunningStatistics> entry = iterator.next();
+			sb.append(entry.getKey());
+			sb.append("=");
+			sb.append(String.format("%.4f", entry.getValue().getMean()));
+
+			if (iterator.hasNext())
+				sb.append(", ");
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+
+import br.ufg.inf.mcloudsim.network.DeployablePathNode;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+import br.ufg.inf.mcloudsim.network.ResourceSynthesisResult;
+import br.ufg.inf.mcloudsim.network.VmTypeRegistry;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+
+/**
+ * Performs a single simulation run. <br>
+ * The network descriptor is read again for every run because publishers and
+ * subscribers are changed during the simulation.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationTask implements Callable<ReplicationResult> {
+
+	private String descriptorFile;
+	private double rate;
+	private int run;
+	private String outputFileName;
+
+	public ReplicationTask(String descriptorFile, double rate, int run, String outputFileName) {
+		this.descriptorFile = descriptorFile;
+		this.rate = rate;
+		this.run = run;
+		this.outputFileName = outputFileName;
+	}
+
+	@Override
+	public ReplicationResult call() throws Exception {
+		VmTypeRegistry vmTypeRegistry = new VmTypeRegistry();
+		PSNetworkDescriptor psNetwork = XmlReader.readNetworkDescriptor(descriptorFile);
+		ResourceSynthesisResult resourceSynthesisResult = XmlReader
+				.readResourceSynthesisResults(descriptorFile, vmTypeRegistry).get(0);
+
+		PSSimulation simulation = new PSSimulation(new SimulationContext(vmTypeRegistry));
+		simulation.setupSimulation(outputFileName, PSDatacenterBroker.class, psNetwork, resourceSynthesisResult,
+				rate);
+		simulation.runSimulation();
+
+		ReplicationResult result = new ReplicationResult(rate, run);
+		for (PSNetworkPath networkPath : psNetwork.getPaths()) {
+			String pathId = networkPath.getPathId();
+			LinkedList<DeployablePathNode> brokers = networkPath.getBrokersPath();
+
+			for (DeployablePathNode brokerNode : brokers) {
+				String brokerId = brokerNode.getTargetNode().getId();
+				result.addBroker(pathId, brokerId, simulation.getAvgDprOfBrokerInPath(pathId, brokerId),
+						simulation.getAvgDtrOfBrokerInPath(pathId, brokerId),
+						simulation.getAvgRTOfBrokerInPath(pathId, brokerId));
+				result.addBrokerHistogram(pathId, brokerId,
+						simulation.getRTHistogramOfBrokerInPath(pathId, brokerId).toArray());
+			}
+
+			result.addPath(pathId, simulation.getAvgRTOfPath(pathId), simulation.getAvgTON(pathId),
+					simulation.getAvgTOFF(pathId));
+			result.addPathHistogram(pathId, simulation.getRTHistogramOfPath(pathId).toArray());
+
+			RunningStatistics steadyState = simulation.getSteadyStateRTOfPath(pathId);
+			result.addSteadyState(pathId, steadyState.getMean(),
+					steadyState.getHalfWidth(SimulationConstants.CONFIDENCE_LEVEL), steadyState.toArray());
+		}
+
+		return result;
+	}
+}
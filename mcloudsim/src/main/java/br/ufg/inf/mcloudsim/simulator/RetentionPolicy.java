@@ -0,0 +1,43 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+/**
+ * How the broker keeps the messages it has submitted and received once their
+ * statistics are updated.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public enum RetentionPolicy {
+
+	/** Every message is kept in memory until the end of the run */
+	ALL,
+
+	/** Only the last {@link SimulationConstants#RETAINED_MESSAGES} are kept */
+	LAST,
+
+	/** No message is kept */
+	NONE,
+
+	/**
+	 * No message is kept in memory, the result of each one is appended to the
+	 * per-message results of the run instead
+	 */
+	SPILL;
+
+	/**
+	 * @return if the broker keeps any message once its statistics are
+	 *         updated, so the finished cloudlets cannot be reused
+	 */
+	public boolean isKeeping() {
+		return this == ALL || this == LAST;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.network.DeployablePathNode;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+
+/**
+ * Routes of the messages of each path, compiled once the VMs of the brokers
+ * are created. <br>
+ * Paths are numbered as in {@link PSNetworkDescriptor#getPaths()} and the
+ * brokers of each path (hops) from the first one, and the broker, VM and
+ * datacenter of each hop are kept in arrays indexed by [path][hop]. A message
+ * carries its path and hop, so forwarding it to the next broker takes
+ * constant time whatever the size of the topology. <br>
+ * The paths of a publisher form a dissemination tree. A message is processed
+ * once by each broker of the tree and then fanned out to its branches: one
+ * for each next broker and one for each subscriber of a path ending in the
+ * broker. Each branch is represented by the first path through it.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class RoutingTable {
+
+	private PSNetworkPath[] paths;
+	private String[][] brokerIds;
+	private int[][] vmIds;
+	private int[][] datacenterIds;
+
+	/** Branches of each broker, given by the path representing each one */
+	private int[][] branches;
+
+	private PSNetworkDescriptor psNetwork;
+
+	/**
+	 * Compiles the routes of the paths
+	 * 
+	 * @param psNetwork
+	 *            the network with the paths
+	 * @param nodeToVmMap
+	 *            the VM created for each broker
+	 * @param vmsToDatacentersMap
+	 *            the datacenter in which each VM was created
+	 */
+	public RoutingTable(PSNetworkDescriptor psNetwork, Map<String, Integer> nodeToVmMap,
+			Map<Integer, Integer> vmsToDatacentersMap) {
+		List<PSNetworkPath> networkPaths = psNetwork.getPaths();
+		int n = networkPaths.size();
+
+		this.psNetwork = psNetwork;
+		this.paths = networkPaths.toArray(new PSNetworkPath[n]);
+		this.brokerIds = new String[n][];
+		this.vmIds = new int[n][];
+		this.datacenterIds = new int[n][];
+
+		for (int path = 0; path < n; path++) {
+			LinkedList<DeployablePathNode> brokers = paths[path].getBrokersPath();
+			int hops = brokers.size();
+
+			this.brokerIds[path] = new String[hops];
+			this.vmIds[path] = new int[hops];
+			this.datacenterIds[path] = new int[hops];
+
+			int hop = 0;
+			for (DeployablePathNode brokerNode : brokers) {
+				String brokerId = brokerNode.getTargetNode().getId();
+				Integer vmId = nodeToVmMap.get(brokerId);
+				if (vmId == null)
+					throw new IllegalStateException("Broker " + brokerId + " of path " + paths[path].getPathId()
+							+ " has no VM");
+
+				Integer datacenterId = vmsToDatacentersMap.get(vmId);
+				if (datacenterId == null)
+					throw new IllegalStateException("VM #" + vmId + " of broker " + brokerId + " was not created");
+
+				this.brokerIds[path][hop] = brokerId;
+				this.vmIds[path][hop] = vmId;
+				this.datacenterIds[path][hop] = datacenterId;
+				hop++;
+			}
+		}
+
+		// a branch is represented by the first path with its edge
+		List<List<Integer>> nodeBranches = new ArrayList<>(psNetwork.getNodeCount());
+		for (int node = 0; node < psNetwork.getNodeCount(); node++)
+			nodeBranches.add(new ArrayList<>(1));
+		boolean[] edges = new boolean[psNetwork.getEdgeCount()];
+
+		for (int path = 0; path < n; path++) {
+			for (int hop = 0; hop < brokerIds[path].length; hop++) {
+				int edge = psNetwork.getEdgeIndex(path, hop);
+				if (!edges[edge]) {
+					edges[edge] = true;
+					nodeBranches.get(psNetwork.getNodeIndex(path, hop)).add(path);
+				}
+			}
+		}
+
+		this.branches = new int[psNetwork.getNodeCount()][];
+		for (int node = 0; node < this.branches.length; node++) {
+			List<Integer> branchPaths = nodeBranches.get(node);
+			this.branches[node] = new int[branchPaths.size()];
+			for (int i = 0; i < branchPaths.size(); i++)
+				this.branches[node][i] = branchPaths.get(i);
+		}
+	}
+
+	/**
+	 * Branches of the broker of a hop. The messages leaving the broker are
+	 * sent to each branch with the same hop and the path of the branch
+	 * 
+	 * @return the paths representing the branches
+	 */
+	public int[] getBranches(int path, int hop) {
+		return branches[psNetwork.getNodeIndex(path, hop)];
+	}
+
+	public PSNetworkPath getPath(int path) {
+		return paths[path];
+	}
+
+	public Publisher getPublisher(int path) {
+		return paths[path].getPublisher();
+	}
+
+	public int getHops(int path) {
+		return brokerIds[path].length;
+	}
+
+	/**
+	 * @return if the hop has no next broker, i.e. it delivers the messages to
+	 *         the subscriber
+	 */
+	public boolean isLastHop(int path, int hop) {
+		return hop + 1 >= brokerIds[path].length;
+	}
+
+	public String getBrokerId(int path, int hop) {
+		return brokerIds[path][hop];
+	}
+
+	public int getVmId(int path, int hop) {
+		return vmIds[path][hop];
+	}
+
+	public int getDatacenterId(int path, int hop) {
+		return datacenterIds[path][hop];
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class loader that gives a simulation its own copy of CloudSim and of the
+ * simulator classes. <br>
+ * CloudSim keeps the clock, the entities and the future event queue in static
+ * fields, so two simulations can only run at the same time if each one is
+ * loaded by a different class loader. Classes outside the isolated packages,
+ * and the shared classes given to the constructor, are loaded by the parent.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class SimulationClassLoader extends URLClassLoader {
+
+	private static final String[] ISOLATED_PACKAGES = { "org.cloudbus.cloudsim.", "br.ufg.inf.mcloudsim." };
+
+	private Set<String> sharedClasses;
+
+	public SimulationClassLoader(ClassLoader parent, Class<?>... sharedClasses) {
+		super(getClassPath(), parent);
+		this.sharedClasses = new HashSet<>();
+		for (Class<?> sharedClass : sharedClasses)
+			this.sharedClasses.add(sharedClass.getName());
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (!isIsolated(name))
+			return super.loadClass(name, resolve);
+
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> c = findLoadedClass(name);
+			if (c == null) {
+				try {
+					c = findClass(name);
+				} catch (ClassNotFoundException e) {
+					// not in the class path (e.g. generated at runtime)
+					c = super.loadClass(name, false);
+				}
+			}
+			if (resolve)
+				resolveClass(c);
+			return c;
+		}
+	}
+
+	private boolean isIsolated(String name) {
+		if (this.sharedClasses.contains(name))
+			return false;
+
+		for (String isolatedPackage : ISOLATED_PACKAGES) {
+			if (name.startsWith(isolatedPackage))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static URL[] getClassPath() {
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		URL[] urls = new URL[entries.length];
+
+		for (int i = 0; i < entries.length; i++) {
+			try {
+				urls[i] = new File(entries[i]).toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new IllegalStateException("Invalid class path entry " + entries[i], e);
+			}
+		}
+
+		return urls;
+	}
+
+	@Override
+	public String toString() {
+		return "SimulationClassLoader " + Arrays.toString(getURLs());
+	}
+}
@@ -19,17 +19,64 @@ import org.cloudbus.cloudsim.VmScheduler;
  */
 public interface SimulationConstants {
 	
-	/** How many times the simulation is performed */
-	public static final int EXPERIMENT_RUNS = 1;
+	/**
+	 * How many times the simulation is performed for each publish rate. Runs
+	 * stop once the confidence interval of the path RT, given by the batch
+	 * means of all the runs, is narrow enough
+	 */
+	public static final int MIN_EXPERIMENT_RUNS = 3;
+	public static final int MAX_EXPERIMENT_RUNS = 30;
+
+	/** How many failed runs are tolerated for each publish rate */
+	public static final int MAX_FAILED_RUNS = 10;
+
+	/** How many times a run that throws an exception is attempted before it fails */
+	public static final int MAX_RUN_ATTEMPTS = 3;
+
+	/** Confidence level of the path RT */
+	public static final double CONFIDENCE_LEVEL = 0.95;
+
+	/** Target half-width of the confidence interval, relative to the mean */
+	public static final double TARGET_RELATIVE_HALF_WIDTH = 0.05;
 	
 	/** How long each simulation runs **/
 	public static final int SIMULATION_INTERVAL = (int) (2 * 60.0 * 60.0);
 	
+	/**
+	 * Number of batches of the steady-state estimation within a run. The
+	 * batches of the warm-up period are deleted
+	 */
+	public static final int NUM_BATCHES = 30;
+	public static final double BATCH_LENGTH = SIMULATION_INTERVAL / (double) NUM_BATCHES;
+	
+	/**
+	 * Length of the windows of the windowed metrics, and how many windows are
+	 * kept in memory
+	 */
+	public static final double METRICS_WINDOW_LENGTH = 60.0;
+	public static final int METRICS_WINDOWS = 256;
+	
 	/** Publish rate (events/time unit) */
 	//public static final double[] PUBLISH_RATE = {0.5, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 3.7, 3.9};
 	//public static final double[] PUBLISH_RATE = {0.5, 1.0, 5.0, 10.0, 15.0, 20.0, 21.0, 22.0, 23.0};
 	public static final double[] PUBLISH_RATE = {2.5};
 	
+	/** If the results of every message are written along with the run log */
+	public static final boolean WRITE_MESSAGE_RESULTS = false;
+	
+	/**
+	 * How the broker keeps the messages it has submitted and received. With
+	 * {@link RetentionPolicy#SPILL} the per-message results must be written.
+	 * If no message is kept, the finished cloudlets are reused
+	 */
+	public static final RetentionPolicy RETENTION_POLICY = RetentionPolicy.ALL;
+	
+	/** How many messages are kept in each list with {@link RetentionPolicy#LAST} */
+	public static final int RETAINED_MESSAGES = 10000;
+	
+	/** If the windowed metrics are written along with the run log */
+	public static final boolean WRITE_WINDOW_METRICS = false;
+	
 	/** File with pub/sub network description */
 	public static final String PS_NETWORK_DESCRIPTOR = "simulation.xml";
 	
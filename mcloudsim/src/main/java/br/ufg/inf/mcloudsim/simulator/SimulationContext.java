@@ -0,0 +1,95 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import br.ufg.inf.mcloudsim.core.PSNetworkRegistry;
+import br.ufg.inf.mcloudsim.network.VmTypeRegistry;
+import br.ufg.inf.mcloudsim.result.MessageResultWriter;
+
+/**
+ * Holds the state of a single simulation run: the cloudlet counter, the
+ * registry of publishers and subscribers, the VM types, the mapping of
+ * brokers to VMs and the writer of the per-message results. Each run owns its context, so runs do not depend on static
+ * fields being reset between them.
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class SimulationContext {
+
+	/** Last cloudlet identifier handed out in this run */
+	private int cloudletCount;
+
+	private VmTypeRegistry vmTypeRegistry;
+
+	private PSNetworkRegistry networkRegistry;
+
+	private PSNetworkCreator networkCreator;
+
+	/** Writer of the per-message results, or null if they are not kept */
+	private MessageResultWriter resultWriter;
+
+	/**
+	 * Creates a context using the shared VM type registry.
+	 */
+	public SimulationContext() {
+		this(VmTypeRegistry.getInstance());
+	}
+
+	/**
+	 * Creates a context using the given VM type registry.
+	 *
+	 * @param vmTypeRegistry
+	 *            the registry filled when reading the resource synthesis
+	 *            results of this run
+	 */
+	public SimulationContext(VmTypeRegistry vmTypeRegistry) {
+		if (vmTypeRegistry == null)
+			throw new IllegalArgumentException("Invalid VM type registry");
+
+		this.cloudletCount = 0;
+		this.vmTypeRegistry = vmTypeRegistry;
+		this.networkRegistry = new PSNetworkRegistry();
+		this.networkCreator = new PSNetworkCreator(vmTypeRegistry);
+	}
+
+	/**
+	 * Generates the identifier of a new cloudlet
+	 *
+	 * @return the next cloudlet identifier
+	 */
+	public int nextCloudletId() {
+		return ++cloudletCount;
+	}
+
+	public int getCloudletCount() {
+		return cloudletCount;
+	}
+
+	public VmTypeRegistry getVmTypeRegistry() {
+		return vmTypeRegistry;
+	}
+
+	public PSNetworkRegistry getNetworkRegistry() {
+		return networkRegistry;
+	}
+
+	public PSNetworkCreator getNetworkCreator() {
+		return networkCreator;
+	}
+
+	public MessageResultWriter getResultWriter() {
+		return resultWriter;
+	}
+
+	public void setResultWriter(MessageResultWriter resultWriter) {
+		this.resultWriter = resultWriter;
+	}
+}
@@ -111,11 +111,8 @@ public class VmType extends Vm {
 	}
 	
 	// OK
-	public double updateVmTransmission(double currentTime, Double bwShare) {
-		if (bwShare != null) {
-			return ((PSCloudletSchedulerSpaceShared)getCloudletScheduler()).updateVmTransmission(currentTime, bwShare);
-		}
-		return 0.0;
+	public double updateVmTransmission(double currentTime, double bwShare) {
+		return ((PSCloudletSchedulerSpaceShared)getCloudletScheduler()).updateVmTransmission(currentTime, bwShare);
 	}
 
 	@Override
@@ -0,0 +1,291 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import br.ufg.inf.mcloudsim.network.DeployablePathNode;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+
+/**
+ * Metrics of the brokers of each path in consecutive windows of simulation
+ * time: messages completed, mean and maximum RT, and mean and maximum queue
+ * length, i.e. messages received by the broker and not transmitted yet. <br>
+ * The windows are kept in a preallocated ring, so memory does not grow with
+ * the length of the run. When an output is set, each window is written as a
+ * CSV line before its slot is reused and the remaining windows are written by
+ * {@link #close(double)}, so the whole time series is exported.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class WindowedMetrics {
+
+	public static final String HEADER = "window_start,path,broker,completed,throughput,mean_rt,max_rt,mean_queue,"
+			+ "max_queue";
+
+	private double windowLength;
+	private int windows;
+
+	private PSNetworkDescriptor psNetwork;
+
+	/**
+	 * Path and broker of each cell. There is a cell for each pair of a broker
+	 * and its next hop, shared by the paths of a dissemination tree
+	 */
+	private String[] pathIds;
+	private String[] brokerIds;
+	private int cells;
+
+	/** Number of the current window, or -1 before the first one */
+	private long current;
+
+	/** Accumulators of each slot of the ring, indexed by slot * cells + cell */
+	private long[] completed;
+	private double[] sumRT;
+	private double[] maxRT;
+	private double[] queueArea;
+	private int[] maxQueue;
+
+	/** Queue length of each cell and the time of its last change */
+	private int[] queue;
+	private double[] lastChange;
+
+	private PrintWriter output;
+
+	public WindowedMetrics(PSNetworkDescriptor psNetwork, double windowLength, int windows) {
+		if (windowLength <= 0.0)
+			throw new IllegalArgumentException("Invalid window length: " + windowLength);
+		if (windows <= 0)
+			throw new IllegalArgumentException("Invalid number of windows: " + windows);
+
+		this.psNetwork = psNetwork;
+		this.cells = psNetwork.getEdgeCount();
+		this.pathIds = new String[cells];
+		this.brokerIds = new String[cells];
+
+		List<PSNetworkPath> paths = psNetwork.getPaths();
+		for (int path = 0; path < paths.size(); path++) {
+			int hop = 0;
+			for (DeployablePathNode brokerNode : paths.get(path).getBrokersPath()) {
+				int cell = psNetwork.getEdgeIndex(path, hop++);
+				if (this.pathIds[cell] == null) {
+					this.pathIds[cell] = paths.get(path).getPathId();
+					this.brokerIds[cell] = brokerNode.getTargetNode().getId();
+				}
+			}
+		}
+
+		this.windowLength = windowLength;
+		this.windows = windows;
+		this.current = -1;
+		this.completed = new long[windows * cells];
+		this.sumRT = new double[windows * cells];
+		this.maxRT = new double[windows * cells];
+		this.queueArea = new double[windows * cells];
+		this.maxQueue = new int[windows * cells];
+		this.queue = new int[cells];
+		this.lastChange = new double[cells];
+	}
+
+	/**
+	 * Sets the output of the windows. The header is written immediately
+	 */
+	public void setOutput(PrintWriter output) {
+		this.output = output;
+		output.println(HEADER);
+	}
+
+	/**
+	 * Records a message received by a broker
+	 */
+	public void addArrival(int path, int hop, double time) {
+		int cell = psNetwork.getEdgeIndex(path, hop);
+		advance(time);
+		updateQueue(cell, time, 1);
+	}
+
+	/**
+	 * Records a message transmitted by a broker
+	 * 
+	 * @param rt
+	 *            the RT of the broker
+	 */
+	public void addDeparture(int path, int hop, double time, double rt) {
+		int cell = psNetwork.getEdgeIndex(path, hop);
+		advance(time);
+		updateQueue(cell, time, -1);
+
+		int i = slot(current) + cell;
+		completed[i]++;
+		sumRT[i] += rt;
+		maxRT[i] = Math.max(maxRT[i], rt);
+	}
+
+	/**
+	 * Records a message dropped by a broker, which leaves its queue without
+	 * being completed
+	 */
+	public void addDrop(int path, int hop, double time) {
+		int cell = psNetwork.getEdgeIndex(path, hop);
+		advance(time);
+		updateQueue(cell, time, -1);
+	}
+
+	private void updateQueue(int cell, double time, int delta) {
+		int i = slot(current) + cell;
+		queueArea[i] += queue[cell] * (time - lastChange[cell]);
+		lastChange[cell] = time;
+		queue[cell] = Math.max(0, queue[cell] + delta);
+		maxQueue[i] = Math.max(maxQueue[i], queue[cell]);
+	}
+
+	private int slot(long window) {
+		return (int) (window % windows) * cells;
+	}
+
+	/**
+	 * Moves to the window of the given time, closing the previous ones
+	 */
+	private void advance(double time) {
+		long window = (long) (time / windowLength);
+
+		while (current < window) {
+			if (current >= 0) {
+				double end = (current + 1) * windowLength;
+				int base = slot(current);
+				for (int cell = 0; cell < cells; cell++) {
+					queueArea[base + cell] += queue[cell] * (end - lastChange[cell]);
+					lastChange[cell] = end;
+				}
+			}
+
+			// the oldest window is written before its slot is reused
+			if (current + 1 >= windows && output != null)
+				write(current + 1 - windows);
+			current++;
+
+			int base = slot(current);
+			for (int cell = 0; cell < cells; cell++) {
+				completed[base + cell] = 0;
+				sumRT[base + cell] = 0.0;
+				maxRT[base + cell] = 0.0;
+				queueArea[base + cell] = 0.0;
+				maxQueue[base + cell] = queue[cell];
+			}
+		}
+	}
+
+	private void write(long window) {
+		for (int cell = 0; cell < cells; cell++) {
+			output.println(String.format("%.4f,%s,%s,%d,%.6f,%.6f,%.6f,%.6f,%d", getWindowStart(window),
+					pathIds[cell], brokerIds[cell], getCompleted(window, cell),
+					getCompleted(window, cell) / windowLength, getMeanRT(window, cell), getMaxRT(window, cell),
+					getMeanQueueLength(window, cell), getMaxQueueLength(window, cell)));
+		}
+	}
+
+	/**
+	 * Closes the current window at the given time and writes the windows not
+	 * written yet, if an output is set
+	 */
+	public void close(double time) {
+		advance(time);
+		int base = slot(current);
+		for (int cell = 0; cell < cells; cell++) {
+			queueArea[base + cell] += queue[cell] * (time - lastChange[cell]);
+			lastChange[cell] = time;
+		}
+
+		if (output != null) {
+			for (long window = getFirstWindow(); window <= current; window++)
+				write(window);
+			output.close();
+			output = null;
+		}
+	}
+
+	/**
+	 * @return the oldest window kept in the ring
+	 */
+	public long getFirstWindow() {
+		return Math.max(0, current - windows + 1);
+	}
+
+	/**
+	 * @return the current window, or -1 if nothing was recorded yet
+	 */
+	public long getLastWindow() {
+		return current;
+	}
+
+	public double getWindowLength() {
+		return windowLength;
+	}
+
+	public double getWindowStart(long window) {
+		return window * windowLength;
+	}
+
+	/**
+	 * @return the cell of a broker in a path or -1 if it is not part of the
+	 *         path
+	 */
+	public int getCell(String pathId, String brokerId) {
+		int path = psNetwork.getPathIndex(pathId);
+		if (path < 0)
+			return -1;
+
+		int hop = 0;
+		for (DeployablePathNode brokerNode : psNetwork.getPaths().get(path).getBrokersPath()) {
+			if (brokerNode.getTargetNode().getId().equals(brokerId))
+				return psNetwork.getEdgeIndex(path, hop);
+			hop++;
+		}
+		return -1;
+	}
+
+	private int index(long window, int cell) {
+		if (window < getFirstWindow() || window > current)
+			throw new IllegalArgumentException("Window " + window + " is not kept");
+		return slot(window) + cell;
+	}
+
+	public long getCompleted(long window, int cell) {
+		return completed[index(window, cell)];
+	}
+
+	public double getMeanRT(long window, int cell) {
+		int i = index(window, cell);
+		return completed[i] > 0 ? sumRT[i] / completed[i] : Double.NaN;
+	}
+
+	public double getMaxRT(long window, int cell) {
+		int i = index(window, cell);
+		return completed[i] > 0 ? maxRT[i] : Double.NaN;
+	}
+
+	/**
+	 * Time-average queue length. The current window is averaged up to the
+	 * last recorded event
+	 */
+	public double getMeanQueueLength(long window, int cell) {
+		int i = index(window, cell);
+		double start = getWindowStart(window);
+		double end = window < current ? start + windowLength : Math.max(start, lastChange[cell]);
+		return end > start ? queueArea[i] / (end - start) : queue[cell];
+	}
+
+	public int getMaxQueueLength(long window, int cell) {
+		return maxQueue[index(window, cell)];
+	}
+}
@@ -1,5 +1,6 @@
 package br.ufg.inf.mcloudsim.simulator;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -11,12 +12,23 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.input.SAXBuilder;
 
+import br.ufg.inf.mcloudsim.arrival.ArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.ExactCountArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.MarkovModulatedArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.PiecewiseRateArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.PoissonArrivalProcess;
+import br.ufg.inf.mcloudsim.arrival.TraceArrivalProcess;
+import br.ufg.inf.mcloudsim.core.BatchingPolicy;
 import br.ufg.inf.mcloudsim.core.CoreEventEntity;
 import br.ufg.inf.mcloudsim.core.EdgeEventEntity;
 import br.ufg.inf.mcloudsim.core.EventEntity;
+import br.ufg.inf.mcloudsim.core.OverflowPolicy;
 import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.ProcessingPolicy;
 import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.QueuePolicy;
 import br.ufg.inf.mcloudsim.core.Subscriber;
+import br.ufg.inf.mcloudsim.core.TransmissionPolicy;
 import br.ufg.inf.mcloudsim.network.DeployablePathNode;
 import br.ufg.inf.mcloudsim.network.LegacyPathNode;
 import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
@@ -55,7 +67,11 @@ public class XmlReader {
 					double MIpr = Double.parseDouble(MIprStr);
 					String BtrStr = nodeElem.getChildText("Btr");
 					double Btr = Double.parseDouble(BtrStr);
-					eventEntity = new Publisher(nodeId, topic, rate, MIpr, Btr);
+					Publisher publisher = new Publisher(nodeId, topic, rate, MIpr, Btr);
+					Element arrivalElem = nodeElem.getChild("arrival");
+					if (arrivalElem != null)
+						publisher.setArrivalProcess(readArrivalProcess(arrivalElem));
+					eventEntity = publisher;
 				} else if (nodeType.equals("subscriber")) {
 					String topic = nodeElem.getChildText("topic");
 					String tONStr = nodeElem.getChildText("tON");
@@ -64,7 +80,20 @@ public class XmlReader {
 					double tOFF = Double.parseDouble(tOFFStr);
 					eventEntity = new Subscriber(nodeId, topic, tON, tOFF);
 				} else if (nodeType.equals("broker")) {
-					eventEntity = new PSBroker(nodeId);
+					PSBroker broker = new PSBroker(nodeId);
+					Element batchingElem = nodeElem.getChild("batching");
+					if (batchingElem != null)
+						broker.setBatchingPolicy(readBatchingPolicy(batchingElem));
+					Element queueElem = nodeElem.getChild("queue");
+					if (queueElem != null)
+						broker.setQueuePolicy(readQueuePolicy(queueElem));
+					Element transmissionElem = nodeElem.getChild("transmission");
+					if (transmissionElem != null)
+						broker.setTransmissionPolicy(readTransmissionPolicy(transmissionElem));
+					Element processingElem = nodeElem.getChild("processing");
+					if (processingElem != null)
+						broker.setProcessingPolicy(readProcessingPolicy(processingElem));
+					eventEntity = broker;
 				} else {
 					throw new XMLParseException("Invalid node type: " + nodeType);
 				}
@@ -125,7 +154,8 @@ public class XmlReader {
 				if (publisher == null || subscriber == null)
 					throw new XmlParserException("Publisher and/or subscriber not found in path " + pathSequenceStr);
 				
-				PSNetworkPath networkPath = new PSNetworkPath(publisher, subscriber);
+				// Paths sharing a publisher are told apart by their optional id
+				PSNetworkPath networkPath = new PSNetworkPath(pathElem.getAttributeValue("id"), publisher, subscriber);
 				networkPath.setBrokersPath(brokersPath);
 				networkDescriptor.addNetworkPath(networkPath);
 			}
@@ -136,8 +166,130 @@ public class XmlReader {
 		return networkDescriptor;
 	}
 
+	/**
+	 * Reads the batching policy of a broker. Absent attributes do not limit
+	 * the batches, except the number of messages, which must be given.
+	 * 
+	 * @param batchingElem
+	 *            the batching element
+	 * @return the batching policy
+	 */
+	private static BatchingPolicy readBatchingPolicy(Element batchingElem) {
+		int maxMessages = Integer.parseInt(batchingElem.getAttributeValue("maxMessages"));
+		String maxBytesStr = batchingElem.getAttributeValue("maxBytes");
+		long maxBytes = (maxBytesStr != null && !maxBytesStr.isEmpty()) ? Long.parseLong(maxBytesStr) : Long.MAX_VALUE;
+		String lingerStr = batchingElem.getAttributeValue("linger");
+		double linger = (lingerStr != null && !lingerStr.isEmpty()) ? Double.parseDouble(lingerStr) : 0.0;
+		String headerStr = batchingElem.getAttributeValue("header");
+		long header = (headerStr != null && !headerStr.isEmpty()) ? Long.parseLong(headerStr) : 0;
+		return new BatchingPolicy(maxMessages, maxBytes, linger, header);
+	}
+
+	/**
+	 * Reads the queue policy of a broker. The overflow policy is drop-newest,
+	 * drop-oldest or backpressure, and drop-newest if absent.
+	 * 
+	 * @param queueElem
+	 *            the queue element
+	 * @return the queue policy
+	 */
+	private static QueuePolicy readQueuePolicy(Element queueElem) {
+		int capacity = Integer.parseInt(queueElem.getAttributeValue("capacity"));
+		String overflowStr = queueElem.getAttributeValue("overflow");
+		OverflowPolicy overflow = (overflowStr != null && !overflowStr.isEmpty())
+				? OverflowPolicy.valueOf(overflowStr.trim().toUpperCase().replace('-', '_'))
+				: OverflowPolicy.DROP_NEWEST;
+		return new QueuePolicy(capacity, overflow);
+	}
+
+	/**
+	 * Reads the transmission policy of a broker. The bandwidth of each flow is
+	 * in Mbit/s, and not capped if absent.
+	 * 
+	 * @param transmissionElem
+	 *            the transmission element
+	 * @return the transmission policy
+	 */
+	private static TransmissionPolicy readTransmissionPolicy(Element transmissionElem) {
+		int flows = Integer.parseInt(transmissionElem.getAttributeValue("flows"));
+		String flowBandwidthStr = transmissionElem.getAttributeValue("flowBandwidth");
+		double flowBandwidth = (flowBandwidthStr != null && !flowBandwidthStr.isEmpty())
+				? Double.parseDouble(flowBandwidthStr) : Double.POSITIVE_INFINITY;
+		return new TransmissionPolicy(flows, flowBandwidth);
+	}
+
+	/**
+	 * Reads the processing policy of a broker. The scheduler is space-shared
+	 * or time-shared, and space-shared if absent.
+	 * 
+	 * @param processingElem
+	 *            the processing element
+	 * @return the processing policy
+	 */
+	private static ProcessingPolicy readProcessingPolicy(Element processingElem) {
+		String schedulerStr = processingElem.getAttributeValue("scheduler");
+		return (schedulerStr != null && !schedulerStr.isEmpty())
+				? ProcessingPolicy.valueOf(schedulerStr.trim().toUpperCase().replace('-', '_'))
+				: ProcessingPolicy.SPACE_SHARED;
+	}
+
+	/**
+	 * Reads the arrival process of a publisher. Rates are relative to the
+	 * publisher rate.
+	 * 
+	 * @param arrivalElem
+	 *            the arrival element
+	 * @return the arrival process
+	 * @throws XmlParserException
+	 */
+	private static ArrivalProcess readArrivalProcess(Element arrivalElem) throws XmlParserException {
+		String type = arrivalElem.getAttributeValue("type");
+
+		if (type == null || type.equals("exact")) {
+			return new ExactCountArrivalProcess();
+		} else if (type.equals("poisson")) {
+			return new PoissonArrivalProcess();
+		} else if (type.equals("mmpp")) {
+			List<Element> stateElems = arrivalElem.getChildren("state");
+			double[] rates = new double[stateElems.size()];
+			double[] sojourns = new double[stateElems.size()];
+			for (int i = 0; i < stateElems.size(); i++) {
+				rates[i] = Double.parseDouble(stateElems.get(i).getAttributeValue("rate"));
+				sojourns[i] = Double.parseDouble(stateElems.get(i).getAttributeValue("sojourn"));
+			}
+			return MarkovModulatedArrivalProcess.withSojourns(rates, sojourns);
+		} else if (type.equals("profile")) {
+			List<Element> segmentElems = arrivalElem.getChildren("segment");
+			double[] starts = new double[segmentElems.size()];
+			double[] rates = new double[segmentElems.size()];
+			for (int i = 0; i < segmentElems.size(); i++) {
+				starts[i] = Double.parseDouble(segmentElems.get(i).getAttributeValue("start"));
+				rates[i] = Double.parseDouble(segmentElems.get(i).getAttributeValue("rate"));
+			}
+			String periodStr = arrivalElem.getAttributeValue("period");
+			double period = (periodStr != null && !periodStr.isEmpty()) ? Double.parseDouble(periodStr) : 0.0;
+			return new PiecewiseRateArrivalProcess(starts, rates, period);
+		} else if (type.equals("trace")) {
+			String scaleStr = arrivalElem.getAttributeValue("scale");
+			double scale = (scaleStr != null && !scaleStr.isEmpty()) ? Double.parseDouble(scaleStr) : 1.0;
+			try {
+				FileLoader fileLoader = new FileLoader(arrivalElem.getAttributeValue("file"));
+				return new TraceArrivalProcess(fileLoader.getFile(), scale);
+			} catch (IOException e) {
+				throw new XmlParserException("Invalid trace: " + arrivalElem.getAttributeValue("file"), e);
+			}
+		}
+
+		throw new XmlParserException("Invalid arrival process: " + type);
+	}
+
 	public static List<ResourceSynthesisResult> readResourceSynthesisResults(String filename)
 			throws XmlParserException {
+		return readResourceSynthesisResults(filename, VmTypeRegistry.getInstance());
+	}
+
+	public static List<ResourceSynthesisResult> readResourceSynthesisResults(String filename,
+			VmTypeRegistry vmTypeRegistry) throws XmlParserException {
 		List<ResourceSynthesisResult> resourceSynthesisResults = new LinkedList<>();
 		try {
 			SAXBuilder sb = new SAXBuilder();
@@ -145,7 +297,6 @@ public class XmlReader {
 			Document doc = sb.build(fileLoader.getFile());
 			Element rootElement = doc.getRootElement();
 			List<Element> vmCollectionElems = rootElement.getChild("resource").getChildren();
-			VmTypeRegistry vmTypeRegistry = VmTypeRegistry.getInstance();
 			Element resourceSynthesisElem = rootElement.getChild("resourceSynthesis");
 
 			for (Element vmCollectionElem : vmCollectionElems) {
@@ -173,7 +324,8 @@ public class XmlReader {
 			for (Element synthesisResultElem : resourceSynthesisElem.getChildren()) {
 				String provider = synthesisResultElem.getAttributeValue("provider");
 				String region = synthesisResultElem.getAttributeValue("region");
-				ResourceSynthesisResult resourceSynthesisResult = new ResourceSynthesisResult(provider, region);
+				ResourceSynthesisResult resourceSynthesisResult = new ResourceSynthesisResult(provider, region,
+						vmTypeRegistry);
 				for (Element mapElem : synthesisResultElem.getChildren()) {
 					String brokerId = mapElem.getAttributeValue("id");
 					String vmTypeId = mapElem.getAttributeValue("value");
@@ -0,0 +1,129 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * Binary trace of the simulation, replacing text logging on the hot path. <br>
+ * The level is read once from the system property {@value #LEVEL_PROPERTY}
+ * (OFF, INFO or DEBUG) into constants, so disabled call sites guarded by
+ * {@link #INFO} or {@link #DEBUG} cost nothing after JIT compilation. Records
+ * have a fixed size and go through a {@link TraceRingBuffer} to a
+ * {@link TraceWriter}, so the simulation does not format strings nor wait for
+ * I/O. Traces are rendered as text by {@link TraceRenderer}. <br>
+ * Like {@link CloudSim}, the trace is static: each simulation class loader has
+ * its own.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public final class Trace {
+
+	public static final String LEVEL_PROPERTY = "mcloudsim.trace.level";
+
+	public static final int LEVEL = parseLevel(System.getProperty(LEVEL_PROPERTY, "OFF"));
+
+	public static final boolean INFO = LEVEL >= TraceLevel.INFO;
+
+	public static final boolean DEBUG = LEVEL >= TraceLevel.DEBUG;
+
+	private static final int RING_CAPACITY = 1 << 16;
+
+	private static TraceRingBuffer ringBuffer;
+	private static TraceWriter writer;
+
+	/** Ids of the nodes, assigned in order of appearance */
+	private static Map<String, Integer> nodeIds = new HashMap<>();
+	private static List<String> nodeNames = new ArrayList<>();
+
+	private Trace() {
+	}
+
+	/**
+	 * Starts recording to a file. Does nothing if the trace level is OFF.
+	 * 
+	 * @param file
+	 *            the trace file
+	 */
+	public static void open(File file) throws IOException {
+		if (!INFO)
+			return;
+
+		close();
+
+		ringBuffer = new TraceRingBuffer(RING_CAPACITY);
+		writer = new TraceWriter(file, ringBuffer);
+		writer.start();
+	}
+
+	/**
+	 * Writes the pending records and stops recording
+	 */
+	public static void close() throws IOException {
+		if (writer == null)
+			return;
+
+		try {
+			writer.close(nodeNames);
+		} finally {
+			writer = null;
+			ringBuffer = null;
+			nodeIds.clear();
+			nodeNames.clear();
+		}
+	}
+
+	/**
+	 * Id of a node in the trace. Callers with a fixed node should keep it.
+	 */
+	public static int nodeId(String nodeName) {
+		Integer id = nodeIds.get(nodeName);
+		if (id == null) {
+			id = nodeNames.size();
+			nodeIds.put(nodeName, id);
+			nodeNames.add(nodeName);
+		}
+		return id;
+	}
+
+	/**
+	 * Records an event at the current simulation time. Must be guarded by
+	 * {@link #INFO} or {@link #DEBUG}.
+	 */
+	public static void record(TraceEvent event, int cloudletId, String nodeName) {
+		record(event, cloudletId, nodeName, 0.0);
+	}
+
+	public static void record(TraceEvent event, int cloudletId, String nodeName, double value) {
+		if (ringBuffer != null)
+			ringBuffer.put(CloudSim.clock(), event.ordinal(), cloudletId, nodeId(nodeName), value);
+	}
+
+	private static int parseLevel(String level) {
+		switch (level.trim().toUpperCase()) {
+		case "DEBUG":
+			return TraceLevel.DEBUG;
+		case "INFO":
+			return TraceLevel.INFO;
+		case "OFF":
+			return TraceLevel.OFF;
+		default:
+			throw new IllegalArgumentException("Invalid trace level: " + level);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+/**
+ * Events recorded in the simulation trace, and how they are rendered as text.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public enum TraceEvent {
+
+	/** A publication was submitted to the first broker of its path */
+	PUBLICATION_SCHEDULED("Scheduling input cloudlet %c to broker %n"),
+
+	/** An input cloudlet started on a broker */
+	INPUT_SUBMITTED("Submiting input cloudlet %c to broker %n"),
+
+	/** An output cloudlet started on a broker */
+	OUTPUT_SUBMITTED("Submiting output cloudlet %c to broker %n"),
+
+	/** An output cloudlet was resumed after the subscriber came back */
+	OUTPUT_RESUMED("Resuming output cloudlet %c on broker %n"),
+
+	/** An output cloudlet was queued because its subscriber is offline */
+	OUTPUT_NOT_STARTED("Cloudlet %c not started due subscriber disconnection on broker %n"),
+
+	/** An output cloudlet was paused because its subscriber is offline */
+	OUTPUT_PAUSED("Cloudlet %c paused due subscriber disconnection on broker %n"),
+
+	/** An input cloudlet finished on a broker */
+	INPUT_RECEIVED("Cloudlet %c received on broker %n"),
+
+	/** An output cloudlet finished on a broker. The value is its RT */
+	OUTPUT_RECEIVED("Cloudlet %c received on broker %n, RT = %v"),
+
+	/** The value is the time the subscriber goes offline */
+	SUBSCRIBER_OFFLINE_SCHEDULED("Subscriber %n scheduled to go offline at %v"),
+
+	/** The value is the time the subscriber goes online */
+	SUBSCRIBER_ONLINE_SCHEDULED("Subscriber %n scheduled to go online at %v"),
+
+	SUBSCRIBER_ONLINE("Putting subscriber %n ONLINE"),
+
+	SUBSCRIBER_OFFLINE("Putting subscriber %n OFFLINE"),
+
+	/** A cloudlet was dropped because a queue of the broker is full */
+	MESSAGE_DROPPED("Cloudlet %c dropped on broker %n"),
+
+	/** The value is how long the previous broker held the cloudlet */
+	MESSAGE_RELEASED("Cloudlet %c released to broker %n after %v");
+
+	/**
+	 * Text of the event: %c is replaced by the cloudlet, %n by the node and %v
+	 * by the value
+	 */
+	private String format;
+
+	private TraceEvent(String format) {
+		this.format = format;
+	}
+
+	public String render(int cloudletId, String nodeId, double value) {
+		return format.replace("%c", Integer.toString(cloudletId)).replace("%n", String.valueOf(nodeId))
+				.replace("%v", Double.toString(value));
+	}
+}
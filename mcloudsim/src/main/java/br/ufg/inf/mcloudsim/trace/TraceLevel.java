@@ -0,0 +1,29 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+/**
+ * Levels of the simulation trace. An event is recorded if its level is not
+ * greater than the level of the trace.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public interface TraceLevel {
+
+	/** Nothing is recorded */
+	public static final int OFF = 0;
+
+	/** Changes of subscriber status and finished messages */
+	public static final int INFO = 1;
+
+	/** Every step of every message */
+	public static final int DEBUG = 2;
+}
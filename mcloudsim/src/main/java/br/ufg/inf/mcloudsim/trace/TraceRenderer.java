@@ -0,0 +1,83 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Renders a binary trace written by {@link TraceWriter} as text, one event
+ * per line. <br>
+ * Usage: TraceRenderer &lt;trace&gt; [output]
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class TraceRenderer {
+
+	/** Records mapped at a time */
+	private static final long WINDOW_RECORDS = 1L << 21;
+
+	public static void render(File traceFile, PrintStream out) throws IOException {
+		List<String> nodeNames = Files.readAllLines(new File(traceFile.getPath() + TraceWriter.NODES_EXTENSION)
+				.toPath(), StandardCharsets.UTF_8);
+		TraceEvent[] events = TraceEvent.values();
+
+		try (RandomAccessFile raf = new RandomAccessFile(traceFile, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < 8 || raf.readInt() != TraceWriter.MAGIC)
+				throw new IOException(traceFile + " is not a trace file");
+			int version = raf.readInt();
+			if (version != TraceWriter.VERSION)
+				throw new IOException("Unsupported trace version " + version + " in " + traceFile);
+
+			long count = (channel.size() - 8) / TraceRingBuffer.RECORD_SIZE;
+			for (long first = 0; first < count; first += WINDOW_RECORDS) {
+				long records = Math.min(WINDOW_RECORDS, count - first);
+				MappedByteBuffer window = channel.map(MapMode.READ_ONLY, 8 + first * TraceRingBuffer.RECORD_SIZE,
+						records * TraceRingBuffer.RECORD_SIZE);
+
+				for (long k = 0; k < records; k++) {
+					double time = window.getDouble();
+					int event = window.getInt();
+					int cloudletId = window.getInt();
+					int nodeId = window.getInt();
+					window.getInt();
+					double value = window.getDouble();
+
+					String nodeName = nodeId < nodeNames.size() ? nodeNames.get(nodeId) : "#" + nodeId;
+					out.println(time + ": " + events[event].render(cloudletId, nodeName, value));
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1 && args.length != 2) {
+			System.err.println("Usage: TraceRenderer <trace> [output]");
+			System.exit(1);
+		}
+
+		if (args.length == 2) {
+			try (PrintStream out = new PrintStream(args[1], "UTF-8")) {
+				render(new File(args[0]), out);
+			}
+		} else {
+			render(new File(args[0]), System.out);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring buffer of fixed size trace records, with a single producer
+ * (the simulation thread) and a single consumer (the writer thread). <br>
+ * Fields of the records are kept in parallel primitive arrays, so recording
+ * an event does not allocate. The producer waits when the buffer is full, so
+ * records are never lost while the consumer runs. Once the consumer is closed,
+ * e.g. after failing to write the trace, the records are dropped and counted
+ * instead.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class TraceRingBuffer {
+
+	/**
+	 * Size of a record in the trace file: time, event, cloudlet, node,
+	 * auxiliary value (reserved) and value
+	 */
+	public static final int RECORD_SIZE = 32;
+
+	private final int mask;
+
+	private final double[] times;
+	private final int[] events;
+	private final int[] cloudletIds;
+	private final int[] nodeIds;
+	private final double[] values;
+
+	/** Next record to be written by the producer */
+	private final AtomicLong head = new AtomicLong();
+
+	/** Next record to be read by the consumer */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** If the consumer stopped reading, and the records dropped since */
+	private volatile boolean closed;
+	private long dropped;
+
+	/**
+	 * @param capacity
+	 *            number of records, rounded up to a power of two
+	 */
+	public TraceRingBuffer(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+
+		this.mask = size - 1;
+		this.times = new double[size];
+		this.events = new int[size];
+		this.cloudletIds = new int[size];
+		this.nodeIds = new int[size];
+		this.values = new double[size];
+	}
+
+	/**
+	 * Adds a record, waiting while the buffer is full. The record is dropped
+	 * if the consumer is closed. Called only by the producer.
+	 */
+	public void put(double time, int event, int cloudletId, int nodeId, double value) {
+		long h = head.get();
+		while (h - tail.get() > mask) {
+			if (closed) {
+				dropped++;
+				return;
+			}
+			LockSupport.parkNanos(1000L);
+		}
+		if (closed) {
+			dropped++;
+			return;
+		}
+
+		int i = (int) h & mask;
+		times[i] = time;
+		events[i] = event;
+		cloudletIds[i] = cloudletId;
+		nodeIds[i] = nodeId;
+		values[i] = value;
+
+		// publishes the record to the consumer
+		head.lazySet(h + 1);
+	}
+
+	/**
+	 * Moves the available records to a buffer. Called only by the consumer.
+	 * 
+	 * @param buffer
+	 *            where the records are written
+	 * @return the number of records moved
+	 */
+	public int drainTo(ByteBuffer buffer) {
+		long t = tail.get();
+		long available = head.get() - t;
+		int n = (int) Math.min(available, buffer.remaining() / RECORD_SIZE);
+
+		for (int k = 0; k < n; k++) {
+			int i = (int) (t + k) & mask;
+			buffer.putDouble(times[i]);
+			buffer.putInt(events[i]);
+			buffer.putInt(cloudletIds[i]);
+			buffer.putInt(nodeIds[i]);
+			buffer.putInt(0);
+			buffer.putDouble(values[i]);
+		}
+
+		// frees the slots to the producer
+		tail.lazySet(t + n);
+		return n;
+	}
+
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * Tells the producer that no more records will be read. Called by the
+	 * consumer when it stops, normally or not.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return the records dropped because the consumer was closed. Read by
+	 *         the producer, or after the consumer has stopped
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+}
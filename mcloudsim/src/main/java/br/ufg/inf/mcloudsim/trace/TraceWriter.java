@@ -0,0 +1,121 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Background thread that moves the records of a {@link TraceRingBuffer} to a
+ * trace file. <br>
+ * The file starts with the magic number and the format version (ints),
+ * followed by records of {@value TraceRingBuffer#RECORD_SIZE} bytes. Node
+ * names are written at the end to a text file with the extension
+ * {@value #NODES_EXTENSION}, one per line, in the order of their ids.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class TraceWriter extends Thread {
+
+	/** "MCTR" */
+	public static final int MAGIC = 0x4D435452;
+
+	public static final int VERSION = 1;
+
+	public static final String NODES_EXTENSION = ".nodes";
+
+	private static Logger logger = Logger.getLogger(TraceWriter.class.getName());
+
+	private static final int BUFFER_RECORDS = 8192;
+
+	private File file;
+	private TraceRingBuffer ringBuffer;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private volatile boolean closing;
+
+	public TraceWriter(File file, TraceRingBuffer ringBuffer) throws IOException {
+		super("trace-writer");
+		setDaemon(true);
+
+		this.file = file;
+		this.ringBuffer = ringBuffer;
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		this.channel.truncate(0);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * TraceRingBuffer.RECORD_SIZE);
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (!closing) {
+				if (ringBuffer.drainTo(buffer) > 0)
+					flush();
+				else
+					LockSupport.parkNanos(1000000L);
+			}
+
+			// the producer has stopped
+			while (!ringBuffer.isEmpty()) {
+				ringBuffer.drainTo(buffer);
+				flush();
+			}
+			flush();
+		} catch (IOException e) {
+			logger.error("Could not write trace " + file, e);
+		} finally {
+			// the producer must not wait for a writer that is gone
+			ringBuffer.close();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Waits the pending records to be written and closes the trace
+	 * 
+	 * @param nodeNames
+	 *            names of the nodes, in the order of their ids
+	 */
+	public void close(List<String> nodeNames) throws IOException {
+		closing = true;
+		LockSupport.unpark(this);
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		if (ringBuffer.getDropped() > 0)
+			logger.warn(ringBuffer.getDropped() + " records dropped from trace " + file);
+
+		try (PrintWriter writer = new PrintWriter(file.getPath() + NODES_EXTENSION, "UTF-8")) {
+			for (String nodeName : nodeNames)
+				writer.println(nodeName);
+		}
+	}
+}
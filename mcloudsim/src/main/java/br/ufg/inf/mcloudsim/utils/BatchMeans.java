@@ -0,0 +1,166 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Arrays;
+
+/**
+ * Batch means estimator of a steady-state mean from a single simulation run.
+ * <br>
+ * Observations are grouped in batches of fixed simulation time. The batches
+ * of the warm-up period are detected with the Marginal Standard Error Rule
+ * (MSER) and deleted, and the means of the remaining batches are treated as
+ * independent observations, giving a mean and its confidence interval.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class BatchMeans {
+
+	private double batchLength;
+
+	private double[] sums;
+	private long[] counts;
+
+	/**
+	 * @param batchLength
+	 *            the simulation time covered by each batch
+	 */
+	public BatchMeans(double batchLength) {
+		if (batchLength <= 0.0)
+			throw new IllegalArgumentException("Invalid batch length: " + batchLength);
+
+		this.batchLength = batchLength;
+		this.sums = new double[16];
+		this.counts = new long[16];
+	}
+
+	/**
+	 * Adds an observation. {@link Double#NaN} is ignored.
+	 * 
+	 * @param time
+	 *            the simulation time of the observation
+	 * @param value
+	 *            the observation
+	 */
+	public void add(double time, double value) {
+		if (Double.isNaN(value))
+			return;
+
+		int batch = (int) (Math.max(0.0, time) / batchLength);
+		if (batch >= sums.length) {
+			int length = Math.max(batch + 1, sums.length * 2);
+			sums = Arrays.copyOf(sums, length);
+			counts = Arrays.copyOf(counts, length);
+		}
+
+		sums[batch] += value;
+		counts[batch]++;
+	}
+
+	public double getBatchLength() {
+		return batchLength;
+	}
+
+	/**
+	 * @return the mean of each batch, up to the last batch with observations.
+	 *         Batches without observations are {@link Double#NaN}.
+	 */
+	public double[] getBatchMeans() {
+		int n = counts.length;
+		while (n > 0 && counts[n - 1] == 0)
+			n--;
+
+		double[] means = new double[n];
+		for (int i = 0; i < n; i++)
+			means[i] = counts[i] > 0 ? sums[i] / counts[i] : Double.NaN;
+
+		return means;
+	}
+
+	/**
+	 * Steady-state statistics of this run
+	 * 
+	 * @return the statistics of the batch means after the warm-up period
+	 */
+	public RunningStatistics getSteadyState() {
+		return steadyState(getBatchMeans());
+	}
+
+	/**
+	 * Steady-state statistics of a sequence of batch means. Batches without
+	 * observations are ignored.
+	 * 
+	 * @param batchMeans
+	 *            the batch means in order of simulation time
+	 * @return the statistics of the batch means after the warm-up period
+	 */
+	public static RunningStatistics steadyState(double[] batchMeans) {
+		double[] means = withoutEmptyBatches(batchMeans);
+		int warmup = detectWarmup(means);
+
+		RunningStatistics statistics = new RunningStatistics();
+		for (int i = warmup; i < means.length; i++)
+			statistics.add(means[i]);
+
+		return statistics;
+	}
+
+	/**
+	 * Detects the end of the warm-up period with MSER: the truncation point
+	 * <i>d</i> minimizes the variance of the remaining batch means divided by
+	 * (<i>k - d</i>)<sup>2</sup>. At most half of the batches are deleted.
+	 * 
+	 * @param means
+	 *            the batch means, without empty batches
+	 * @return how many batches belong to the warm-up period
+	 */
+	public static int detectWarmup(double[] means) {
+		int k = means.length;
+		if (k < 4)
+			return 0;
+
+		// suffix sums, accumulated from the last batch backwards
+		double sum = 0.0;
+		double sumOfSquares = 0.0;
+		int best = 0;
+		double bestMser = Double.POSITIVE_INFINITY;
+
+		for (int d = k - 1; d >= 0; d--) {
+			sum += means[d];
+			sumOfSquares += means[d] * means[d];
+
+			if (d > k / 2)
+				continue;
+
+			int n = k - d;
+			double mean = sum / n;
+			double mser = Math.max(0.0, sumOfSquares / n - mean * mean) / n;
+			if (mser <= bestMser) {
+				bestMser = mser;
+				best = d;
+			}
+		}
+
+		return best;
+	}
+
+	private static double[] withoutEmptyBatches(double[] batchMeans) {
+		double[] means = new double[batchMeans.length];
+		int n = 0;
+
+		for (double mean : batchMeans) {
+			if (!Double.isNaN(mean))
+				means[n++] = mean;
+		}
+
+		return Arrays.copyOf(means, n);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.AbstractList;
+
+/**
+ * List that keeps only its last elements. <br>
+ * Elements are kept in a ring of fixed capacity: adding to a full list drops
+ * the oldest element, so the list never grows beyond its capacity. With
+ * capacity zero, every element added is dropped. Elements can only be added
+ * at the end and the list can be cleared.
+ * 
+ * @author Raphael Gomes
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public class BoundedList<E> extends AbstractList<E> {
+
+	private Object[] elements;
+
+	/** Position of the oldest element */
+	private int head;
+	private int size;
+
+	public BoundedList(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+		this.elements = new Object[capacity];
+	}
+
+	@Override
+	public boolean add(E element) {
+		modCount++;
+		if (elements.length == 0)
+			return true;
+
+		if (size < elements.length) {
+			elements[(head + size) % elements.length] = element;
+			size++;
+		} else {
+			elements[head] = element;
+			head = (head + 1) % elements.length;
+		}
+
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+
+		return (E) elements[(head + index) % elements.length];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		for (int i = 0; i < elements.length; i++)
+			elements[i] = null;
+		head = 0;
+		size = 0;
+	}
+
+	public int getCapacity() {
+		return elements.length;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Priority queue whose elements can also be found and removed by an integer
+ * key, such as the identifier of a cloudlet. The element with the smallest
+ * priority comes first, and elements of the same priority come in the order
+ * of their keys. <br>
+ * Elements are kept in an array-backed binary heap and the index of each key
+ * in an unboxed map, so adding, polling and removing by key take logarithmic
+ * time and allocate nothing once the arrays have grown. The elements can be
+ * gone through by index, in no particular order, without an iterator. Keys
+ * must be unique within the heap, and the priority of an element must not
+ * change while it is in the heap.
+ *
+ * @author Raphael Gomes
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public class IndexedHeap<E> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final ToIntFunction<? super E> key;
+	private final ToLongFunction<? super E> priority;
+
+	private Object[] elements;
+	private int size;
+
+	/** Index of the element of each key */
+	private IntLongMap indexes;
+
+	/**
+	 * Creates an empty heap
+	 *
+	 * @param key
+	 *            gives the key of an element
+	 * @param priority
+	 *            gives the priority of an element
+	 */
+	public IndexedHeap(ToIntFunction<? super E> key, ToLongFunction<? super E> priority) {
+		if (key == null || priority == null)
+			throw new IllegalArgumentException("Invalid key or priority");
+
+		this.key = key;
+		this.priority = priority;
+		this.elements = new Object[INITIAL_CAPACITY];
+		this.indexes = new IntLongMap();
+	}
+
+	public void add(E element) {
+		if (element == null)
+			throw new NullPointerException();
+		int elementKey = key.applyAsInt(element);
+		if (indexes.containsKey(elementKey))
+			throw new IllegalArgumentException("Key already in the heap: " + elementKey);
+
+		if (size == elements.length) {
+			Object[] grown = new Object[elements.length * 2];
+			System.arraycopy(elements, 0, grown, 0, size);
+			elements = grown;
+		}
+		siftUp(size++, element);
+	}
+
+	/**
+	 * @return the first element, or null if the heap is empty
+	 */
+	public E peek() {
+		return size > 0 ? elementAt(0) : null;
+	}
+
+	/**
+	 * Removes the first element
+	 *
+	 * @return the element, or null if the heap is empty
+	 */
+	public E poll() {
+		return size > 0 ? removeAt(0) : null;
+	}
+
+	/**
+	 * Gets an element by its index in the heap, to go through all of them
+	 *
+	 * @param index
+	 *            from 0 to {@link #size()} - 1
+	 * @return the element
+	 */
+	public E get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+		return elementAt(index);
+	}
+
+	public boolean containsKey(int elementKey) {
+		return indexes.containsKey(elementKey);
+	}
+
+	/**
+	 * Removes the element of a key
+	 *
+	 * @return the removed element, or null if there is none
+	 */
+	public E removeKey(int elementKey) {
+		long index = indexes.get(elementKey, -1);
+		return index >= 0 ? removeAt((int) index) : null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			elements[i] = null;
+		indexes.clear();
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(int index) {
+		return (E) elements[index];
+	}
+
+	private E removeAt(int index) {
+		E removed = elementAt(index);
+		indexes.remove(key.applyAsInt(removed), -1);
+
+		size--;
+		E last = elementAt(size);
+		elements[size] = null;
+		if (index < size) {
+			// the last element takes the place of the removed one
+			siftDown(index, last);
+			if (elements[index] == last)
+				siftUp(index, last);
+		}
+		return removed;
+	}
+
+	/**
+	 * @return if a comes before b
+	 */
+	private boolean before(E a, E b) {
+		long pa = priority.applyAsLong(a);
+		long pb = priority.applyAsLong(b);
+		return pa < pb || (pa == pb && key.applyAsInt(a) < key.applyAsInt(b));
+	}
+
+	private void place(int index, E element) {
+		elements[index] = element;
+		indexes.put(key.applyAsInt(element), index);
+	}
+
+	private void siftUp(int index, E element) {
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			E parentElement = elementAt(parent);
+			if (!before(element, parentElement))
+				break;
+			place(index, parentElement);
+			index = parent;
+		}
+		place(index, element);
+	}
+
+	private void siftDown(int index, E element) {
+		int half = size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			E childElement = elementAt(child);
+			int right = child + 1;
+			if (right < size && before(elementAt(right), childElement)) {
+				child = right;
+				childElement = elementAt(child);
+			}
+			if (!before(childElement, element))
+				break;
+			place(index, childElement);
+			index = child;
+		}
+		place(index, element);
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.AbstractQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * FIFO queue whose elements can also be found and removed by an integer key,
+ * such as the identifier of a cloudlet. <br>
+ * Elements are kept in a growable ring, in the order they were added, and an
+ * unboxed map gives the position of each key. Adding, polling and removing by
+ * key take constant time: an element removed from the middle leaves an empty
+ * slot behind, skipped when the head reaches it and dropped when the ring is
+ * rebuilt to grow. Apart from the iterator, nothing is allocated once the
+ * ring and the map have grown. Keys must be unique within the queue.
+ *
+ * @author Raphael Gomes
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public class IndexedQueue<E> extends AbstractQueue<E> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final ToIntFunction<? super E> key;
+
+	/** Ring of elements, with null in the slots of removed ones */
+	private Object[] elements;
+
+	/**
+	 * Positions of the first and next free slots. Positions only grow; the
+	 * slot of a position is given by the capacity, a power of two
+	 */
+	private long head;
+	private long tail;
+	private int size;
+
+	/** Position of the element of each key */
+	private IntLongMap positions;
+
+	private int modCount;
+
+	/**
+	 * Creates an empty queue
+	 *
+	 * @param key
+	 *            gives the key of an element
+	 */
+	public IndexedQueue(ToIntFunction<? super E> key) {
+		if (key == null)
+			throw new IllegalArgumentException("Invalid key");
+
+		this.key = key;
+		this.elements = new Object[INITIAL_CAPACITY];
+		this.positions = new IntLongMap();
+	}
+
+	private int slot(long position) {
+		return (int) (position & (elements.length - 1));
+	}
+
+	@Override
+	public boolean offer(E element) {
+		if (element == null)
+			throw new NullPointerException();
+		int elementKey = key.applyAsInt(element);
+		if (positions.containsKey(elementKey))
+			throw new IllegalArgumentException("Key already in the queue: " + elementKey);
+
+		if (tail - head == elements.length)
+			rebuild();
+
+		elements[slot(tail)] = element;
+		positions.put(elementKey, tail);
+		tail++;
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Moves the elements to the start of a new ring, without the empty slots,
+	 * and doubles the capacity if more than half of it is used
+	 */
+	private void rebuild() {
+		int capacity = elements.length;
+		if (size > capacity / 2)
+			capacity *= 2;
+
+		Object[] rebuilt = new Object[capacity];
+		int i = 0;
+		for (long position = head; position < tail; position++) {
+			Object element = elements[slot(position)];
+			if (element != null) {
+				rebuilt[i] = element;
+				positions.put(key.applyAsInt(elementAt(position)), i);
+				i++;
+			}
+		}
+
+		this.elements = rebuilt;
+		this.head = 0;
+		this.tail = i;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(long position) {
+		return (E) elements[slot(position)];
+	}
+
+	/** Moves the head past the empty slots */
+	private void skipRemoved() {
+		while (head < tail && elements[slot(head)] == null)
+			head++;
+	}
+
+	@Override
+	public E poll() {
+		skipRemoved();
+		if (head == tail)
+			return null;
+
+		E element = elementAt(head);
+		elements[slot(head)] = null;
+		positions.remove(key.applyAsInt(element), -1);
+		head++;
+		size--;
+		modCount++;
+		return element;
+	}
+
+	@Override
+	public E peek() {
+		skipRemoved();
+		return head < tail ? elementAt(head) : null;
+	}
+
+	/**
+	 * Gets the element of a key
+	 *
+	 * @return the element, or null if there is none
+	 */
+	public E get(int elementKey) {
+		long position = positions.get(elementKey, -1);
+		return position >= 0 ? elementAt(position) : null;
+	}
+
+	/**
+	 * Gets the element added after the one of a key, to go through the queue
+	 * without an iterator
+	 *
+	 * @return the next element, or null if the key is the last one or is not
+	 *         in the queue
+	 */
+	public E getNext(int elementKey) {
+		long position = positions.get(elementKey, -1);
+		if (position < 0)
+			return null;
+
+		for (position++; position < tail; position++) {
+			E element = elementAt(position);
+			if (element != null)
+				return element;
+		}
+		return null;
+	}
+
+	public boolean containsKey(int elementKey) {
+		return positions.containsKey(elementKey);
+	}
+
+	/**
+	 * Removes the element of a key
+	 *
+	 * @return the removed element, or null if there is none
+	 */
+	public E removeKey(int elementKey) {
+		long position = positions.remove(elementKey, -1);
+		if (position < 0)
+			return null;
+
+		E element = elementAt(position);
+		elements[slot(position)] = null;
+		size--;
+		modCount++;
+		if (size == 0) {
+			head = tail;
+		} else if (position == head) {
+			skipRemoved();
+		}
+		return element;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < elements.length; i++)
+			elements[i] = null;
+		positions.clear();
+		head = 0;
+		tail = 0;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Iterates the elements in the order they were added. Removing through
+	 * the iterator takes constant time as well
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			private long next = head;
+			private E last;
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				while (next < tail && elements[slot(next)] == null)
+					next++;
+				return next < tail;
+			}
+
+			@Override
+			public E next() {
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				last = elementAt(next);
+				next++;
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+
+				removeKey(key.applyAsInt(last));
+				last = null;
+				expectedModCount = modCount;
+			}
+		};
+	}
+}
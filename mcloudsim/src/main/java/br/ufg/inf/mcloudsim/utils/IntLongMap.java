@@ -0,0 +1,139 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+/**
+ * Map from int keys to long values, kept in open-addressing arrays so that
+ * neither the keys nor the values are boxed. <br>
+ * Removed keys are not marked but the following ones are moved back
+ * (backward shift deletion), so the map allocates only when it grows.
+ *
+ * @author Raphael Gomes
+ *
+ */
+class IntLongMap {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] keys;
+	private long[] values;
+	private boolean[] used;
+	private int size;
+
+	IntLongMap() {
+		this.keys = new int[INITIAL_CAPACITY];
+		this.values = new long[INITIAL_CAPACITY];
+		this.used = new boolean[INITIAL_CAPACITY];
+	}
+
+	private int slot(int key) {
+		int hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & (keys.length - 1);
+	}
+
+	/**
+	 * @return the slot of a key, or -1 if it is not in the map
+	 */
+	private int find(int key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				return i;
+		}
+		return -1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @return the value of a key, or the given one if it is not in the map
+	 */
+	long get(int key, long missing) {
+		int i = find(key);
+		return i >= 0 ? values[i] : missing;
+	}
+
+	void put(int key, long value) {
+		int mask = keys.length - 1;
+		int i = slot(key);
+		while (used[i]) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+
+		used[i] = true;
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		// at most half full, so that probes stay short
+		if (size * 2 > keys.length)
+			grow();
+	}
+
+	/**
+	 * Removes a key
+	 *
+	 * @return its value, or the given one if it was not in the map
+	 */
+	long remove(int key, long missing) {
+		int i = find(key);
+		if (i < 0)
+			return missing;
+
+		long value = values[i];
+		int mask = keys.length - 1;
+		// moves back the following keys that would no longer be found
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (!used[j])
+				break;
+			int k = slot(keys[j]);
+			if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		used[i] = false;
+		size--;
+		return value;
+	}
+
+	void clear() {
+		for (int i = 0; i < used.length; i++)
+			used[i] = false;
+		size = 0;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		long[] oldValues = values;
+		boolean[] oldUsed = used;
+
+		keys = new int[oldKeys.length * 2];
+		values = new long[oldKeys.length * 2];
+		used = new boolean[oldKeys.length * 2];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i])
+				put(oldKeys[i], oldValues[i]);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies with log-linear buckets and fixed memory. <br>
+ * Values are counted in units of {@value #RESOLUTION} s. Below 2<sup>
+ * {@value #SUB_BUCKET_BITS}</sup> units the buckets are linear; above it,
+ * each power of two is split in 2<sup>{@value #SUB_BUCKET_BITS} - 1</sup>
+ * buckets, so any value up to {@value #MAX_VALUE} s is kept with a relative
+ * error below 1%. The count, sum, minimum and maximum are exact, so the mean
+ * does not depend on the buckets. Histograms can be merged, e.g. across
+ * replications, and exported to a plain array of longs.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class LatencyHistogram {
+
+	/** Smallest distinguishable value (s) */
+	public static final double RESOLUTION = 1e-6;
+
+	/** Largest value with bounded error (s). Larger values go to the last bucket */
+	public static final double MAX_VALUE = 1e7;
+
+	public static final int SUB_BUCKET_BITS = 8;
+
+	private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+
+	private static final int MAX_SHIFT = 64 - Long.numberOfLeadingZeros((long) (MAX_VALUE / RESOLUTION))
+			- SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKET_HALF;
+
+	/** Values after the buckets in the exported array: count, sum, min, max */
+	private static final int SUMMARY_SIZE = 4;
+
+	private long[] counts;
+	private long count;
+	private double sum;
+	private double min;
+	private double max;
+
+	public LatencyHistogram() {
+		this.counts = new long[BUCKETS];
+		this.count = 0;
+		this.sum = 0.0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Adds a value. Negative values count as zero and {@link Double#NaN} is
+	 * ignored.
+	 * 
+	 * @param value
+	 *            the value (s)
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value))
+			return;
+
+		value = Math.max(0.0, value);
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds the values of another histogram
+	 */
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] += other.counts[i];
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	private static int bucketOf(double value) {
+		long units = (long) Math.min(value / RESOLUTION, (double) Long.MAX_VALUE);
+		int shift = 64 - Long.numberOfLeadingZeros(units) - SUB_BUCKET_BITS;
+
+		if (shift <= 0)
+			return (int) units;
+		if (shift > MAX_SHIFT)
+			return BUCKETS - 1;
+
+		return shift * SUB_BUCKET_HALF + (int) (units >> shift);
+	}
+
+	/**
+	 * @return the value in the middle of a bucket (s)
+	 */
+	private static double valueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKET_HALF)
+			return (bucket + 0.5) * RESOLUTION;
+
+		int shift = bucket / SUB_BUCKET_HALF - 1;
+		long lower = (long) (bucket - shift * SUB_BUCKET_HALF) << shift;
+		return (lower + (1L << shift) / 2.0) * RESOLUTION;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count > 0 ? sum / count : Double.NaN;
+	}
+
+	public double getMin() {
+		return count > 0 ? min : Double.NaN;
+	}
+
+	public double getMax() {
+		return count > 0 ? max : Double.NaN;
+	}
+
+	/**
+	 * Value below which the given percentage of the values fall
+	 * 
+	 * @param percentile
+	 *            the percentile, e.g. 99.9
+	 * @return the value (s) or {@link Double#NaN} if the histogram is empty
+	 */
+	public double getPercentile(double percentile) {
+		if (count == 0)
+			return Double.NaN;
+
+		long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count);
+		rank = Math.max(1, rank);
+
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.max(min, Math.min(max, valueOf(i)));
+		}
+
+		return max;
+	}
+
+	/**
+	 * Exports the histogram to an array of longs, e.g. to be sent between
+	 * class loaders
+	 */
+	public long[] toArray() {
+		long[] array = Arrays.copyOf(counts, BUCKETS + SUMMARY_SIZE);
+		array[BUCKETS] = count;
+		array[BUCKETS + 1] = Double.doubleToLongBits(sum);
+		array[BUCKETS + 2] = Double.doubleToLongBits(min);
+		array[BUCKETS + 3] = Double.doubleToLongBits(max);
+		return array;
+	}
+
+	/**
+	 * Imports a histogram exported by {@link #toArray()}
+	 */
+	public static LatencyHistogram fromArray(long[] array) {
+		if (array.length != BUCKETS + SUMMARY_SIZE)
+			throw new IllegalArgumentException("Invalid histogram array of length " + array.length);
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		System.arraycopy(array, 0, histogram.counts, 0, BUCKETS);
+		histogram.count = array[BUCKETS];
+		histogram.sum = Double.longBitsToDouble(array[BUCKETS + 1]);
+		histogram.min = Double.longBitsToDouble(array[BUCKETS + 2]);
+		histogram.max = Double.longBitsToDouble(array[BUCKETS + 3]);
+		return histogram;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d, mean=%.4f, p50=%.4f, p90=%.4f, p99=%.4f, p99.9=%.4f, max=%.4f", count, getMean(),
+				getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(99.9), getMax());
+	}
+}
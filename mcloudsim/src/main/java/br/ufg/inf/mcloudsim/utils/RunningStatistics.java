@@ -0,0 +1,143 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+/**
+ * Online mean and variance of a sequence of observations (Welford's
+ * algorithm), with the confidence interval of the mean. <br>
+ * Observations are not kept, and the update is numerically stable even when
+ * the variance is small compared to the mean.
+ * 
+ * @author Raphael Gomes
+ *
+ */
+public class RunningStatistics {
+
+	private long count;
+	private double mean;
+
+	/** Sum of squared differences from the mean */
+	private double m2;
+
+	/**
+	 * Adds an observation. {@link Double#NaN} is ignored.
+	 * 
+	 * @param value
+	 *            the observation
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value))
+			return;
+
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	/**
+	 * Adds the observations of other statistics (Chan's parallel algorithm)
+	 * 
+	 * @param other
+	 *            the statistics to add
+	 */
+	public void merge(RunningStatistics other) {
+		if (other.count == 0)
+			return;
+
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * count * other.count / total;
+		count = total;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count > 0 ? mean : Double.NaN;
+	}
+
+	/**
+	 * @return the sample variance
+	 */
+	public double getVariance() {
+		return count > 1 ? m2 / (count - 1) : Double.NaN;
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Half-width of the confidence interval of the mean, based on the
+	 * t-distribution
+	 * 
+	 * @param confidence
+	 *            the confidence level, e.g. 0.95
+	 * @return the half-width or {@link Double#NaN} with less than two
+	 *         observations
+	 */
+	public double getHalfWidth(double confidence) {
+		if (count < 2)
+			return Double.NaN;
+
+		double t = new TDistribution(count - 1).inverseCumulativeProbability(0.5 + confidence / 2.0);
+		return t * getStandardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Half-width of the confidence interval relative to the mean
+	 * 
+	 * @param confidence
+	 *            the confidence level, e.g. 0.95
+	 * @return the relative half-width, {@link Double#POSITIVE_INFINITY} if the
+	 *         mean is zero or {@link Double#NaN} with less than two
+	 *         observations
+	 */
+	public double getRelativeHalfWidth(double confidence) {
+		double halfWidth = getHalfWidth(confidence);
+		if (Double.isNaN(halfWidth))
+			return Double.NaN;
+
+		return mean != 0.0 ? halfWidth / Math.abs(mean) : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Exports the statistics to an array of doubles (count, mean and sum of
+	 * squared differences), e.g. to be sent between class loaders
+	 */
+	public double[] toArray() {
+		return new double[] { count, mean, m2 };
+	}
+
+	/**
+	 * Imports statistics exported by {@link #toArray()}
+	 */
+	public static RunningStatistics fromArray(double[] array) {
+		if (array.length != 3)
+			throw new IllegalArgumentException("Invalid statistics array of length " + array.length);
+
+		RunningStatistics statistics = new RunningStatistics();
+		statistics.count = (long) array[0];
+		statistics.mean = array[1];
+		statistics.m2 = array[2];
+		return statistics;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.4f (n=%d, sd=%.4f)", getMean(), count, getStandardDeviation());
+	}
+}
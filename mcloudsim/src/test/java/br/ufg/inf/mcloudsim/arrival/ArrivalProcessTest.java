@@ -0,0 +1,119 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the arrival processes generate increasing arrivals within the
+ * interval, at the expected rate
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class ArrivalProcessTest extends TestCase {
+
+	private static final double RATE = 2.0;
+	private static final double INTERVAL = 10000.0;
+
+	public void testPoisson() {
+		int count = countArrivals(new PoissonArrivalProcess(), RATE, INTERVAL);
+
+		assertEquals(RATE * INTERVAL, count, 0.03 * RATE * INTERVAL);
+	}
+
+	public void testPoissonWithoutRate() {
+		ArrivalProcess process = new PoissonArrivalProcess();
+		process.start(0.0, INTERVAL, new Random(1));
+
+		assertTrue(Double.isNaN(process.nextArrivalTime()));
+	}
+
+	public void testExactCount() {
+		assertEquals((long) Math.ceil(RATE * INTERVAL), countArrivals(new ExactCountArrivalProcess(), RATE, INTERVAL));
+		assertEquals(3, countArrivals(new ExactCountArrivalProcess(), 0.25, 10.0));
+	}
+
+	public void testPiecewiseRate() {
+		// half of each period at the publisher rate, half at three times it
+		double[] starts = { 0.0, 50.0 };
+		double[] relativeRates = { 1.0, 3.0 };
+		ArrivalProcess process = new PiecewiseRateArrivalProcess(starts, relativeRates, 100.0);
+
+		process.start(RATE, INTERVAL, new Random(2));
+		int low = 0;
+		int high = 0;
+		double previous = 0.0;
+		double time;
+		while (!Double.isNaN(time = process.nextArrivalTime())) {
+			assertTrue(time >= previous && time <= INTERVAL);
+			previous = time;
+			if (time % 100.0 < 50.0)
+				low++;
+			else
+				high++;
+		}
+
+		assertEquals(RATE * INTERVAL / 2, low, 0.05 * RATE * INTERVAL / 2);
+		assertEquals(3 * RATE * INTERVAL / 2, high, 0.05 * 3 * RATE * INTERVAL / 2);
+	}
+
+	public void testPiecewiseRateWithoutPeriod() {
+		double[] starts = { 0.0, 100.0 };
+		double[] relativeRates = { 1.0, 0.0 };
+		ArrivalProcess process = new PiecewiseRateArrivalProcess(starts, relativeRates, 0.0);
+
+		process.start(RATE, INTERVAL, new Random(3));
+		double last = 0.0;
+		double time;
+		while (!Double.isNaN(time = process.nextArrivalTime()))
+			last = time;
+
+		assertTrue(last < 100.0);
+	}
+
+	public void testMarkovModulatedSingleState() {
+		ArrivalProcess process = MarkovModulatedArrivalProcess.withSojourns(new double[] { 1.0 },
+				new double[] { 1.0 });
+		int count = countArrivals(process, RATE, INTERVAL);
+
+		assertEquals(RATE * INTERVAL, count, 0.03 * RATE * INTERVAL);
+	}
+
+	public void testMarkovModulatedMeanRate() {
+		// equal sojourns, so the mean relative rate is 1
+		ArrivalProcess process = MarkovModulatedArrivalProcess.withSojourns(new double[] { 0.5, 1.5 },
+				new double[] { 10.0, 10.0 });
+		int count = countArrivals(process, RATE, 10 * INTERVAL);
+
+		assertEquals(RATE * 10 * INTERVAL, count, 0.03 * RATE * 10 * INTERVAL);
+	}
+
+	/**
+	 * Counts the arrivals of a process, checking that they increase and stay
+	 * within the interval
+	 */
+	private static int countArrivals(ArrivalProcess process, double rate, double interval) {
+		process.start(rate, interval, new Random(1));
+
+		int count = 0;
+		double previous = 0.0;
+		double time;
+		while (!Double.isNaN(time = process.nextArrivalTime())) {
+			assertTrue("Arrival " + time + " after " + previous, time >= previous);
+			assertTrue("Arrival " + time + " out of the interval", time <= interval);
+			previous = time;
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.arrival;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a converted trace is replayed shifted to zero and scaled
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class TraceArrivalProcessTest extends TestCase {
+
+	private static final double RATE = 2.0;
+
+	public void testTraceReplay() throws IOException {
+		File csv = File.createTempFile("trace", ".csv");
+		File trace = File.createTempFile("trace", ".bin");
+		try {
+			try (PrintWriter writer = new PrintWriter(csv, "UTF-8")) {
+				writer.println("timestamp");
+				for (int i = 0; i < 100; i++)
+					writer.println(1000.0 + i * 2.0);
+			}
+			assertEquals(100, new TraceConverter().convert(csv, trace));
+
+			// shifted to start at zero and twice as fast
+			ArrivalProcess process = new TraceArrivalProcess(trace, 0.5);
+			process.start(RATE, 50.0, new Random(4));
+			for (int i = 0; i <= 50; i++)
+				assertEquals(i * 1.0, process.nextArrivalTime(), 1e-9);
+			assertTrue(Double.isNaN(process.nextArrivalTime()));
+
+			// restarting replays the trace from the beginning
+			process.start(RATE, 50.0, new Random(4));
+			assertEquals(0.0, process.nextArrivalTime(), 1e-9);
+		} finally {
+			csv.delete();
+			trace.delete();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.network;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.Subscriber;
+import junit.framework.TestCase;
+
+/**
+ * Checks the lookups of the paths of a {@link PSNetworkDescriptor} and the
+ * completeness of the brokers of a path
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class PSNetworkDescriptorTest extends TestCase {
+
+	private PSNetworkDescriptor psNetwork;
+
+	@Override
+	protected void setUp() {
+		Publisher p1 = new Publisher("P1", "t1", 1.0, 10.0, 100.0);
+		Publisher p2 = new Publisher("P2", "t2", 1.0, 10.0, 100.0);
+		Subscriber s1 = new Subscriber("S1", "t1", 1.0, 0.0);
+
+		psNetwork = new PSNetworkDescriptor();
+		psNetwork.addNetworkPath(createPath("a", p1, s1, "B1", "B2"));
+		psNetwork.addNetworkPath(createPath("b", p1, new Subscriber("S2", "t1", 1.0, 0.0), "B1", "B3"));
+		psNetwork.addNetworkPath(createPath("c", p2, new Subscriber("S3", "t2", 1.0, 0.0), "B4"));
+	}
+
+	static PSNetworkPath createPath(String pathId, Publisher publisher, Subscriber subscriber, String... brokerIds) {
+		PSNetworkPath path = new PSNetworkPath(pathId, publisher, subscriber);
+		for (String brokerId : brokerIds)
+			path.addBrokerNode(new DeployablePathNode(new PSBroker(brokerId), 0.0));
+		return path;
+	}
+
+	public void testLookups() {
+		assertEquals(1, psNetwork.getPathIndex("b"));
+		assertEquals(-1, psNetwork.getPathIndex("d"));
+		assertEquals("c", psNetwork.getNetworkPathById("c").getPathId());
+		assertNull(psNetwork.getNetworkPathById("d"));
+		assertEquals("b", psNetwork.getNetworkPath(1).getPathId());
+		assertEquals(3, psNetwork.getPaths().size());
+	}
+
+	public void testFirstPathOfKey() {
+		// the first path added with a key is returned, as with a scan
+		assertEquals("a", psNetwork.getNetworkPathWithPublisher("P1").getPathId());
+		assertEquals("c", psNetwork.getNetworkPathWithPublisher("P2").getPathId());
+		assertEquals("b", psNetwork.getNetworkPathWithSubscriber("S2").getPathId());
+		assertEquals("a", psNetwork.getNetworkPathWithTopic("t1").getPathId());
+		assertEquals("c", psNetwork.getNetworkPathWithTopic("t2").getPathId());
+		assertNull(psNetwork.getNetworkPathWithSubscriber("S4"));
+		assertNull(psNetwork.getNetworkPathWithTopic("t3"));
+	}
+
+	public void testIsComplete() {
+		assertTrue(psNetwork.isComplete("a", new HashSet<>(Arrays.asList("B1", "B2"))));
+		assertTrue(psNetwork.isComplete("a", Collections.singleton("B1")));
+		assertTrue(psNetwork.isComplete("a", Collections.<String> emptySet()));
+		assertFalse(psNetwork.isComplete("a", new HashSet<>(Arrays.asList("B1", "B3"))));
+		assertFalse(psNetwork.isComplete("c", Collections.singleton("B5")));
+	}
+
+	public void testNodesAndEdges() {
+		// B1 is shared by a and b, each with its own edge from it
+		assertEquals(4, psNetwork.getNodeCount());
+		assertEquals(5, psNetwork.getEdgeCount());
+		assertEquals(psNetwork.getNodeIndex(0, 0), psNetwork.getNodeIndex(1, 0));
+		assertFalse(psNetwork.getEdgeIndex(0, 0) == psNetwork.getEdgeIndex(1, 0));
+		assertFalse(psNetwork.getNodeIndex(0, 1) == psNetwork.getNodeIndex(1, 1));
+
+		// the edge between two shared brokers is shared, the one to the
+		// subscriber is not
+		Publisher p1 = psNetwork.getNetworkPath(0).getPublisher();
+		psNetwork.addNetworkPath(createPath("d", p1, new Subscriber("S4", "t1", 1.0, 0.0), "B1", "B2"));
+		assertEquals(4, psNetwork.getNodeCount());
+		assertEquals(6, psNetwork.getEdgeCount());
+		assertEquals(psNetwork.getEdgeIndex(0, 0), psNetwork.getEdgeIndex(3, 0));
+		assertFalse(psNetwork.getEdgeIndex(0, 1) == psNetwork.getEdgeIndex(3, 1));
+	}
+
+	public void testBrokerInAnotherPosition() {
+		Publisher p2 = psNetwork.getNetworkPath(2).getPublisher();
+		Publisher p1 = psNetwork.getNetworkPath(0).getPublisher();
+		Subscriber s4 = new Subscriber("S4", "t1", 1.0, 0.0);
+
+		// B1 follows another publisher, B2 follows B1
+		assertRejected(createPath("d", p2, s4, "B1"));
+		assertRejected(createPath("d", p1, s4, "B2"));
+		assertRejected(createPath("d", p1, s4, "B1", "B3", "B2"));
+		assertEquals(3, psNetwork.getPaths().size());
+		assertEquals(4, psNetwork.getNodeCount());
+	}
+
+	public void testDuplicatePathId() {
+		Publisher p1 = psNetwork.getNetworkPath(0).getPublisher();
+		assertRejected(createPath("a", p1, new Subscriber("S4", "t1", 1.0, 0.0), "B1"));
+	}
+
+	private void assertRejected(PSNetworkPath path) {
+		try {
+			psNetwork.addNetworkPath(path);
+			fail("Path " + path.getPathId() + " accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testInvalidPathNumber() {
+		try {
+			psNetwork.getNetworkPath(3);
+			fail("Path 3 found");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
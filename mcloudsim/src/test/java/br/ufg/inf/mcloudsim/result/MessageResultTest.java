@@ -0,0 +1,95 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.result;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the records written by {@link MessageResultWriter} are read back
+ * by {@link MessageResultReader}, across chunks and with the node dictionary
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class MessageResultTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("results", ".bin");
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+	}
+
+	public void testEmpty() throws IOException {
+		new MessageResultWriter(file).close();
+
+		try (MessageResultReader reader = new MessageResultReader(file)) {
+			assertTrue(reader.getNodeNames().isEmpty());
+			assertNull(reader.nextChunk());
+		}
+	}
+
+	public void testRoundTrip() throws IOException {
+		String[] paths = { "p1", "p2" };
+		String[] brokers = { "B1", "B2", "B\u00e7" };
+		int records = MessageResultWriter.CHUNK_RECORDS + 10;
+
+		try (MessageResultWriter writer = new MessageResultWriter(file)) {
+			for (int i = 0; i < records; i++)
+				writer.append(paths[i % 2], brokers[i % 3], i % 5 == 0, i, i + 0.5, 0.25, 100 + i, i % 7);
+		}
+
+		try (MessageResultReader reader = new MessageResultReader(file)) {
+			assertEquals(Arrays.asList("p1", "B1", "p2", "B2", "B\u00e7"), reader.getNodeNames());
+
+			int i = 0;
+			int chunks = 0;
+			MessageResultReader.Chunk chunk;
+			while ((chunk = reader.nextChunk()) != null) {
+				chunks++;
+				for (int k = 0; k < chunk.getCount(); k++, i++) {
+					assertEquals(paths[i % 2], reader.getNodeNames().get(chunk.getPathId(k)));
+					assertEquals(brokers[i % 3], reader.getNodeNames().get(chunk.getBrokerId(k)));
+					assertEquals(i % 5 == 0, chunk.isOutput(k));
+					assertEquals(i, chunk.getSubmissionTime(k), 0.0);
+					assertEquals(i + 0.5, chunk.getFinishTime(k), 0.0);
+					assertEquals(0.25, chunk.getCpuTime(k), 0.0);
+					assertEquals(100 + i, chunk.getBytes(k));
+					assertEquals(i % 7, chunk.getOfflineTime(k), 0.0);
+				}
+			}
+			assertEquals(records, i);
+			assertEquals(2, chunks);
+		}
+	}
+
+	public void testNotAResultFile() throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[64]);
+		}
+
+		try {
+			new MessageResultReader(file).close();
+			fail("Invalid file accepted");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.Map;
+
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.Subscriber;
+import br.ufg.inf.mcloudsim.network.DeployablePathNode;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+import junit.framework.TestCase;
+
+/**
+ * Checks the statistics of the brokers of a dissemination tree with two
+ * paths, p1 (B1, B2) and p2 (B1, B3), sharing their first broker
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class BrokerStatisticsTest extends TestCase {
+
+	private static final double BATCH = SimulationConstants.BATCH_LENGTH;
+
+	private BrokerStatistics statistics;
+	private int p1;
+	private int p2;
+
+	@Override
+	protected void setUp() {
+		statistics = new BrokerStatistics(createTree());
+		p1 = statistics.getPathIndex("p1");
+		p2 = statistics.getPathIndex("p2");
+	}
+
+	/**
+	 * Creates the tree of the test
+	 */
+	static PSNetworkDescriptor createTree() {
+		Publisher publisher = new Publisher("P1", "t", 1.0, 10.0, 100.0);
+		PSBroker b1 = new PSBroker("B1");
+		PSNetworkDescriptor psNetwork = new PSNetworkDescriptor();
+		psNetwork.addNetworkPath(createPath("p1", publisher, new Subscriber("S1", "t", 1.0, 0.0), b1,
+				new PSBroker("B2")));
+		psNetwork.addNetworkPath(createPath("p2", publisher, new Subscriber("S2", "t", 1.0, 0.0), b1,
+				new PSBroker("B3")));
+		return psNetwork;
+	}
+
+	static PSNetworkPath createPath(String pathId, Publisher publisher, Subscriber subscriber,
+			PSBroker... brokers) {
+		PSNetworkPath path = new PSNetworkPath(pathId, publisher, subscriber);
+		for (PSBroker broker : brokers)
+			path.addBrokerNode(new DeployablePathNode(broker, 0.0));
+		return path;
+	}
+
+	public void testIndexes() {
+		assertEquals(-1, statistics.getPathIndex("p3"));
+		assertEquals(2, statistics.getHops(p1));
+		assertEquals("B1", statistics.getBrokerId(p2, 0));
+		assertEquals("B3", statistics.getBrokerId(p2, 1));
+		assertEquals(1, statistics.getHopIndex(p1, "B2"));
+		assertEquals(-1, statistics.getHopIndex(p1, "B3"));
+	}
+
+	public void testAveragesOfHops() {
+		statistics.addInput(p1, 1, 1.0, 1.0);
+		statistics.addInput(p1, 1, 2.0, 3.0);
+		statistics.addOutput(p1, 1, 2.0, 0.5, 4.0);
+
+		// only the brokers with finished messages have an average
+		Map<String, Double> avgDPr = statistics.getAvgDPrMapOfPath("p1");
+		assertEquals(1, avgDPr.size());
+		assertEquals(2.0, avgDPr.get("B2"), 0.0);
+		assertEquals(0.5, statistics.getAvgDTrMapOfPath("p1").get("B2"), 0.0);
+		assertEquals(4.0, statistics.getAvgRTMapOfPath("p1").get("B2"), 0.0);
+		assertEquals(2, statistics.getDPrHistogramMapOfPath("p1").get("B2").getCount());
+		assertEquals(0, statistics.getDPrHistogramMapOfPath("p1").get("B1").getCount());
+		assertTrue(statistics.getAvgRTMapOfPath("p3").isEmpty());
+	}
+
+	public void testSharedBroker() {
+		// B1 processes a message once for both paths, and transmits it to
+		// each next broker apart
+		statistics.addInput(p1, 0, 1.0, 2.0);
+		statistics.addOutput(p1, 0, 1.0, 0.5, 3.0);
+		statistics.addOutput(p2, 0, 1.0, 0.7, 5.0);
+
+		assertEquals(2.0, statistics.getAvgDPrMapOfPath("p2").get("B1"), 0.0);
+		assertEquals(1, statistics.getDPrHistogramMapOfPath("p2").get("B1").getCount());
+		assertEquals(3.0, statistics.getAvgRTMapOfPath("p1").get("B1"), 0.0);
+		assertEquals(5.0, statistics.getAvgRTMapOfPath("p2").get("B1"), 0.0);
+		assertEquals(0.7, statistics.getAvgDTrMapOfPath("p2").get("B1"), 0.0);
+
+		// the drops and the blocked time are kept once for each broker
+		statistics.addDrop(p2, 0);
+		statistics.addDrop(p2, 1);
+		statistics.addBlocked(p1, 0, 2.5);
+		assertEquals(1L, statistics.getDropMapOfPath("p1").get("B1").longValue());
+		assertEquals(0L, statistics.getDropMapOfPath("p1").get("B2").longValue());
+		assertEquals(1L, statistics.getDropMapOfPath("p2").get("B3").longValue());
+		assertEquals(2.5, statistics.getBlockedTimeMapOfPath("p2").get("B1"), 0.0);
+	}
+
+	public void testSteadyStateOfDeliveries() {
+		// the end-to-end RT alternates between batches with and without
+		// deliveries, and the empty batches do not bias the estimate
+		for (int batch = 0; batch < SimulationConstants.NUM_BATCHES; batch++) {
+			double time = (batch + 0.5) * BATCH;
+			if (batch % 3 != 2)
+				statistics.addDelivery(p1, time, 2.0);
+			statistics.addOutput(p1, 0, time, 0.1, 1.0);
+		}
+
+		RunningStatistics steadyState = statistics.getSteadyStateRTOfPath("p1");
+		assertEquals(2.0, steadyState.getMean(), 1e-12);
+		assertEquals(20, steadyState.getCount());
+		assertEquals(0, statistics.getSteadyStateRTOfPath("p2").getCount());
+		assertEquals(0, statistics.getSteadyStateRTOfPath("p3").getCount());
+	}
+
+	public void testSteadyStateOfHeldMessages() {
+		// the messages held while the subscriber is offline are counted when
+		// they are delivered, with the time they were held
+		for (int batch = 0; batch < SimulationConstants.NUM_BATCHES; batch++) {
+			double time = (batch + 0.5) * BATCH;
+			statistics.addDelivery(p1, time, 1.0);
+			if (batch % 2 == 1)
+				statistics.addDelivery(p1, time, 1.0 + BATCH);
+		}
+
+		RunningStatistics steadyState = statistics.getSteadyStateRTOfPath("p1");
+		assertEquals(1.0 + BATCH / 4, steadyState.getMean(), 1e-9);
+	}
+
+	public void testPathHistogram() {
+		statistics.addDelivery(p1, 1.0, 3.0);
+		statistics.addDelivery(p2, 1.0, 5.0);
+
+		assertEquals(1, statistics.getRTHistogramOfPath("p1").getCount());
+		assertEquals(3.0, statistics.getRTHistogramOfPath("p1").getMean(), 0.0);
+		assertEquals(5.0, statistics.getRTHistogramOfPath("p2").getMean(), 0.0);
+		assertEquals(0, statistics.getRTHistogramOfPath("p3").getCount());
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks which wakeups {@link PendingWakeup} schedules and which arriving
+ * events it ignores
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class PendingWakeupTest extends TestCase {
+
+	private PendingWakeup wakeup;
+
+	@Override
+	protected void setUp() {
+		wakeup = new PendingWakeup();
+	}
+
+	public void testNothingPending() {
+		assertEquals(Double.POSITIVE_INFINITY, wakeup.getTime(), 0.0);
+		assertFalse(wakeup.arrive(1.0));
+		assertEquals(1, wakeup.getStale());
+	}
+
+	public void testEarlierRequestReplaces() {
+		assertTrue(wakeup.request(10.0));
+		assertTrue(wakeup.request(5.0));
+		assertEquals(5.0, wakeup.getTime(), 0.0);
+
+		assertTrue(wakeup.arrive(5.0));
+		assertEquals(Double.POSITIVE_INFINITY, wakeup.getTime(), 0.0);
+		// the replaced event is ignored
+		assertFalse(wakeup.arrive(10.0));
+		assertEquals(2, wakeup.getScheduled());
+		assertEquals(1, wakeup.getStale());
+	}
+
+	public void testLaterRequestDropped() {
+		assertTrue(wakeup.request(5.0));
+		assertFalse(wakeup.request(10.0));
+		assertEquals(5.0, wakeup.getTime(), 0.0);
+
+		assertTrue(wakeup.arrive(5.0));
+		assertEquals(2, wakeup.getRequested());
+		assertEquals(1, wakeup.getScheduled());
+	}
+
+	public void testStaleArrivalIgnored() {
+		assertTrue(wakeup.request(10.0));
+		assertTrue(wakeup.request(5.0));
+		assertTrue(wakeup.arrive(5.0));
+		assertTrue(wakeup.request(20.0));
+
+		// the event replaced at 10 arrives while the wakeup at 20 is pending
+		assertFalse(wakeup.arrive(10.0));
+		assertEquals(20.0, wakeup.getTime(), 0.0);
+		assertTrue(wakeup.arrive(20.0));
+	}
+
+	public void testEqualTimeRequest() {
+		assertTrue(wakeup.request(5.0));
+		assertFalse(wakeup.request(5.0));
+		assertTrue(wakeup.arrive(5.0));
+
+		// requested again at the same time once done, e.g. with no delay
+		assertTrue(wakeup.request(5.0));
+		assertTrue(wakeup.arrive(5.0));
+	}
+
+	public void testEqualTimeDuplicate() {
+		// the event at 10 is replaced, then requested again: two events at 10
+		assertTrue(wakeup.request(10.0));
+		assertTrue(wakeup.request(5.0));
+		assertTrue(wakeup.arrive(5.0));
+		assertTrue(wakeup.request(10.0));
+
+		assertTrue(wakeup.arrive(10.0));
+		assertFalse(wakeup.arrive(10.0));
+		assertEquals(3, wakeup.getScheduled());
+		assertEquals(1, wakeup.getStale());
+	}
+
+	/**
+	 * Simulates an entity that, at each update, asks to wake up at the end of
+	 * each of its activities, through a future event queue. No update is lost
+	 * and each update is done once.
+	 */
+	public void testEventQueue() {
+		Random random = new Random(17);
+		PriorityQueue<Double> events = new PriorityQueue<>();
+		PriorityQueue<Double> activities = new PriorityQueue<>();
+		for (int i = 0; i < 1000; i++)
+			activities.add(random.nextDouble() * 1000.0);
+
+		int updates = 0;
+		double last = -1.0;
+		schedule(events, 0.0);
+		while (!events.isEmpty()) {
+			double now = events.poll();
+			if (!wakeup.arrive(now))
+				continue;
+
+			assertTrue(now > last);
+			last = now;
+			updates++;
+			while (!activities.isEmpty() && activities.peek() <= now)
+				activities.poll();
+			for (double end : activities)
+				schedule(events, end);
+			// new activities may end before the pending wakeup
+			if (random.nextInt(4) == 0) {
+				double end = now + random.nextDouble() * 10.0;
+				activities.add(end);
+				schedule(events, end);
+			}
+		}
+
+		assertTrue(activities.isEmpty());
+		assertEquals(updates, wakeup.getScheduled() - wakeup.getStale());
+		assertTrue(wakeup.getScheduled() * 10 < wakeup.getRequested());
+	}
+
+	private void schedule(PriorityQueue<Double> events, double time) {
+		if (wakeup.request(time))
+			events.add(time);
+	}
+}
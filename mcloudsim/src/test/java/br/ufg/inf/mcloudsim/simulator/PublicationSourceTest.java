@@ -0,0 +1,59 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.Collections;
+
+import br.ufg.inf.mcloudsim.arrival.ExactCountArrivalProcess;
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.Subscriber;
+import br.ufg.inf.mcloudsim.network.PSNetworkPath;
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link PublicationSource} gives the publications of its
+ * publisher one at a time, within the simulation interval
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class PublicationSourceTest extends TestCase {
+
+	public void testNoPath() {
+		Publisher publisher = new Publisher("P1", "t", 1.0, 10.0, 100.0);
+		try {
+			new PublicationSource(publisher, Collections.<PSNetworkPath> emptyList(), 10.0);
+			fail("Publisher without path accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testArrivals() {
+		Publisher publisher = new Publisher("P1", "t", 0.25, 10.0, 100.0);
+		publisher.setArrivalProcess(new ExactCountArrivalProcess());
+		PSNetworkPath path = BrokerStatisticsTest.createPath("p1", publisher, new Subscriber("S1", "t", 1.0, 0.0),
+				new PSBroker("B1"));
+		PublicationSource source = new PublicationSource(publisher, Collections.singletonList(path), 10.0);
+
+		assertSame(publisher, source.getPublisher());
+		assertEquals(1, source.getRootPaths().size());
+
+		// ceil(0.25 x 10) publications, each one generated when asked for
+		double previous = 0.0;
+		for (int i = 0; i < 3; i++) {
+			double time = source.nextArrivalTime();
+			assertTrue(time >= previous && time <= 10.0);
+			previous = time;
+		}
+		assertTrue(Double.isNaN(source.nextArrivalTime()));
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the values of a broker shared by several paths are kept for
+ * each path, in a run and across the runs
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationResultTest extends TestCase {
+
+	public void testSharedBroker() {
+		ReplicationResult result = new ReplicationResult(1.0, 1);
+		result.addBroker("p1", "b1", 0.1, 0.2, 1.0);
+		result.addBroker("p2", "b1", 0.1, 0.4, 2.0);
+		result.addBrokerHistogram("p1", "b1", new long[] { 1 });
+		result.addBrokerHistogram("p2", "b1", new long[] { 2 });
+
+		assertEquals(2, result.getBrokerRT().size());
+		assertEquals(1.0, result.getBrokerRT().get(ReplicationResult.getBrokerKey("p1", "b1")), 0.0);
+		assertEquals(2.0, result.getBrokerRT().get(ReplicationResult.getBrokerKey("p2", "b1")), 0.0);
+		assertEquals(0.2, result.getBrokerDTr().get(ReplicationResult.getBrokerKey("p1", "b1")), 0.0);
+		assertEquals(0.4, result.getBrokerDTr().get(ReplicationResult.getBrokerKey("p2", "b1")), 0.0);
+		assertEquals(2, result.getBrokerRTHistogram().size());
+	}
+
+	public void testSharedBrokerAcrossRuns() {
+		ReplicationStatistics statistics = new ReplicationStatistics(1.0);
+		for (int run = 1; run <= 2; run++) {
+			ReplicationResult result = new ReplicationResult(1.0, run);
+			result.addBroker("p1", "b1", 0.1, 0.2, run);
+			result.addBroker("p2", "b1", 0.1, 0.4, 10.0 * run);
+			statistics.scheduleRun();
+			statistics.addResult(result);
+		}
+
+		assertEquals(1.5, statistics.getBrokerRT().get(ReplicationResult.getBrokerKey("p1", "b1")).getMean(), 1e-12);
+		assertEquals(15.0, statistics.getBrokerRT().get(ReplicationResult.getBrokerKey("p2", "b1")).getMean(), 1e-12);
+	}
+
+	public void testKeys() {
+		assertFalse(ReplicationResult.getBrokerKey("p1", "b1").equals(ReplicationResult.getBrokerKey("p2", "b1")));
+		assertFalse(ReplicationResult.getBrokerKey("p1", "b1").equals(ReplicationResult.getBrokerKey("p1", "b2")));
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import br.ufg.inf.mcloudsim.utils.RunningStatistics;
+import junit.framework.TestCase;
+
+/**
+ * Checks that the replications stop on the steady-state RT of the runs, one
+ * observation per run, and not on their pooled batch means
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class ReplicationStatisticsTest extends TestCase {
+
+	private static final double CONFIDENCE = 0.95;
+
+	public void testUnknownInterval() {
+		ReplicationStatistics statistics = new ReplicationStatistics(1.0);
+		assertEquals(Double.POSITIVE_INFINITY, statistics.getRelativeHalfWidth(CONFIDENCE), 0.0);
+
+		statistics.scheduleRun();
+		statistics.addResult(result(1, "p1", 10.0));
+		assertEquals(Double.POSITIVE_INFINITY, statistics.getRelativeHalfWidth(CONFIDENCE), 0.0);
+	}
+
+	public void testAcrossRuns() {
+		ReplicationStatistics statistics = new ReplicationStatistics(1.0);
+		double[] means = { 9.0, 10.0, 11.0 };
+		for (int run = 0; run < means.length; run++) {
+			statistics.scheduleRun();
+			statistics.addResult(result(run + 1, "p1", means[run]));
+		}
+
+		RunningStatistics expected = new RunningStatistics();
+		for (double mean : means)
+			expected.add(mean);
+
+		assertEquals(3, statistics.getCompletedRuns());
+		assertEquals(0, statistics.getPendingRuns());
+		assertEquals(expected.getRelativeHalfWidth(CONFIDENCE), statistics.getRelativeHalfWidth(CONFIDENCE), 1e-12);
+		// the 90 pooled batches would give a much narrower interval
+		assertTrue(statistics.getPathRTBatches().get("p1").getRelativeHalfWidth(CONFIDENCE) < statistics
+				.getRelativeHalfWidth(CONFIDENCE) / 3);
+	}
+
+	public void testWidestPath() {
+		ReplicationStatistics statistics = new ReplicationStatistics(1.0);
+		double[][] means = { { 10.0, 9.0 }, { 10.1, 11.0 }, { 9.9, 10.0 } };
+		for (int run = 0; run < means.length; run++) {
+			ReplicationResult result = result(run + 1, "p1", means[run][0]);
+			result.addSteadyState("p2", means[run][1], 0.0, batches(means[run][1]));
+			statistics.scheduleRun();
+			statistics.addResult(result);
+		}
+
+		assertEquals(statistics.getPathSteadyStateRT().get("p2").getRelativeHalfWidth(CONFIDENCE),
+				statistics.getRelativeHalfWidth(CONFIDENCE), 1e-12);
+	}
+
+	public void testFailures() {
+		ReplicationStatistics statistics = new ReplicationStatistics(1.0);
+		assertEquals(1, statistics.scheduleRun());
+		assertEquals(2, statistics.scheduleRun());
+		statistics.addFailure();
+
+		assertEquals(1, statistics.getFailedRuns());
+		assertEquals(1, statistics.getPendingRuns());
+		assertEquals(0, statistics.getCompletedRuns());
+	}
+
+	private static ReplicationResult result(int run, String pathId, double steadyStateRT) {
+		ReplicationResult result = new ReplicationResult(1.0, run);
+		result.addPath(pathId, steadyStateRT, null, null);
+		result.addSteadyState(pathId, steadyStateRT, 0.0, batches(steadyStateRT));
+		return result;
+	}
+
+	/**
+	 * 30 batch means around the mean of the run
+	 */
+	private static double[] batches(double mean) {
+		RunningStatistics batches = new RunningStatistics();
+		for (int i = 0; i < 30; i++)
+			batches.add(mean + (i % 2 == 0 ? 0.5 : -0.5));
+		return batches.toArray();
+	}
+}
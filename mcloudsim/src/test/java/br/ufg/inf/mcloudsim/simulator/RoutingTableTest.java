@@ -0,0 +1,99 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.Publisher;
+import br.ufg.inf.mcloudsim.core.Subscriber;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import junit.framework.TestCase;
+
+/**
+ * Checks the routes compiled by {@link RoutingTable} for the dissemination
+ * tree of {@link BrokerStatisticsTest}, with a VM per broker
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class RoutingTableTest extends TestCase {
+
+	private PSNetworkDescriptor psNetwork;
+	private Map<String, Integer> nodeToVmMap;
+	private Map<Integer, Integer> vmsToDatacentersMap;
+
+	@Override
+	protected void setUp() {
+		psNetwork = BrokerStatisticsTest.createTree();
+		nodeToVmMap = new HashMap<>();
+		vmsToDatacentersMap = new HashMap<>();
+		for (int i = 1; i <= 3; i++) {
+			nodeToVmMap.put("B" + i, 10 + i);
+			vmsToDatacentersMap.put(10 + i, 100 + i);
+		}
+	}
+
+	public void testHops() {
+		RoutingTable routingTable = new RoutingTable(psNetwork, nodeToVmMap, vmsToDatacentersMap);
+		int p2 = psNetwork.getPathIndex("p2");
+
+		assertEquals("p2", routingTable.getPath(p2).getPathId());
+		assertEquals("P1", routingTable.getPublisher(p2).getId());
+		assertEquals(2, routingTable.getHops(p2));
+		assertEquals("B3", routingTable.getBrokerId(p2, 1));
+		assertEquals(11, routingTable.getVmId(p2, 0));
+		assertEquals(13, routingTable.getVmId(p2, 1));
+		assertEquals(103, routingTable.getDatacenterId(p2, 1));
+		assertFalse(routingTable.isLastHop(p2, 0));
+		assertTrue(routingTable.isLastHop(p2, 1));
+	}
+
+	public void testBranches() {
+		// p3 ends in B1 and p4 goes through the edge of p1 from B1 to B2
+		Publisher publisher = psNetwork.getNetworkPath(0).getPublisher();
+		psNetwork.addNetworkPath(BrokerStatisticsTest.createPath("p3", publisher,
+				new Subscriber("S3", "t", 1.0, 0.0), new PSBroker("B1")));
+		psNetwork.addNetworkPath(BrokerStatisticsTest.createPath("p4", publisher,
+				new Subscriber("S4", "t", 1.0, 0.0), new PSBroker("B1"), new PSBroker("B2")));
+		RoutingTable routingTable = new RoutingTable(psNetwork, nodeToVmMap, vmsToDatacentersMap);
+
+		// a branch for each next broker and each subscriber of a path ending
+		// in the broker, the same from every path through it
+		int[] expected = { 0, 1, 2 };
+		for (int path = 0; path < 4; path++)
+			assertTrue(Arrays.equals(expected, routingTable.getBranches(path, 0)));
+		assertTrue(Arrays.equals(new int[] { 0, 3 }, routingTable.getBranches(3, 1)));
+		assertTrue(Arrays.equals(new int[] { 1 }, routingTable.getBranches(1, 1)));
+		assertTrue(routingTable.isLastHop(2, 0));
+	}
+
+	public void testBrokerWithoutVm() {
+		nodeToVmMap.remove("B2");
+		try {
+			new RoutingTable(psNetwork, nodeToVmMap, vmsToDatacentersMap);
+			fail("Broker without VM accepted");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testVmNotCreated() {
+		vmsToDatacentersMap.remove(13);
+		try {
+			new RoutingTable(psNetwork, nodeToVmMap, vmsToDatacentersMap);
+			fail("VM not created accepted");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the metrics of each window and the ring of windows of
+ * {@link WindowedMetrics}, on the tree of {@link BrokerStatisticsTest}
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class WindowedMetricsTest extends TestCase {
+
+	private static final double WINDOW = 10.0;
+
+	private WindowedMetrics metrics;
+	private int p1;
+	private int cell;
+
+	@Override
+	protected void setUp() {
+		metrics = new WindowedMetrics(BrokerStatisticsTest.createTree(), WINDOW, 4);
+		p1 = 0;
+		cell = metrics.getCell("p1", "B1");
+	}
+
+	public void testCells() {
+		assertTrue(cell >= 0);
+		assertFalse(cell == metrics.getCell("p1", "B2"));
+		assertFalse(cell == metrics.getCell("p2", "B1"));
+		assertEquals(-1, metrics.getCell("p1", "B3"));
+		assertEquals(-1, metrics.getCell("p3", "B1"));
+	}
+
+	public void testCompletedAndRT() {
+		metrics.addArrival(p1, 0, 1.0);
+		metrics.addArrival(p1, 0, 2.0);
+		metrics.addDeparture(p1, 0, 3.0, 2.0);
+		metrics.addDeparture(p1, 0, 6.0, 4.0);
+		metrics.addArrival(p1, 0, 12.0);
+		metrics.addDeparture(p1, 0, 13.0, 1.0);
+
+		assertEquals(0, metrics.getFirstWindow());
+		assertEquals(1, metrics.getLastWindow());
+		assertEquals(2, metrics.getCompleted(0, cell));
+		assertEquals(3.0, metrics.getMeanRT(0, cell), 1e-12);
+		assertEquals(4.0, metrics.getMaxRT(0, cell), 0.0);
+		assertEquals(1, metrics.getCompleted(1, cell));
+		assertTrue(Double.isNaN(metrics.getMeanRT(1, metrics.getCell("p2", "B3"))));
+	}
+
+	public void testQueueLength() {
+		// one message from 0 to 5, two from 2 to 4
+		metrics.addArrival(p1, 0, 0.0);
+		metrics.addArrival(p1, 0, 2.0);
+		metrics.addDeparture(p1, 0, 4.0, 2.0);
+		metrics.addDeparture(p1, 0, 5.0, 5.0);
+		metrics.addArrival(p1, 0, 15.0);
+
+		assertEquals((2.0 + 2.0 * 2 + 1.0) / WINDOW, metrics.getMeanQueueLength(0, cell), 1e-12);
+		assertEquals(2, metrics.getMaxQueueLength(0, cell));
+		assertEquals(1, metrics.getMaxQueueLength(1, cell));
+
+		// a message dropped leaves the queue without being completed
+		metrics.addDrop(p1, 0, 16.0);
+		assertEquals(0, metrics.getCompleted(1, cell));
+		// the current window is averaged up to the last event
+		assertEquals(1.0 / 6.0, metrics.getMeanQueueLength(1, cell), 1e-12);
+	}
+
+	public void testRing() {
+		for (int window = 0; window < 10; window++) {
+			metrics.addArrival(p1, 0, window * WINDOW);
+			metrics.addDeparture(p1, 0, window * WINDOW + 1.0, window);
+		}
+
+		assertEquals(6, metrics.getFirstWindow());
+		assertEquals(9, metrics.getLastWindow());
+		assertEquals(6.0, metrics.getMeanRT(6, cell), 0.0);
+		try {
+			metrics.getCompleted(5, cell);
+			fail("Window out of the ring");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testOutput() {
+		StringWriter csv = new StringWriter();
+		metrics.setOutput(new PrintWriter(csv));
+		for (int window = 0; window < 10; window++) {
+			metrics.addArrival(p1, 0, window * WINDOW);
+			metrics.addDeparture(p1, 0, window * WINDOW + 1.0, window);
+		}
+		metrics.close(100.0);
+
+		// every window is written once, for each of the 4 cells
+		String[] lines = csv.toString().split("\\r?\\n");
+		assertEquals(WindowedMetrics.HEADER, lines[0]);
+		assertEquals(1 + 11 * 4, lines.length);
+		int completed = 0;
+		for (int i = 1; i < lines.length; i++)
+			completed += Integer.parseInt(lines[i].split(",")[3]);
+		assertEquals(10, completed);
+	}
+
+	public void testInvalidArguments() {
+		try {
+			new WindowedMetrics(BrokerStatisticsTest.createTree(), 0.0, 4);
+			fail("Invalid window length accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new WindowedMetrics(BrokerStatisticsTest.createTree(), WINDOW, 0);
+			fail("Invalid number of windows accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
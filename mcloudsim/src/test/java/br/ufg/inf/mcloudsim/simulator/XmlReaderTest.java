@@ -0,0 +1,182 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import br.ufg.inf.mcloudsim.core.BatchingPolicy;
+import br.ufg.inf.mcloudsim.core.OverflowPolicy;
+import br.ufg.inf.mcloudsim.core.PSBroker;
+import br.ufg.inf.mcloudsim.core.ProcessingPolicy;
+import br.ufg.inf.mcloudsim.core.QueuePolicy;
+import br.ufg.inf.mcloudsim.core.TransmissionPolicy;
+import br.ufg.inf.mcloudsim.network.PSNetworkDescriptor;
+import junit.framework.TestCase;
+
+/**
+ * Checks the policies of the brokers read by {@link XmlReader} from a network
+ * with a single path P1 B1 S1
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class XmlReaderTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("network", ".xml");
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Reads the broker of the network
+	 *
+	 * @param policies
+	 *            the policy elements of the broker
+	 */
+	private PSBroker readBroker(String policies) throws IOException, XmlParserException {
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("<experiment><nodes>");
+			out.println("<publisher id=\"P1\"><topic>t</topic><rate>1</rate><MIpr>10</MIpr><Btr>100</Btr></publisher>");
+			out.println("<broker id=\"B1\">" + policies + "</broker>");
+			out.println("<subscriber id=\"S1\"><topic>t</topic><tON>1</tON><tOFF>0</tOFF></subscriber>");
+			out.println("</nodes><paths><path><pathSequence>P1 B1 S1</pathSequence><nodesAtt>");
+			out.println("<node id=\"P1\" rt=\"0.0\" /><node id=\"B1\" lOth=\"1\" /><node id=\"S1\" rt=\"0.0\" />");
+			out.println("</nodesAtt></path></paths></experiment>");
+		}
+
+		PSNetworkDescriptor psNetwork = XmlReader.readNetworkDescriptor(file.getAbsolutePath());
+		return (PSBroker) psNetwork.getNetworkNode("B1");
+	}
+
+	public void testBatchingPolicy() throws Exception {
+		BatchingPolicy batchingPolicy = readBroker(
+				"<batching maxMessages=\"10\" maxBytes=\"1000\" linger=\"0.05\" header=\"64\" />")
+						.getBatchingPolicy();
+
+		assertTrue(batchingPolicy.isEnabled());
+		assertEquals(10, batchingPolicy.getMaxMessages());
+		assertEquals(1000, batchingPolicy.getMaxBytes());
+		assertEquals(0.05, batchingPolicy.getMaxLinger(), 0.0);
+		assertEquals(64, batchingPolicy.getHeaderBytes());
+	}
+
+	public void testBatchingDefaults() throws Exception {
+		assertSame(BatchingPolicy.NONE, readBroker("").getBatchingPolicy());
+		assertFalse(BatchingPolicy.NONE.isEnabled());
+
+		// only the number of messages limits the batches
+		BatchingPolicy batchingPolicy = readBroker("<batching maxMessages=\"4\" />").getBatchingPolicy();
+		assertEquals(Long.MAX_VALUE, batchingPolicy.getMaxBytes());
+		assertEquals(0.0, batchingPolicy.getMaxLinger(), 0.0);
+		assertEquals(0, batchingPolicy.getHeaderBytes());
+	}
+
+	public void testInvalidBatchingPolicy() throws Exception {
+		try {
+			readBroker("<batching maxMessages=\"0\" />");
+			fail("Batches of no message accepted");
+		} catch (XmlParserException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	public void testQueuePolicy() throws Exception {
+		QueuePolicy dropOldest = readBroker("<queue capacity=\"100\" overflow=\"drop-oldest\" />").getQueuePolicy();
+		assertEquals(100, dropOldest.getCapacity());
+		assertEquals(OverflowPolicy.DROP_OLDEST, dropOldest.getOverflowPolicy());
+		assertTrue(dropOldest.isDropping());
+		assertFalse(dropOldest.isBackpressure());
+
+		QueuePolicy backpressure = readBroker("<queue capacity=\"5\" overflow=\"backpressure\" />").getQueuePolicy();
+		assertFalse(backpressure.isDropping());
+		assertTrue(backpressure.isBackpressure());
+
+		QueuePolicy dropNewest = readBroker("<queue capacity=\"5\" />").getQueuePolicy();
+		assertEquals(OverflowPolicy.DROP_NEWEST, dropNewest.getOverflowPolicy());
+	}
+
+	public void testUnboundedQueue() throws Exception {
+		// neither drops nor holds messages
+		QueuePolicy unbounded = readBroker("").getQueuePolicy();
+		assertSame(QueuePolicy.UNBOUNDED, unbounded);
+		assertFalse(unbounded.isDropping());
+		assertFalse(unbounded.isBackpressure());
+		assertFalse(new QueuePolicy(Integer.MAX_VALUE, OverflowPolicy.BACKPRESSURE).isBackpressure());
+	}
+
+	public void testInvalidQueuePolicy() throws Exception {
+		try {
+			readBroker("<queue capacity=\"5\" overflow=\"drop-random\" />");
+			fail("Unknown overflow policy accepted");
+		} catch (XmlParserException e) {
+			// expected
+		}
+		try {
+			readBroker("<queue capacity=\"0\" />");
+			fail("Queue of no message accepted");
+		} catch (XmlParserException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	public void testTransmissionPolicy() throws Exception {
+		TransmissionPolicy capped = readBroker("<transmission flows=\"8\" flowBandwidth=\"10\" />")
+				.getTransmissionPolicy();
+		assertEquals(8, capped.getMaxFlows());
+		assertEquals(10.0, capped.getFlowBandwidth(), 0.0);
+		assertTrue(capped.isCapped());
+
+		// the flows share the whole bandwidth
+		TransmissionPolicy shared = readBroker("<transmission flows=\"4\" />").getTransmissionPolicy();
+		assertEquals(4, shared.getMaxFlows());
+		assertFalse(shared.isCapped());
+
+		assertSame(TransmissionPolicy.SINGLE_FLOW, readBroker("").getTransmissionPolicy());
+	}
+
+	public void testInvalidTransmissionPolicy() throws Exception {
+		String[] invalid = { "<transmission flows=\"0\" />",
+				"<transmission flows=\"2\" flowBandwidth=\"0\" />",
+				"<transmission flows=\"2\" flowBandwidth=\"NaN\" />" };
+		for (String policy : invalid) {
+			try {
+				readBroker(policy);
+				fail(policy + " accepted");
+			} catch (XmlParserException e) {
+				assertTrue(e.getCause() instanceof IllegalArgumentException);
+			}
+		}
+	}
+
+	public void testProcessingPolicy() throws Exception {
+		assertEquals(ProcessingPolicy.TIME_SHARED,
+				readBroker("<processing scheduler=\"time-shared\" />").getProcessingPolicy());
+		assertEquals(ProcessingPolicy.SPACE_SHARED,
+				readBroker("<processing scheduler=\"Space-Shared\" />").getProcessingPolicy());
+		assertEquals(ProcessingPolicy.SPACE_SHARED, readBroker("<processing />").getProcessingPolicy());
+		assertEquals(ProcessingPolicy.SPACE_SHARED, readBroker("").getProcessingPolicy());
+
+		try {
+			readBroker("<processing scheduler=\"round-robin\" />");
+			fail("Unknown scheduler accepted");
+		} catch (XmlParserException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.trace;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the records moved through a {@link TraceRingBuffer}, in order and
+ * without loss while the consumer reads them
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class TraceRingBufferTest extends TestCase {
+
+	public void testInvalidCapacity() {
+		try {
+			new TraceRingBuffer(0);
+			fail("Capacity 0 accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testRecordLayout() {
+		TraceRingBuffer ring = new TraceRingBuffer(4);
+		ring.put(1.5, 2, 3, 4, 5.5);
+		assertFalse(ring.isEmpty());
+
+		ByteBuffer buffer = ByteBuffer.allocate(10 * TraceRingBuffer.RECORD_SIZE);
+		assertEquals(1, ring.drainTo(buffer));
+		assertTrue(ring.isEmpty());
+		assertEquals(TraceRingBuffer.RECORD_SIZE, buffer.position());
+
+		buffer.flip();
+		assertEquals(1.5, buffer.getDouble(), 0.0);
+		assertEquals(2, buffer.getInt());
+		assertEquals(3, buffer.getInt());
+		assertEquals(4, buffer.getInt());
+		assertEquals(0, buffer.getInt());
+		assertEquals(5.5, buffer.getDouble(), 0.0);
+	}
+
+	public void testWrapAround() {
+		// rounded up to 4 records
+		TraceRingBuffer ring = new TraceRingBuffer(3);
+		ByteBuffer buffer = ByteBuffer.allocate(3 * TraceRingBuffer.RECORD_SIZE);
+
+		int next = 0;
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 4; i++)
+				ring.put(round, i, round * 4 + i, 0, 0.0);
+
+			// the buffer takes only 3 records at once
+			buffer.clear();
+			assertEquals(3, ring.drainTo(buffer));
+			next = assertCloudletIds(buffer, next);
+			buffer.clear();
+			assertEquals(1, ring.drainTo(buffer));
+			next = assertCloudletIds(buffer, next);
+		}
+		assertEquals(20, next);
+	}
+
+	public void testDroppedOnceClosed() {
+		TraceRingBuffer ring = new TraceRingBuffer(2);
+		ring.put(0.0, 0, 0, 0, 0.0);
+		ring.close();
+		ring.put(1.0, 0, 1, 0, 0.0);
+		ring.put(2.0, 0, 2, 0, 0.0);
+		ring.put(3.0, 0, 3, 0, 0.0);
+
+		assertTrue(ring.isClosed());
+		assertEquals(3, ring.getDropped());
+		assertEquals(1, ring.drainTo(ByteBuffer.allocate(TraceRingBuffer.RECORD_SIZE * 4)));
+	}
+
+	public void testConcurrentConsumer() throws InterruptedException {
+		final int records = 100000;
+		final TraceRingBuffer ring = new TraceRingBuffer(64);
+		final int[] read = new int[1];
+		final boolean[] inOrder = { true };
+
+		Thread consumer = new Thread(() -> {
+			ByteBuffer buffer = ByteBuffer.allocate(16 * TraceRingBuffer.RECORD_SIZE);
+			while (read[0] < records) {
+				buffer.clear();
+				int n = ring.drainTo(buffer);
+				buffer.flip();
+				for (int k = 0; k < n; k++) {
+					buffer.getDouble();
+					buffer.getInt();
+					if (buffer.getInt() != read[0]++)
+						inOrder[0] = false;
+					buffer.getInt();
+					buffer.getInt();
+					buffer.getDouble();
+				}
+				if (n == 0)
+					Thread.yield();
+			}
+		});
+		consumer.start();
+
+		// the producer waits for the consumer whenever the ring is full
+		for (int i = 0; i < records; i++)
+			ring.put(i, 0, i, 0, 0.0);
+		consumer.join(60000);
+
+		assertFalse(consumer.isAlive());
+		assertEquals(records, read[0]);
+		assertTrue(inOrder[0]);
+		assertEquals(0, ring.getDropped());
+	}
+
+	/**
+	 * Checks that the records drained have the cloudlet ids following the
+	 * previous ones
+	 */
+	private static int assertCloudletIds(ByteBuffer buffer, int next) {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			buffer.getDouble();
+			buffer.getInt();
+			assertEquals(next++, buffer.getInt());
+			buffer.getInt();
+			buffer.getInt();
+			buffer.getDouble();
+		}
+		return next;
+	}
+}
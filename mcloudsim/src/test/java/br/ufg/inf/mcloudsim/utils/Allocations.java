@@ -0,0 +1,62 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated by the current thread, for the tests of the
+ * structures used on the update paths of the schedulers
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class Allocations {
+
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+	private static com.sun.management.ThreadMXBean threadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean))
+			return null;
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		if (!threadBean.isThreadAllocatedMemorySupported())
+			return null;
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		return threadBean;
+	}
+
+	/**
+	 * @return if the allocations can be measured in this JVM
+	 */
+	public static boolean isSupported() {
+		return THREAD_BEAN != null;
+	}
+
+	/**
+	 * Runs a task and measures the bytes it allocates. The task is run once
+	 * before, so that loading and linking its classes is not measured, and
+	 * the cost of the measure itself is subtracted
+	 *
+	 * @return the bytes allocated by the task
+	 */
+	public static long measure(Runnable task) {
+		task.run();
+
+		long id = Thread.currentThread().getId();
+		long start = THREAD_BEAN.getThreadAllocatedBytes(id);
+		long overhead = THREAD_BEAN.getThreadAllocatedBytes(id) - start;
+
+		start = THREAD_BEAN.getThreadAllocatedBytes(id);
+		task.run();
+		return Math.max(0, THREAD_BEAN.getThreadAllocatedBytes(id) - start - overhead);
+	}
+}
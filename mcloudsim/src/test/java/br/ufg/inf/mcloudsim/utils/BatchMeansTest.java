@@ -0,0 +1,94 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the warm-up detection (MSER) and the steady-state estimate of
+ * {@link BatchMeans}
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class BatchMeansTest extends TestCase {
+
+	public void testNoWarmupWithFewBatches() {
+		assertEquals(0, BatchMeans.detectWarmup(new double[] { 100.0, 1.0, 1.0 }));
+	}
+
+	public void testExactWarmup() {
+		// the tail is constant, so truncating at its start leaves no variance
+		double[] means = { 50.0, 40.0, 30.0, 20.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0, 10.0 };
+
+		assertEquals(4, BatchMeans.detectWarmup(means));
+	}
+
+	public void testDeletesTransient() {
+		Random random = new Random(9);
+		double[] means = new double[30];
+		// decaying transient over the first 6 batches
+		for (int i = 0; i < means.length; i++)
+			means[i] = 10.0 + (i < 6 ? 50.0 * (6 - i) : 0.0) + random.nextGaussian() * 0.1;
+
+		int warmup = BatchMeans.detectWarmup(means);
+		assertTrue("Warm-up of " + warmup + " batches", warmup >= 6 && warmup <= means.length / 2);
+	}
+
+	public void testStationarySeries() {
+		for (int seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			double[] means = new double[30];
+			for (int i = 0; i < means.length; i++)
+				means[i] = 10.0 + random.nextGaussian() * 0.1;
+
+			// noise may be truncated, but the mean is not biased
+			assertTrue(BatchMeans.detectWarmup(means) <= means.length / 2);
+			assertEquals(10.0, BatchMeans.steadyState(means).getMean(), 0.1);
+		}
+	}
+
+	public void testDeletesAtMostHalf() {
+		double[] means = new double[20];
+		// a series that keeps growing would delete everything
+		for (int i = 0; i < means.length; i++)
+			means[i] = i * i;
+
+		assertTrue(BatchMeans.detectWarmup(means) <= means.length / 2);
+	}
+
+	public void testSteadyState() {
+		Random random = new Random(13);
+		BatchMeans batchMeans = new BatchMeans(10.0);
+		for (int i = 0; i < 30000; i++) {
+			double time = i * 0.01;
+			double warmup = time < 50.0 ? 100.0 : 0.0;
+			batchMeans.add(time, 5.0 + warmup + random.nextGaussian());
+		}
+
+		RunningStatistics steadyState = batchMeans.getSteadyState();
+		assertEquals(5.0, steadyState.getMean(), 0.1);
+		assertTrue(steadyState.getCount() >= 15 && steadyState.getCount() <= 25);
+	}
+
+	public void testEmptyBatchesIgnored() {
+		BatchMeans batchMeans = new BatchMeans(1.0);
+		batchMeans.add(0.5, 1.0);
+		batchMeans.add(5.5, 3.0);
+		batchMeans.add(7.5, Double.NaN);
+
+		double[] means = batchMeans.getBatchMeans();
+		assertEquals(6, means.length);
+		assertTrue(Double.isNaN(means[1]));
+		assertEquals(2, batchMeans.getSteadyState().getCount());
+	}
+}
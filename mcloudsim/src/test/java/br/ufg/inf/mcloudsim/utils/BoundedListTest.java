@@ -0,0 +1,105 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a {@link BoundedList} keeps only its last elements, in the
+ * order they were added
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class BoundedListTest extends TestCase {
+
+	public void testInvalidCapacity() {
+		try {
+			new BoundedList<Integer>(-1);
+			fail("Negative capacity accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testKeepsLastElements() {
+		BoundedList<Integer> list = new BoundedList<>(3);
+		list.add(1);
+		list.add(2);
+		assertEquals(Arrays.asList(1, 2), list);
+
+		for (int i = 3; i <= 10; i++)
+			list.add(i);
+		assertEquals(3, list.size());
+		assertEquals(Arrays.asList(8, 9, 10), list);
+		assertEquals(8, list.get(0).intValue());
+	}
+
+	public void testCapacityZero() {
+		BoundedList<Integer> list = new BoundedList<>(0);
+		assertTrue(list.add(1));
+
+		assertTrue(list.isEmpty());
+		assertFalse(list.iterator().hasNext());
+	}
+
+	public void testClear() {
+		BoundedList<Integer> list = new BoundedList<>(2);
+		for (int i = 0; i < 5; i++)
+			list.add(i);
+
+		list.clear();
+		assertTrue(list.isEmpty());
+		list.add(7);
+		assertEquals(Arrays.asList(7), list);
+	}
+
+	public void testGetOutOfBounds() {
+		BoundedList<Integer> list = new BoundedList<>(2);
+		list.add(1);
+		try {
+			list.get(1);
+			fail("Index 1 of 1 element found");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testOnlyAddsAtTheEnd() {
+		BoundedList<Integer> list = new BoundedList<>(2);
+		list.add(1);
+		try {
+			list.add(0, 2);
+			fail("Element added at the start");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testIteratorFailsFast() {
+		BoundedList<Integer> list = new BoundedList<>(2);
+		list.add(1);
+		list.add(2);
+
+		Iterator<Integer> it = list.iterator();
+		it.next();
+		list.add(3);
+		try {
+			it.next();
+			fail("Iterator not invalidated by add");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks {@link IndexedHeap} against a sorted set under random sequences of
+ * adds, polls and removals by key, and that it allocates nothing once grown
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class IndexedHeapTest extends TestCase {
+
+	private static class Flow {
+
+		private final int id;
+		private final long finish;
+
+		Flow(int id, long finish) {
+			this.id = id;
+			this.finish = finish;
+		}
+
+		int getId() {
+			return id;
+		}
+
+		long getFinish() {
+			return finish;
+		}
+	}
+
+	private IndexedHeap<Flow> heap;
+
+	@Override
+	protected void setUp() {
+		heap = new IndexedHeap<>(Flow::getId, Flow::getFinish);
+	}
+
+	public void testOrder() {
+		heap.add(new Flow(3, 20));
+		heap.add(new Flow(1, 10));
+		heap.add(new Flow(2, 20));
+		heap.add(new Flow(0, 30));
+
+		assertEquals(1, heap.peek().getId());
+		assertEquals(1, heap.poll().getId());
+		// same priority, in the order of the keys
+		assertEquals(2, heap.poll().getId());
+		assertEquals(3, heap.poll().getId());
+		assertEquals(0, heap.poll().getId());
+		assertNull(heap.poll());
+		assertNull(heap.peek());
+		assertTrue(heap.isEmpty());
+	}
+
+	public void testRemoveKey() {
+		for (int i = 0; i < 10; i++)
+			heap.add(new Flow(i, 100 - i));
+
+		assertEquals(9, heap.removeKey(9).getId());
+		assertNull(heap.removeKey(9));
+		assertFalse(heap.containsKey(9));
+		assertTrue(heap.containsKey(0));
+		assertEquals(9, heap.size());
+		assertEquals(8, heap.peek().getId());
+	}
+
+	public void testDuplicateKey() {
+		heap.add(new Flow(1, 10));
+		try {
+			heap.add(new Flow(1, 20));
+			fail("Duplicate key accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testGetByIndex() {
+		Set<Integer> ids = new HashSet<>();
+		for (int i = 0; i < 50; i++)
+			heap.add(new Flow(i, i % 7));
+
+		for (int i = 0; i < heap.size(); i++)
+			ids.add(heap.get(i).getId());
+		assertEquals(50, ids.size());
+		try {
+			heap.get(50);
+			fail("Index out of the heap");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testRandomOperations() {
+		Random random = new Random(23);
+		TreeSet<Flow> reference = new TreeSet<>(
+				Comparator.comparingLong(Flow::getFinish).thenComparingInt(Flow::getId));
+		List<Flow> flows = new ArrayList<>();
+		int nextId = 0;
+
+		for (int step = 0; step < 100000; step++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				Flow flow = new Flow(nextId++, random.nextInt(1000));
+				heap.add(flow);
+				reference.add(flow);
+				flows.add(flow);
+			} else if (operation < 7) {
+				Flow expected = reference.pollFirst();
+				assertSame(expected, heap.poll());
+			} else if (!flows.isEmpty()) {
+				Flow flow = flows.get(random.nextInt(flows.size()));
+				assertEquals(reference.remove(flow), heap.removeKey(flow.getId()) == flow);
+			}
+
+			assertEquals(reference.size(), heap.size());
+			assertSame(reference.isEmpty() ? null : reference.first(), heap.peek());
+		}
+
+		while (!reference.isEmpty())
+			assertSame(reference.pollFirst(), heap.poll());
+		assertTrue(heap.isEmpty());
+	}
+
+	public void testNoAllocation() {
+		if (!Allocations.isSupported())
+			return;
+
+		Flow[] flows = new Flow[1000];
+		for (int i = 0; i < flows.length; i++)
+			flows[i] = new Flow(i, (i * 7919) % 1000);
+
+		long allocated = Allocations.measure(() -> {
+			for (int round = 0; round < 10; round++) {
+				for (Flow flow : flows)
+					heap.add(flow);
+				for (int i = 0; i < flows.length; i += 2)
+					heap.removeKey(flows[i].getId());
+				for (int i = 0; i < heap.size(); i++)
+					heap.get(i).getFinish();
+				while (heap.poll() != null)
+					;
+			}
+		});
+		assertEquals(0, allocated);
+	}
+}
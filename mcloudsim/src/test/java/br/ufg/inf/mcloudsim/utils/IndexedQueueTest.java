@@ -0,0 +1,187 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks {@link IndexedQueue} against a reference FIFO queue under random
+ * sequences of adds, polls, removals by key and removals through the iterator
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class IndexedQueueTest extends TestCase {
+
+	private static class Element {
+
+		private final int id;
+
+		Element(int id) {
+			this.id = id;
+		}
+
+		int getId() {
+			return id;
+		}
+	}
+
+	private IndexedQueue<Element> queue;
+	private List<Element> reference;
+
+	@Override
+	protected void setUp() {
+		queue = new IndexedQueue<>(Element::getId);
+		reference = new ArrayList<>();
+	}
+
+	public void testFifoOrder() {
+		for (int i = 0; i < 100; i++)
+			queue.add(new Element(i));
+
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, queue.poll().getId());
+		assertNull(queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	public void testRemoveKey() {
+		for (int i = 0; i < 10; i++)
+			queue.add(new Element(i));
+
+		assertEquals(0, queue.removeKey(0).getId());
+		assertEquals(5, queue.removeKey(5).getId());
+		assertNull(queue.removeKey(5));
+		assertFalse(queue.containsKey(5));
+		assertEquals(8, queue.size());
+		assertEquals(1, queue.peek().getId());
+		assertEquals(7, queue.get(7).getId());
+	}
+
+	public void testDuplicateKey() {
+		queue.add(new Element(1));
+		try {
+			queue.add(new Element(1));
+			fail("Duplicate key accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testIteratorRemove() {
+		for (int i = 0; i < 20; i++)
+			queue.add(new Element(i));
+
+		Iterator<Element> it = queue.iterator();
+		while (it.hasNext()) {
+			if (it.next().getId() % 2 == 0)
+				it.remove();
+		}
+
+		assertEquals(10, queue.size());
+		for (int i = 1; i < 20; i += 2)
+			assertEquals(i, queue.poll().getId());
+	}
+
+	public void testGetNext() {
+		for (int i = 0; i < 10; i++)
+			queue.add(new Element(i));
+		queue.removeKey(3);
+		queue.removeKey(4);
+
+		assertEquals(1, queue.getNext(0).getId());
+		assertEquals(5, queue.getNext(2).getId());
+		assertNull(queue.getNext(9));
+		assertNull(queue.getNext(3));
+	}
+
+	public void testNoAllocation() {
+		if (!Allocations.isSupported())
+			return;
+
+		Element[] elements = new Element[1000];
+		for (int i = 0; i < elements.length; i++)
+			elements[i] = new Element(100000 + i);
+
+		long allocated = Allocations.measure(() -> {
+			for (int round = 0; round < 10; round++) {
+				for (Element element : elements)
+					queue.add(element);
+				for (int i = 0; i < elements.length; i += 3)
+					queue.removeKey(elements[i].getId());
+				for (Element element = queue.peek(); element != null; element = queue.getNext(element.getId()))
+					queue.get(element.getId());
+				while (queue.poll() != null)
+					;
+			}
+		});
+		assertEquals(0, allocated);
+	}
+
+	public void testRandomOperations() {
+		Random random = new Random(42);
+		int nextId = 0;
+
+		for (int step = 0; step < 100000; step++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				Element element = new Element(nextId++);
+				queue.add(element);
+				reference.add(element);
+			} else if (operation < 7) {
+				Element expected = reference.isEmpty() ? null : reference.remove(0);
+				assertSame(expected, queue.poll());
+			} else if (operation < 9) {
+				if (!reference.isEmpty()) {
+					Element element = reference.remove(random.nextInt(reference.size()));
+					assertSame(element, queue.removeKey(element.getId()));
+				}
+			} else {
+				removeThroughIterator(random);
+			}
+
+			assertEquals(reference.size(), queue.size());
+			assertSame(reference.isEmpty() ? null : reference.get(0), queue.peek());
+		}
+
+		assertSameOrder();
+	}
+
+	/**
+	 * Removes every element of a random key residue through the iterator
+	 */
+	private void removeThroughIterator(Random random) {
+		int residue = random.nextInt(4);
+		Iterator<Element> it = queue.iterator();
+		while (it.hasNext()) {
+			if (it.next().getId() % 4 == residue)
+				it.remove();
+		}
+
+		Iterator<Element> expected = reference.iterator();
+		while (expected.hasNext()) {
+			if (expected.next().getId() % 4 == residue)
+				expected.remove();
+		}
+	}
+
+	private void assertSameOrder() {
+		ArrayDeque<Element> remaining = new ArrayDeque<>(reference);
+		for (Element element : queue)
+			assertSame(remaining.poll(), element);
+		assertTrue(remaining.isEmpty());
+	}
+}
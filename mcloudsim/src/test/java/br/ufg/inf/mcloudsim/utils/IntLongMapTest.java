@@ -0,0 +1,84 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks {@link IntLongMap} against a {@link HashMap} under random puts and
+ * removals, which move keys back through clusters of collisions
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class IntLongMapTest extends TestCase {
+
+	public void testBasicOperations() {
+		IntLongMap map = new IntLongMap();
+		map.put(1, 10);
+		map.put(-5, 20);
+		map.put(1, 30);
+
+		assertEquals(2, map.size());
+		assertEquals(30, map.get(1, -1));
+		assertEquals(20, map.get(-5, -1));
+		assertEquals(-1, map.get(2, -1));
+		assertEquals(30, map.remove(1, -1));
+		assertEquals(-1, map.remove(1, -1));
+		assertFalse(map.containsKey(1));
+		assertTrue(map.containsKey(-5));
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(-5));
+	}
+
+	public void testRandomOperations() {
+		Random random = new Random(31);
+		IntLongMap map = new IntLongMap();
+		Map<Integer, Long> reference = new HashMap<>();
+
+		for (int step = 0; step < 200000; step++) {
+			// few distinct keys, so that the removals hit existing ones
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) < 2) {
+				long value = random.nextLong();
+				map.put(key, value);
+				reference.put(key, value);
+			} else {
+				Long expected = reference.remove(key);
+				assertEquals(expected != null ? expected : Long.MIN_VALUE, map.remove(key, Long.MIN_VALUE));
+			}
+			assertEquals(reference.size(), map.size());
+		}
+
+		for (int key = -1000; key < 1000; key++) {
+			Long expected = reference.get(key);
+			assertEquals(expected != null ? expected : Long.MIN_VALUE, map.get(key, Long.MIN_VALUE));
+		}
+	}
+
+	public void testSequentialKeys() {
+		// cloudlet ids grow, so the keys of a queue slide
+		IntLongMap map = new IntLongMap();
+		for (int key = 0; key < 100000; key++) {
+			map.put(key, key);
+			if (key >= 100)
+				assertEquals(key - 100, map.remove(key - 100, -1));
+		}
+		assertEquals(100, map.size());
+		for (int key = 99900; key < 100000; key++)
+			assertEquals(key, map.get(key, -1));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the percentiles of {@link LatencyHistogram} against the exact ones,
+ * within the error bound of its buckets
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	private static final double[] PERCENTILES = { 0, 1, 10, 50, 90, 99, 99.9, 100 };
+
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertEquals(0, histogram.getCount());
+		assertTrue(Double.isNaN(histogram.getMean()));
+		assertTrue(Double.isNaN(histogram.getPercentile(50)));
+	}
+
+	public void testExactSummary() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.add(0.5);
+		histogram.add(1.5);
+		histogram.add(Double.NaN);
+		histogram.add(-1.0);
+
+		assertEquals(3, histogram.getCount());
+		assertEquals(2.0 / 3.0, histogram.getMean(), 1e-12);
+		assertEquals(0.0, histogram.getMin(), 0.0);
+		assertEquals(1.5, histogram.getMax(), 0.0);
+	}
+
+	public void testPercentilesOfExponentialValues() {
+		Random random = new Random(7);
+		double[] values = new double[100000];
+		for (int i = 0; i < values.length; i++)
+			values[i] = -Math.log(1.0 - random.nextDouble()) * 0.2;
+
+		assertPercentiles(values);
+	}
+
+	public void testPercentilesAcrossScales() {
+		Random random = new Random(11);
+		double[] values = new double[100000];
+		// from microseconds to days
+		for (int i = 0; i < values.length; i++)
+			values[i] = Math.pow(10.0, -6.0 + 11.0 * random.nextDouble());
+
+		assertPercentiles(values);
+	}
+
+	public void testMergeAndExport() {
+		Random random = new Random(3);
+		double[] values = new double[20000];
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() * 10.0;
+			(i % 2 == 0 ? first : second).add(values[i]);
+		}
+
+		first.merge(LatencyHistogram.fromArray(second.toArray()));
+
+		assertEquals(values.length, first.getCount());
+		assertPercentiles(values, first);
+	}
+
+	private static void assertPercentiles(double[] values) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (double value : values)
+			histogram.add(value);
+
+		assertPercentiles(values, histogram);
+	}
+
+	/**
+	 * The estimate is within 1% of the exact percentile, or within the
+	 * resolution for the values of the linear buckets
+	 */
+	private static void assertPercentiles(double[] values, LatencyHistogram histogram) {
+		double[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+
+		for (double percentile : PERCENTILES) {
+			int rank = (int) Math.max(1, Math.ceil(percentile / 100.0 * sorted.length));
+			double exact = sorted[rank - 1];
+			double estimate = histogram.getPercentile(percentile);
+			double tolerance = Math.max(0.01 * exact, LatencyHistogram.RESOLUTION);
+
+			assertEquals("Percentile " + percentile, exact, estimate, tolerance);
+		}
+	}
+}
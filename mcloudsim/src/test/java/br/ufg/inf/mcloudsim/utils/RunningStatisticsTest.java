@@ -0,0 +1,117 @@
+/*
+ * Title:        Mobile CloudSim Toolkit
+ * Description:  Extension of CloudSim Toolkit for Modeling and Simulation of Publish/Subscribe 
+ * 				 Communication Paradigm with Subscriber Connectivity Change
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2014-2016, Universidade Federal de Goiás, Brazil
+ */
+
+package br.ufg.inf.mcloudsim.utils;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the running mean, variance and confidence interval of
+ * {@link RunningStatistics}, and their merge and export
+ *
+ * @author Raphael Gomes
+ *
+ */
+public class RunningStatisticsTest extends TestCase {
+
+	public void testEmpty() {
+		RunningStatistics statistics = new RunningStatistics();
+
+		assertEquals(0, statistics.getCount());
+		assertTrue(Double.isNaN(statistics.getMean()));
+		assertTrue(Double.isNaN(statistics.getVariance()));
+		assertTrue(Double.isNaN(statistics.getRelativeHalfWidth(0.95)));
+	}
+
+	public void testMeanAndVariance() {
+		RunningStatistics statistics = new RunningStatistics();
+		for (double value : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 })
+			statistics.add(value);
+		statistics.add(Double.NaN);
+
+		assertEquals(8, statistics.getCount());
+		assertEquals(5.0, statistics.getMean(), 1e-12);
+		assertEquals(32.0 / 7.0, statistics.getVariance(), 1e-12);
+	}
+
+	public void testLargeOffset() {
+		// the variance is small compared to the mean
+		RunningStatistics statistics = new RunningStatistics();
+		for (int i = 0; i < 1000; i++)
+			statistics.add(1e9 + (i % 2));
+
+		assertEquals(0.25 * 1000 / 999, statistics.getVariance(), 1e-9);
+	}
+
+	public void testHalfWidth() {
+		RunningStatistics statistics = new RunningStatistics();
+		statistics.add(9.0);
+		statistics.add(10.0);
+		statistics.add(11.0);
+
+		// t(0.975, 2) = 4.3027
+		assertEquals(4.3027 / Math.sqrt(3.0), statistics.getHalfWidth(0.95), 1e-4);
+		assertEquals(4.3027 / Math.sqrt(3.0) / 10.0, statistics.getRelativeHalfWidth(0.95), 1e-5);
+	}
+
+	public void testMerge() {
+		Random random = new Random(5);
+		RunningStatistics all = new RunningStatistics();
+		RunningStatistics first = new RunningStatistics();
+		RunningStatistics second = new RunningStatistics();
+		for (int i = 0; i < 1000; i++) {
+			double value = 100.0 + random.nextGaussian() * (i < 300 ? 1.0 : 5.0);
+			all.add(value);
+			(i < 300 ? first : second).add(value);
+		}
+
+		first.merge(second);
+		first.merge(new RunningStatistics());
+
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getMean(), first.getMean(), 1e-9);
+		assertEquals(all.getVariance(), first.getVariance(), 1e-9);
+	}
+
+	public void testMergeIntoEmpty() {
+		RunningStatistics statistics = new RunningStatistics();
+		statistics.add(1.0);
+		statistics.add(3.0);
+
+		RunningStatistics merged = new RunningStatistics();
+		merged.merge(statistics);
+
+		assertEquals(2, merged.getCount());
+		assertEquals(2.0, merged.getMean(), 0.0);
+		assertEquals(2.0, merged.getVariance(), 0.0);
+	}
+
+	public void testExport() {
+		RunningStatistics statistics = new RunningStatistics();
+		for (int i = 1; i <= 10; i++)
+			statistics.add(i);
+
+		RunningStatistics imported = RunningStatistics.fromArray(statistics.toArray());
+
+		assertEquals(statistics.getCount(), imported.getCount());
+		assertEquals(statistics.getMean(), imported.getMean(), 0.0);
+		assertEquals(statistics.getVariance(), imported.getVariance(), 0.0);
+	}
+
+	public void testInvalidExport() {
+		try {
+			RunningStatistics.fromArray(new double[2]);
+			fail("Invalid array accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}